@@ -0,0 +1,192 @@
+package com.lemuelinchrist.exercise.facepalm.benchmark;
+
+import com.lemuelinchrist.exercise.facepalm.FacepalmApplication;
+import com.lemuelinchrist.exercise.facepalm.exception.AccountBlockedException;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadyBlockedException;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
+import com.lemuelinchrist.exercise.facepalm.exception.NonExistentAccountException;
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import com.lemuelinchrist.exercise.facepalm.service.EmailPair;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the AccountService end to end: the application is started without a web server against the embedded H2,
+ * populated with a synthetic power-law graph through the batch operations and then queried with the operations of the
+ * user stories. The <code>engine</code> parameter selects the Social Graph engine, so the JPQL queries of the
+ * AccountRepository and the in-memory engine are measured on the same data.
+ * <p>
+ * Every operation runs in its own transaction, like the session that the web layer keeps open for each request.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountServiceBenchmark {
+    private static final int SAMPLE_SIZE = 4096;
+
+    @Param({"memory", "repository"})
+    public String engine;
+
+    @Param({"10000"})
+    public int accounts;
+
+    @Param({"2.2"})
+    public double exponent;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private TransactionTemplate transactionTemplate;
+    private String[] emails;
+    private int[] sample;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FacepalmApplication.class)
+                .web(false)
+                .properties("facepalm.graph.engine=" + engine, "logging.level.root=WARN")
+                .run();
+        accountService = context.getBean(AccountService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        SocialGraphGenerator generator = new SocialGraphGenerator(accounts, 20, 5, 0.01, exponent, 42);
+        emails = generator.emails();
+        RelationshipRepository relationshipRepository = context.getBean(RelationshipRepository.class);
+        relationshipRepository.insertAccounts(Arrays.asList(emails));
+        Map<String, Long> ids = relationshipRepository.findIdsByEmail(Arrays.asList(emails));
+        SocialGraph socialGraph = context.getBean(SocialGraph.class);
+        for (String email : emails) {
+            socialGraph.addAccount(email, ids.get(email));
+        }
+        accountService.blockAccounts(toEmailPairs(generator.blocks()));
+        accountService.befriendAccounts(toEmailPairs(generator.friendships()));
+        accountService.subscribeToUpdates(toEmailPairs(generator.subscriptions()));
+        sample = generator.weightedSample(SAMPLE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private List<EmailPair> toEmailPairs(int[][] edges) {
+        List<EmailPair> pairs = new ArrayList<>(edges.length);
+        for (int[] edge : edges) {
+            pairs.add(new EmailPair(emails[edge[0]], emails[edge[1]]));
+        }
+        return pairs;
+    }
+
+    private <T> T inTransaction(TransactionCallback<T> operation) {
+        return transactionTemplate.execute(operation);
+    }
+
+    private String nextEmail() {
+        cursor = (cursor + 1) & (SAMPLE_SIZE - 1);
+        return emails[sample[cursor]];
+    }
+
+    // any account but the one of the last weighted pick, so that writes never relate an account to itself
+    private String nextUniformEmail() {
+        int offset = 1 + ThreadLocalRandom.current().nextInt(accounts - 1);
+        return emails[(sample[cursor] + offset) % accounts];
+    }
+
+    @Benchmark
+    public Object befriend() {
+        String target = nextEmail();
+        String requestor = nextUniformEmail();
+        return inTransaction(status -> {
+            try {
+                accountService.befriendAccounts(requestor, target);
+                return target;
+            } catch (AccountBlockedException | NonExistentAccountException e) {
+                return e;
+            }
+        });
+    }
+
+    @Benchmark
+    public Object getFriends() {
+        String email = nextEmail();
+        return inTransaction(status -> {
+            try {
+                return accountService.getFriendListByEmail(email);
+            } catch (NonExistentAccountException e) {
+                return e;
+            }
+        });
+    }
+
+    @Benchmark
+    public Object commonFriends() {
+        String first = nextEmail();
+        String second = nextEmail();
+        return inTransaction(status -> {
+            try {
+                return accountService.getCommonFriendsBetweenAccounts(first, second);
+            } catch (NonExistentAccountException e) {
+                return e;
+            }
+        });
+    }
+
+    @Benchmark
+    public Object subscribe() {
+        String target = nextEmail();
+        String requestor = nextUniformEmail();
+        return inTransaction(status -> {
+            try {
+                accountService.subscribeToUpdates(requestor, target);
+                return target;
+            } catch (AlreadySubscribedException | NonExistentAccountException e) {
+                return e;
+            }
+        });
+    }
+
+    @Benchmark
+    public Object block() {
+        String target = nextEmail();
+        String requestor = nextUniformEmail();
+        return inTransaction(status -> {
+            try {
+                accountService.blockAccount(requestor, target);
+                return target;
+            } catch (AlreadyBlockedException | NonExistentAccountException e) {
+                return e;
+            }
+        });
+    }
+
+    @Benchmark
+    public Object broadcastRecipients() {
+        String sender = nextEmail();
+        return inTransaction(status -> {
+            try {
+                return accountService.getBroadcastRecipientsOf(sender);
+            } catch (NonExistentAccountException e) {
+                return e;
+            }
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.lemuelinchrist.exercise.facepalm.benchmark;
+
+import com.lemuelinchrist.exercise.facepalm.FacepalmApplication;
+import com.lemuelinchrist.exercise.facepalm.exception.AccountBlockedException;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
+import com.lemuelinchrist.exercise.facepalm.exception.NonExistentAccountException;
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of concurrent relationship writes through the AccountService. Run it once per thread count,
+ * eg. <code>-Pjmh.args="-t 1"</code>, then <code>-t 2</code>, <code>-t 4</code> and so on. The <code>stripes</code>
+ * parameter sets the lock stripes of the WriteCoordinator: a single stripe serializes every write like a global lock
+ * would. More stripes only let the database part of the writes overlap; the memory engine applies each of them under
+ * its single write lock.
+ * <p>
+ * <code>befriendUniform</code> relates random Accounts, while <code>subscribeToHotAccount</code> and
+ * <code>befriendHotAccount</code> pick their target with the power-law weights of the generator, so most writes land
+ * on a few popular Accounts.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentWriteBenchmark {
+    private static final int SAMPLE_SIZE = 4096;
+
+    @Param({"1", "1024"})
+    public int stripes;
+
+    @Param({"100000"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private String[] emails;
+    private int[] sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FacepalmApplication.class)
+                .web(false)
+                .properties("facepalm.write.lock-stripes=" + stripes, "logging.level.root=WARN")
+                .run();
+        accountService = context.getBean(AccountService.class);
+
+        SocialGraphGenerator generator = new SocialGraphGenerator(accounts, 20, 5, 0.01, 2.2, 42);
+        emails = generator.emails();
+        RelationshipRepository relationshipRepository = context.getBean(RelationshipRepository.class);
+        relationshipRepository.insertAccounts(Arrays.asList(emails));
+        Map<String, Long> ids = relationshipRepository.findIdsByEmail(Arrays.asList(emails));
+        SocialGraph socialGraph = context.getBean(SocialGraph.class);
+        for (String email : emails) {
+            socialGraph.addAccount(email, ids.get(email));
+        }
+        sample = generator.weightedSample(SAMPLE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String uniformEmail() {
+        return emails[ThreadLocalRandom.current().nextInt(accounts)];
+    }
+
+    private String hotEmail() {
+        return emails[sample[ThreadLocalRandom.current().nextInt(SAMPLE_SIZE)]];
+    }
+
+    @Benchmark
+    public Object befriendUniform() {
+        try {
+            accountService.befriendAccounts(uniformEmail(), uniformEmail());
+            return null;
+        } catch (AccountBlockedException | NonExistentAccountException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object befriendHotAccount() {
+        try {
+            accountService.befriendAccounts(uniformEmail(), hotEmail());
+            return null;
+        } catch (AccountBlockedException | NonExistentAccountException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object subscribeToHotAccount() {
+        try {
+            accountService.subscribeToUpdates(uniformEmail(), hotEmail());
+            return null;
+        } catch (AlreadySubscribedException | NonExistentAccountException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.lemuelinchrist.exercise.facepalm.benchmark;
+
+import com.lemuelinchrist.exercise.facepalm.email.EmailScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the EmailScanner with the regular expressions it replaced, compiled on every call as the request path used
+ * to do and precompiled once. Run with <code>-prof gc</code> to compare the allocation rates as well.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailScannerBenchmark {
+    private static final String REQUEST_EMAIL = "[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,4}";
+    private static final String MENTION = "[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+";
+    private static final Pattern COMPILED_REQUEST_EMAIL = Pattern.compile(REQUEST_EMAIL);
+    private static final Pattern COMPILED_MENTION = Pattern.compile(MENTION);
+
+    @Param({"first.last+news@mail.example.com"})
+    public String email;
+
+    @Param({"5"})
+    public int mentions;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("Hello World! ");
+        for (int i = 0; i < mentions; i++) {
+            builder.append("thanks user").append(i).append("@example.com for the update, ");
+        }
+        text = builder.append("see you @ the meetup.").toString();
+    }
+
+    @Benchmark
+    public boolean validateWithPatternPerCall() {
+        return Pattern.compile(REQUEST_EMAIL).matcher(email).matches();
+    }
+
+    @Benchmark
+    public boolean validateWithPrecompiledPattern() {
+        return COMPILED_REQUEST_EMAIL.matcher(email).matches();
+    }
+
+    @Benchmark
+    public boolean validateWithScanner() {
+        return EmailScanner.isValidEmail(email);
+    }
+
+    @Benchmark
+    public List<String> mentionsWithPatternPerCall() {
+        return findAll(Pattern.compile(MENTION).matcher(text));
+    }
+
+    @Benchmark
+    public List<String> mentionsWithPrecompiledPattern() {
+        return findAll(COMPILED_MENTION.matcher(text));
+    }
+
+    @Benchmark
+    public List<String> mentionsWithScanner() {
+        return EmailScanner.findMentions(text);
+    }
+
+    private static List<String> findAll(Matcher matcher) {
+        List<String> found = new ArrayList<>();
+        while (matcher.find()) {
+            found.add(matcher.group());
+        }
+        return found;
+    }
+}
@@ -0,0 +1,114 @@
+package com.lemuelinchrist.exercise.facepalm.benchmark;
+
+import com.lemuelinchrist.exercise.facepalm.graph.FriendSuggestion;
+import com.lemuelinchrist.exercise.facepalm.graph.InMemorySocialGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory Social Graph engine on its own, without Spring or a database, over synthetic power-law graphs.
+ * Reads pick their accounts by weight, so celebrities are queried as often as they would be in production.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemorySocialGraphBenchmark {
+    private static final int SAMPLE_SIZE = 4096;
+
+    @Param({"10000", "100000"})
+    public int accounts;
+
+    @Param({"2.2"})
+    public double exponent;
+
+    @Param({"1000"})
+    public int broadcasterThreshold;
+
+    private InMemorySocialGraph socialGraph;
+    private String[] emails;
+    private int[] sample;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SocialGraphGenerator generator = new SocialGraphGenerator(accounts, 20, 5, 0.01, exponent, 42);
+        socialGraph = new InMemorySocialGraph(null, null, broadcasterThreshold, null, 0, "database", 0);
+        emails = generator.emails();
+        for (int id = 0; id < emails.length; id++) {
+            socialGraph.addAccount(emails[id], id + 1);
+        }
+        for (int[] edge : generator.friendships()) {
+            socialGraph.addFriendship(emails[edge[0]], emails[edge[1]]);
+        }
+        for (int[] edge : generator.subscriptions()) {
+            socialGraph.addSubscription(emails[edge[0]], emails[edge[1]]);
+        }
+        for (int[] edge : generator.blocks()) {
+            socialGraph.addBlock(emails[edge[0]], emails[edge[1]]);
+        }
+        sample = generator.weightedSample(SAMPLE_SIZE);
+    }
+
+    private String nextEmail() {
+        cursor = (cursor + 1) & (SAMPLE_SIZE - 1);
+        return emails[sample[cursor]];
+    }
+
+    // any account but the one of the last weighted pick, so that writes never relate an account to itself
+    private String nextUniformEmail() {
+        int offset = 1 + ThreadLocalRandom.current().nextInt(accounts - 1);
+        return emails[(sample[cursor] + offset) % accounts];
+    }
+
+    @Benchmark
+    public void befriend() {
+        String target = nextEmail();
+        socialGraph.addFriendship(nextUniformEmail(), target);
+    }
+
+    @Benchmark
+    public List<String> getFriends() {
+        return socialGraph.getFriendsOf(nextEmail());
+    }
+
+    @Benchmark
+    public List<String> commonFriends() {
+        return socialGraph.getCommonFriendsOf(nextEmail(), nextEmail());
+    }
+
+    @Benchmark
+    public void subscribe() {
+        String target = nextEmail();
+        socialGraph.addSubscription(nextUniformEmail(), target);
+    }
+
+    @Benchmark
+    public void block() {
+        String target = nextEmail();
+        socialGraph.addBlock(nextUniformEmail(), target);
+    }
+
+    @Benchmark
+    public List<String> broadcastRecipients() {
+        return socialGraph.getBroadcastRecipientsOf(nextEmail());
+    }
+
+    @Benchmark
+    public List<FriendSuggestion> friendSuggestions() {
+        return socialGraph.getFriendSuggestionsOf(nextEmail(), 10);
+    }
+
+    @Benchmark
+    public List<String> connectionPath() {
+        return socialGraph.getConnectionPathOf(nextEmail(), nextUniformEmail(), 6, 100_000, true);
+    }
+}
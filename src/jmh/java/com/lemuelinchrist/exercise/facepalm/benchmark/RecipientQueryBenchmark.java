@@ -0,0 +1,109 @@
+package com.lemuelinchrist.exercise.facepalm.benchmark;
+
+import com.lemuelinchrist.exercise.facepalm.FacepalmApplication;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.QueryCacheRegions;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JPQL broadcast recipients query of the AccountRepository with the native forms of the
+ * RelationshipRepository, for a single sender with the given number of friendship and subscription edges.
+ * Half of the subscribers are friends as well, so every form has duplicates to remove, and one Account in a hundred
+ * blocked the sender.
+ * <p>
+ * The <code>query</code> parameter is <code>jpql</code> or a value of <code>facepalm.recipients.query</code>.
+ * Large senders need a larger heap for the embedded H2, eg.
+ * <code>-Pjmh.args="-p edges=1000000 -jvmArgs -Xmx4g"</code>.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipientQueryBenchmark {
+    private static final String SENDER = "sender@recipients.com";
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Param({"jpql", "except", "anti-join"})
+    public String query;
+
+    @Param({"10000", "100000", "1000000"})
+    public int edges;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private RelationshipRepository relationshipRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FacepalmApplication.class)
+                .web(false)
+                // the queries are compared, not the query cache
+                .properties("facepalm.graph.engine=repository", "logging.level.root=WARN",
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false")
+                .run();
+        accountRepository = context.getBean(AccountRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        RelationshipRepository repository = context.getBean(RelationshipRepository.class);
+        if (!"jpql".equals(query)) {
+            relationshipRepository = new RelationshipRepository(context.getBean(NamedParameterJdbcTemplate.class),
+                    context.getBean(QueryCacheRegions.class), query);
+        }
+
+        // friends are the accounts [0, edges / 2) and subscribers are [edges / 4, 3 * edges / 4)
+        int accounts = 3 * edges / 4;
+        repository.insertAccounts(Collections.singletonList(SENDER));
+        long sender = repository.findIdsByEmail(Collections.singletonList(SENDER)).get(SENDER);
+        for (int from = 0; from < accounts; from += CHUNK_SIZE) {
+            int to = Math.min(accounts, from + CHUNK_SIZE);
+            List<String> emails = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                emails.add("recipient" + i + "@recipients.com");
+            }
+            repository.insertAccounts(emails);
+            Map<String, Long> ids = repository.findIdsByEmail(emails);
+            List<AccountPair> friendships = new ArrayList<>();
+            List<AccountPair> subscriptions = new ArrayList<>();
+            List<AccountPair> blocks = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                long id = ids.get("recipient" + i + "@recipients.com");
+                if (i < edges / 2) friendships.add(new AccountPair(sender, id));
+                if (i >= edges / 4) subscriptions.add(new AccountPair(sender, id));
+                if (i % 100 == 0) blocks.add(new AccountPair(id, sender));
+            }
+            repository.insertFriendships(friendships);
+            repository.insertSubscriptions(subscriptions);
+            repository.insertBlocks(blocks);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object broadcastRecipients() {
+        return transactionTemplate.execute(status -> relationshipRepository == null
+                ? accountRepository.findFriendsAndSubscribersOf(SENDER).orElseThrow(IllegalStateException::new)
+                : relationshipRepository.findBroadcastRecipients(SENDER));
+    }
+}
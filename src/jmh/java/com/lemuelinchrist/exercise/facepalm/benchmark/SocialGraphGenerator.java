@@ -0,0 +1,128 @@
+package com.lemuelinchrist.exercise.facepalm.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates synthetic social graphs with a power-law degree distribution (Chung-Lu model): every account gets a weight
+ * that follows a Zipf law over its rank and the endpoints of every edge are drawn proportionally to those weights.
+ * Account 0 is the heaviest celebrity and the degree falls off with the index.
+ * <p>
+ * Generation is deterministic for a given seed, so successive benchmark runs work on the same graph.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class SocialGraphGenerator {
+    private final int accounts;
+    private final double averageFriends;
+    private final double averageSubscriptions;
+    private final double blockRatio;
+    private final Random random;
+    private final double[] cumulativeWeights;
+
+    /**
+     * @param accounts             number of accounts
+     * @param averageFriends       average number of friends per account
+     * @param averageSubscriptions average number of subscriptions per account
+     * @param blockRatio           fraction of accounts that block somebody
+     * @param exponent             exponent of the degree distribution, typically between 2 and 3. Lower is more skewed.
+     * @param seed                 random seed
+     */
+    public SocialGraphGenerator(int accounts, double averageFriends, double averageSubscriptions, double blockRatio,
+                                double exponent, long seed) {
+        this.accounts = accounts;
+        this.averageFriends = averageFriends;
+        this.averageSubscriptions = averageSubscriptions;
+        this.blockRatio = blockRatio;
+        this.random = new Random(seed);
+        this.cumulativeWeights = new double[accounts];
+        double total = 0;
+        for (int i = 0; i < accounts; i++) {
+            total += Math.pow(i + 1, -1 / (exponent - 1));
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static SocialGraphGenerator withDefaults(int accounts) {
+        return new SocialGraphGenerator(accounts, 20, 5, 0.01, 2.2, 42);
+    }
+
+    public int getAccounts() {
+        return accounts;
+    }
+
+    public static String emailOf(int account) {
+        return "user" + account + "@bench.facepalm.com";
+    }
+
+    /**
+     * @return account emails, indexed by account number
+     */
+    public String[] emails() {
+        String[] emails = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            emails[i] = emailOf(i);
+        }
+        return emails;
+    }
+
+    /**
+     * @return undirected friendships as pairs of account numbers, both endpoints drawn by weight
+     */
+    public int[][] friendships() {
+        return edges((long) (accounts * averageFriends / 2), true);
+    }
+
+    /**
+     * @return subscriptions as (requestor, target) pairs. Requestors are uniform, targets are drawn by weight.
+     */
+    public int[][] subscriptions() {
+        return edges((long) (accounts * averageSubscriptions), false);
+    }
+
+    /**
+     * @return blocks as (requestor, target) pairs, both uniform
+     */
+    public int[][] blocks() {
+        int count = (int) (accounts * blockRatio);
+        int[][] blocks = new int[count][];
+        for (int i = 0; i < count; i++) {
+            blocks[i] = distinctPair(random.nextInt(accounts), random.nextInt(accounts));
+        }
+        return blocks;
+    }
+
+    /**
+     * @return a sample of account numbers drawn by weight, mimicking read traffic skewed towards celebrities
+     */
+    public int[] weightedSample(int size) {
+        int[] sample = new int[size];
+        for (int i = 0; i < size; i++) {
+            sample[i] = weightedAccount();
+        }
+        return sample;
+    }
+
+    private int[][] edges(long count, boolean weightedSource) {
+        int[][] edges = new int[(int) count][];
+        for (int i = 0; i < count; i++) {
+            int source = weightedSource ? weightedAccount() : random.nextInt(accounts);
+            edges[i] = distinctPair(source, weightedAccount());
+        }
+        return edges;
+    }
+
+    private int[] distinctPair(int first, int second) {
+        while (second == first) {
+            second = random.nextInt(accounts);
+        }
+        return new int[]{first, second};
+    }
+
+    private int weightedAccount() {
+        double value = random.nextDouble() * cumulativeWeights[accounts - 1];
+        int position = Arrays.binarySearch(cumulativeWeights, value);
+        return Math.min(position >= 0 ? position : -position - 1, accounts - 1);
+    }
+}
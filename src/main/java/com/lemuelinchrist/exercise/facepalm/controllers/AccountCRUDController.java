@@ -1,14 +1,19 @@
 package com.lemuelinchrist.exercise.facepalm.controllers;
 
 import com.lemuelinchrist.exercise.facepalm.exception.ExistingEmailException;
+import com.lemuelinchrist.exercise.facepalm.exception.ImportInProgressException;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
+import com.lemuelinchrist.exercise.facepalm.service.AccountImportService;
 import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import com.lemuelinchrist.exercise.facepalm.service.ImportProgress;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.net.URI;
 
 /**
@@ -21,10 +26,12 @@ import java.net.URI;
 public class AccountCRUDController {
 
     private AccountService accountService;
+    private AccountImportService accountImportService;
 
     @Autowired
-    public AccountCRUDController(AccountService accountService) {
+    public AccountCRUDController(AccountService accountService, AccountImportService accountImportService) {
         this.accountService = accountService;
+        this.accountImportService = accountImportService;
     }
 
     @RequestMapping(method = RequestMethod.POST)
@@ -41,6 +48,36 @@ public class AccountCRUDController {
         return accountService.findOne(id);
     }
 
+    /**
+     * Streams a newline-delimited JSON body of Accounts and relationships into the database. The body is read line by
+     * line and never buffered as a whole. Each line is one of:
+     * <p>
+     * <code>{"type": "account", "email": "andy@example.com"}
+     * {"type": "friend", "friends": ["andy@example.com", "john@example.com"]}
+     * {"type": "subscribe", "requestor": "lisa@example.com", "target": "john@example.com"}
+     * {"type": "block", "requestor": "andy@example.com", "target": "john@example.com"}</code>
+     *
+     * @param request the raw request, whose body is the NDJSON stream
+     * @return the counters of the finished import
+     * @throws IOException Thrown if the request body cannot be read
+     * @throws ImportInProgressException Thrown if another import is running
+     */
+    @RequestMapping(value = "/import", method = RequestMethod.POST)
+    ResponseEntity<ImportProgress> importAccounts(HttpServletRequest request)
+            throws IOException, ImportInProgressException {
+        return ResponseEntity.ok().body(accountImportService.importFrom(request.getInputStream()));
+    }
+
+    /**
+     * @return the counters of the running import, or of the last one if none is running
+     */
+    @RequestMapping(value = "/import/progress", method = RequestMethod.GET)
+    ResponseEntity<ImportProgress> importProgress() {
+        return accountImportService.getLastImport()
+                .map(progress -> ResponseEntity.ok().body(progress))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
 
 
 }
@@ -1,23 +1,29 @@
 package com.lemuelinchrist.exercise.facepalm.controllers;
 
 import com.lemuelinchrist.exercise.facepalm.controllers.dto.*;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lemuelinchrist.exercise.facepalm.exception.*;
+import com.lemuelinchrist.exercise.facepalm.graph.FriendPage;
+import com.lemuelinchrist.exercise.facepalm.graph.FriendSuggestion;
+import com.lemuelinchrist.exercise.facepalm.graph.MutualFriendCount;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
 import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import com.lemuelinchrist.exercise.facepalm.service.BatchItemResult;
+import com.lemuelinchrist.exercise.facepalm.service.EmailPair;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestMethod;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 
 /**
  * Account Management Controller for the User Stories of this Project.
@@ -29,11 +35,23 @@ import java.util.regex.Pattern;
 @RequestMapping("/account-management")
 public class AccountManagementController {
 
+    // friends fetched per page when streaming a friend list
+    static final int STREAM_PAGE_SIZE = 1000;
+    static final int MAX_PAGE_SIZE = 10_000;
+    static final int DEFAULT_SUGGESTIONS = 10;
+    static final int MAX_SUGGESTIONS = 1000;
+    static final int DEFAULT_CONNECTION_DEPTH = 6;
+    static final int MAX_CONNECTION_DEPTH = 12;
+    static final int DEFAULT_NODE_BUDGET = 100_000;
+    static final int MAX_NODE_BUDGET = 10_000_000;
+
     private AccountService accountService;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    public AccountManagementController(AccountService accountService) {
+    public AccountManagementController(AccountService accountService, ObjectMapper objectMapper) {
         this.accountService = accountService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -77,17 +95,127 @@ public class AccountManagementController {
      * email: 'something@email.com'
      * }</code>
      *
+     * <p>
+     * The list can be paginated with the optional 'limit' and 'cursor' request parameters, eg.
+     * <code>/get-friends?limit=100</code> and then <code>/get-friends?limit=100&amp;cursor=1234</code> where the cursor is
+     * the 'nextCursor' of the previous page. nextCursor is absent on the last page, and count is the size of the page.
+     *
      * @param account a json request with an 'email' parameter
+     * @param cursor  the nextCursor of the previous page
+     * @param limit   the maximum number of friends to return
      * @return returns json object with the following structure: {success: true, friends: ['email@email.com'], count:1 }
      * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     * @throws InvalidParameterException   Thrown if the limit is not between 1 and the maximum page size, or if the
+     *                                     cursor is negative
      */
     @RequestMapping(value = "/get-friends", method = RequestMethod.POST)
-    public ResponseEntity<FriendResponseDTO> getFriends(@Valid @RequestBody Account account) throws NonExistentAccountException {
-        List<String> friends = accountService.getFriendListByEmail(account.getEmail());
-        FriendResponseDTO friendResponseDTO = new FriendResponseDTO("true", friends, friends.size());
+    public ResponseEntity<FriendResponseDTO> getFriends(@Valid @RequestBody Account account,
+                                                        @RequestParam(required = false) Long cursor,
+                                                        @RequestParam(required = false) Integer limit)
+            throws NonExistentAccountException, InvalidParameterException {
+        if (cursor == null && limit == null) {
+            List<String> friends = accountService.getFriendListByEmail(account.getEmail());
+            FriendResponseDTO friendResponseDTO = new FriendResponseDTO("true", friends, friends.size());
+            return ResponseEntity.ok().body(friendResponseDTO);
+        }
+        int pageSize = limit != null ? limit : MAX_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidParameterException("limit should be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (cursor != null && cursor < 0) {
+            throw new InvalidParameterException("cursor should be the nextCursor of a previous page");
+        }
+
+        FriendPage page = accountService.getFriendPageByEmail(account.getEmail(), cursor, pageSize);
+        FriendResponseDTO friendResponseDTO = new FriendResponseDTO("true", page.getEmails(), page.getEmails().size(),
+                page.getNextCursor());
         return ResponseEntity.ok().body(friendResponseDTO);
     }
 
+    /**
+     * USER STORY # 2, streamed.
+     * Same request and response as /get-friends, selected with the 'stream=true' request parameter unless
+     * 'countOnly=true' is given as well, which takes precedence. The friends are fetched page by page and written
+     * straight to the response as they come, so the memory used does not depend on the number of friends.
+     *
+     * @param account a json request with an 'email' parameter
+     * @return returns json object with the following structure: {success: true, friends: ['email@email.com'], count:1 }
+     * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     */
+    @RequestMapping(value = "/get-friends", method = RequestMethod.POST, params = {"stream=true", "countOnly!=true"})
+    public ResponseEntity<StreamingResponseBody> streamFriends(@Valid @RequestBody Account account)
+            throws NonExistentAccountException {
+        String email = account.getEmail();
+        // fail before the response is committed if the account doesn't exist
+        FriendPage firstPage = accountService.getFriendPageByEmail(email, null, STREAM_PAGE_SIZE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeStringField("success", "true");
+                generator.writeArrayFieldStart("friends");
+                int count = 0;
+                FriendPage page = firstPage;
+                while (true) {
+                    for (String friend : page.getEmails()) {
+                        generator.writeString(friend);
+                    }
+                    count += page.getEmails().size();
+                    generator.flush();
+                    if (page.getNextCursor() == null) break;
+                    page = accountService.getFriendPageByEmail(email, page.getNextCursor(), STREAM_PAGE_SIZE);
+                }
+                generator.writeEndArray();
+                generator.writeNumberField("count", count);
+                generator.writeEndObject();
+            } catch (NonExistentAccountException e) {
+                throw new IllegalStateException("Account was removed while streaming its friends", e);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+    }
+
+    /**
+     * USER STORY # 2, counted.
+     * Same request as /get-friends, selected with the 'countOnly=true' request parameter whatever the others are.
+     * Only the count is returned, read from the friend counter of the Account rather than from its list.
+     *
+     * @param account a json request with an 'email' parameter
+     * @return returns json object with the following structure: {success: true, count:1 }
+     * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     */
+    @RequestMapping(value = "/get-friends", method = RequestMethod.POST, params = "countOnly=true")
+    public ResponseEntity<FriendResponseDTO> getFriendCount(@Valid @RequestBody Account account)
+            throws NonExistentAccountException {
+        Account counted = accountService.getRelationshipCountsOf(account.getEmail());
+        return ResponseEntity.ok().body(new FriendResponseDTO("true", null, counted.getFriendCount()));
+    }
+
+    /**
+     * Relationship counts.
+     * This service returns how many friends, subscribers, subscriptions, blocked Accounts and blockers an Account has,
+     * from counters that every relationship write keeps up to date, without loading any list.
+     * The request has the same structure as the one of /get-friends, and the response the following one:
+     * <code>{
+     * "success": true,
+     * "friends": 2,
+     * "subscribers": 1,
+     * "subscriptions": 0,
+     * "blocked": 0,
+     * "blockers": 1
+     * }</code>
+     *
+     * @param account a json request with an 'email' parameter
+     * @return the relationship counts of the Account
+     * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     */
+    @RequestMapping(value = "/get-relationship-counts", method = RequestMethod.POST)
+    public ResponseEntity<RelationshipCountsResponseDTO> getRelationshipCounts(@Valid @RequestBody Account account)
+            throws NonExistentAccountException {
+        Account counted = accountService.getRelationshipCountsOf(account.getEmail());
+        return ResponseEntity.ok().body(new RelationshipCountsResponseDTO("true", counted));
+    }
+
     /**
      * User Story # 3
      * This service retrieves a common friends list between two email addresses.
@@ -177,6 +305,7 @@ public class AccountManagementController {
      * it wasn't blocked by the broadcaster
      * it is friends with the broadcaster
      * it subscribed updates with the broadcaster
+     * it is mentioned in the text, exists and didn't block the broadcaster
      * <p>
      * the json request has the following structure:
      * <code>{
@@ -203,17 +332,230 @@ public class AccountManagementController {
     public ResponseEntity<FriendResponseDTO> getUpdateRecipients(@RequestBody SenderDTO senderDTO)
             throws NonExistentAccountException, InvalidParameterException {
         senderDTO.checkValidity();
-        List<String> sendingList = accountService.getBroadcastRecipientsOf(senderDTO.getSender());
-        List<String> finalList = new ArrayList<>(sendingList);
-
-        Matcher m = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+").matcher(senderDTO.getText());
-        while (m.find()) {
-            finalList.add(m.group());
-        }
+        List<String> finalList = accountService.getUpdateRecipientsOf(senderDTO.getSender(), senderDTO.getText());
 
         FriendResponseDTO friendResponseDTO = new FriendResponseDTO("true", finalList, finalList.size());
         return ResponseEntity.ok().body(friendResponseDTO);
     }
 
+    /**
+     * Mutual friends in bulk.
+     * This service counts the friends that an Account has in common with each of up to 5000 candidates, in one call.
+     * The Json request object will have the following structure:
+     * <code>{
+     * email: 'andy@example.com',
+     * candidates: ['john@example.com', 'kate@example.com']
+     * }</code>
+     * The optional 'withLists' request parameter (false by default) also returns the emails of the mutual friends.
+     * The response has the following structure:
+     * <code>{
+     * "success": true,
+     * "candidates": [{"email": "john@example.com", "mutualFriends": 2, "friends": null}],
+     * "count": 1
+     * }</code>
+     *
+     * @param mutualFriendsRequestDTO a json object containing the email and the candidates
+     * @param withLists               if true, the mutual friends are listed along with their number
+     * @return one count per candidate, in the order of the request
+     * @throws InvalidParameterException   Thrown if an email is malformed or if there are no or too many candidates
+     * @throws NonExistentAccountException The service will not accept an email that does not have a created account
+     *                                     yet. Candidates without an account simply have no mutual friends.
+     */
+    @RequestMapping(value = "/get-mutual-friend-counts", method = RequestMethod.POST)
+    public ResponseEntity<MutualFriendsResponseDTO> getMutualFriendCounts(
+            @RequestBody MutualFriendsRequestDTO mutualFriendsRequestDTO,
+            @RequestParam(required = false, defaultValue = "false") boolean withLists)
+            throws InvalidParameterException, NonExistentAccountException {
+        mutualFriendsRequestDTO.checkValidity();
+        List<MutualFriendCount> counts = accountService.getMutualFriendCountsOf(mutualFriendsRequestDTO.getEmail(),
+                mutualFriendsRequestDTO.getCandidates(), withLists);
+        return ResponseEntity.ok().body(new MutualFriendsResponseDTO("true", counts, counts.size()));
+    }
+
+    /**
+     * People you may know.
+     * This service suggests the friends of the friends of an Account, ranked by the number of friends they have in
+     * common with it. Existing friends, Accounts the Account blocked and Accounts that blocked it are never suggested.
+     * The request has the same structure as the one of /get-friends, and the optional 'limit' request parameter sets
+     * the number of suggestions (10 by default). The response has the following structure:
+     * <code>{
+     * "success": true,
+     * "suggestions": [{"email": "kate@example.com", "mutualFriends": 3}],
+     * "count": 1
+     * }</code>
+     *
+     * @param account a json request with an 'email' parameter
+     * @param limit   the maximum number of suggestions to return
+     * @return the suggestions, most mutual friends first
+     * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     * @throws InvalidParameterException   Thrown if the limit is not between 1 and the maximum number of suggestions
+     */
+    @RequestMapping(value = "/get-friend-suggestions", method = RequestMethod.POST)
+    public ResponseEntity<SuggestionResponseDTO> getFriendSuggestions(@Valid @RequestBody Account account,
+                                                                      @RequestParam(required = false) Integer limit)
+            throws NonExistentAccountException, InvalidParameterException {
+        int size = limit != null ? limit : DEFAULT_SUGGESTIONS;
+        if (size < 1 || size > MAX_SUGGESTIONS) {
+            throw new InvalidParameterException("limit should be between 1 and " + MAX_SUGGESTIONS);
+        }
+
+        List<FriendSuggestion> suggestions = accountService.getFriendSuggestionsOf(account.getEmail(), size);
+        return ResponseEntity.ok().body(new SuggestionResponseDTO("true", suggestions, suggestions.size()));
+    }
+
+    /**
+     * Degrees of separation.
+     * This service finds a shortest chain of friendships between two email addresses. The request has the same
+     * structure as the one of /get-common-friends, the path starting from the first email. The optional request
+     * parameters are 'maxDepth', the maximum number of friendships in the path (6 by default), 'nodeBudget', the
+     * number of Accounts the search may visit before giving up (100000 by default), and 'honourBlocks', which stops
+     * the path from going through a friendship where one Account blocked the other (false by default).
+     * The response has the following structure:
+     * <code>{
+     * "success": true,
+     * "path": ['andy@example.com', 'john@example.com', 'kate@example.com'],
+     * "degrees": 2
+     * }</code>
+     * The path is empty and the degrees are null if the Accounts are not connected within these limits.
+     *
+     * @param friendPairRequestDTO A json object containing two email addresses
+     * @return the emails of the path, both Accounts included
+     * @throws InvalidParameterException   will be thrown if the friends list doesn't exactly have two valid emails, or
+     *                                     if a limit is out of range
+     * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     */
+    @RequestMapping(value = "/connection-path", method = RequestMethod.POST)
+    public ResponseEntity<ConnectionPathResponseDTO> getConnectionPath(
+            @RequestBody FriendPairRequestDTO friendPairRequestDTO,
+            @RequestParam(required = false) Integer maxDepth,
+            @RequestParam(required = false) Integer nodeBudget,
+            @RequestParam(required = false, defaultValue = "false") boolean honourBlocks)
+            throws InvalidParameterException, NonExistentAccountException {
+        friendPairRequestDTO.checkValidity();
+        int depth = maxDepth != null ? maxDepth : DEFAULT_CONNECTION_DEPTH;
+        if (depth < 1 || depth > MAX_CONNECTION_DEPTH) {
+            throw new InvalidParameterException("maxDepth should be between 1 and " + MAX_CONNECTION_DEPTH);
+        }
+        int budget = nodeBudget != null ? nodeBudget : DEFAULT_NODE_BUDGET;
+        if (budget < 1 || budget > MAX_NODE_BUDGET) {
+            throw new InvalidParameterException("nodeBudget should be between 1 and " + MAX_NODE_BUDGET);
+        }
+
+        List<String> path = accountService.getConnectionPath(friendPairRequestDTO.getFirstFriend(),
+                friendPairRequestDTO.getSecondFriend(), depth, budget, honourBlocks);
+        Integer degrees = path.isEmpty() ? null : path.size() - 1;
+        return ResponseEntity.ok().body(new ConnectionPathResponseDTO("true", path, degrees));
+    }
+
+    /**
+     * USER STORY # 1 in bulk.
+     * Befriends many pairs of email addresses in one request. Each pair is validated and applied independently and the
+     * response carries one result per pair.
+     * The Json request Object will have the following structure:
+     * <p>
+     * <code>{
+     * requests:
+     * [
+     * { friends: ['andy@example.com', 'john@example.com'] },
+     * { friends: ['andy@example.com', 'lisa@example.com'] }
+     * ]
+     * }</code>
+     * <p>
+     *
+     * @param batchRequestDTO a json object containing the befriend requests
+     * @return returns a json object with the following structure:
+     * {success: true, results: [{index: 0, success: true}, {index: 1, success: false, error: 'Account Does Not Exist'}], count: 1}
+     * @throws InvalidParameterException will be thrown if the batch is empty or larger than the maximum batch size
+     */
+    @RequestMapping(value = "/befriend-batch", method = RequestMethod.POST)
+    public ResponseEntity<BatchResponseDTO> befriendBatch(@RequestBody FriendPairBatchRequestDTO batchRequestDTO)
+            throws InvalidParameterException {
+        batchRequestDTO.checkValidity();
+        BatchResponseDTO batchResponseDTO = processBatch(batchRequestDTO.getRequests(),
+                request -> {
+                    request.checkValidity();
+                    return new EmailPair(request.getFirstFriend(), request.getSecondFriend());
+                },
+                accountService::befriendAccounts);
+        return ResponseEntity.ok().body(batchResponseDTO);
+    }
+
+    /**
+     * USER STORY # 4 in bulk.
+     * Subscribes many requestors to their targets in one request. Each element of requests has the same structure as
+     * the request of /subscribe-updates, and the response has the same structure as the one of /befriend-batch.
+     *
+     * @param batchRequestDTO a json object containing the subscribe requests
+     * @return one result per request
+     * @throws InvalidParameterException will be thrown if the batch is empty or larger than the maximum batch size
+     */
+    @RequestMapping(value = "/subscribe-updates-batch", method = RequestMethod.POST)
+    public ResponseEntity<BatchResponseDTO> subscribeUpdatesBatch(@RequestBody RequestorTargetBatchRequestDTO batchRequestDTO)
+            throws InvalidParameterException {
+        batchRequestDTO.checkValidity();
+        BatchResponseDTO batchResponseDTO = processBatch(batchRequestDTO.getRequests(), this::toEmailPair,
+                accountService::subscribeToUpdates);
+        return ResponseEntity.ok().body(batchResponseDTO);
+    }
+
+    /**
+     * USER STORY # 5 in bulk.
+     * Blocks many targets in one request. Each element of requests has the same structure as the request of
+     * /block-account, and the response has the same structure as the one of /befriend-batch.
+     *
+     * @param batchRequestDTO a json object containing the block requests
+     * @return one result per request
+     * @throws InvalidParameterException will be thrown if the batch is empty or larger than the maximum batch size
+     */
+    @RequestMapping(value = "/block-account-batch", method = RequestMethod.POST)
+    public ResponseEntity<BatchResponseDTO> blockAccountBatch(@RequestBody RequestorTargetBatchRequestDTO batchRequestDTO)
+            throws InvalidParameterException {
+        batchRequestDTO.checkValidity();
+        BatchResponseDTO batchResponseDTO = processBatch(batchRequestDTO.getRequests(), this::toEmailPair,
+                accountService::blockAccounts);
+        return ResponseEntity.ok().body(batchResponseDTO);
+    }
+
+    private EmailPair toEmailPair(RequestorTargetDTO request) throws InvalidParameterException {
+        request.checkValidity();
+        return new EmailPair(request.getRequestor(), request.getTarget());
+    }
+
+    /**
+     * Validates every request, hands the valid ones to the service in one call and merges the outcome back in the order
+     * of the requests.
+     */
+    private <T> BatchResponseDTO processBatch(List<T> requests, BatchItemValidator<T> validator,
+                                              Function<List<EmailPair>, List<BatchItemResult>> operation) {
+        List<BatchItemResultDTO> results = new ArrayList<>(requests.size());
+        List<EmailPair> validPairs = new ArrayList<>(requests.size());
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        for (int index = 0; index < requests.size(); index++) {
+            T request = requests.get(index);
+            try {
+                if (request == null) throw new InvalidParameterException("Request is empty");
+                validPairs.add(validator.validate(request));
+                validIndexes.add(index);
+                results.add(null);
+            } catch (InvalidParameterException e) {
+                results.add(new BatchItemResultDTO(index, "false", e.getMessage()));
+            }
+        }
+
+        int succeeded = 0;
+        List<BatchItemResult> outcome = validPairs.isEmpty() ? new ArrayList<>() : operation.apply(validPairs);
+        for (int i = 0; i < outcome.size(); i++) {
+            int index = validIndexes.get(i);
+            BatchItemResult itemResult = outcome.get(i);
+            if (itemResult.isSuccess()) succeeded++;
+            results.set(index, new BatchItemResultDTO(index, String.valueOf(itemResult.isSuccess()), itemResult.getError()));
+        }
+        return new BatchResponseDTO("true", results, succeeded);
+    }
+
+    @FunctionalInterface
+    private interface BatchItemValidator<T> {
+        EmailPair validate(T request) throws InvalidParameterException;
+    }
 
 }
@@ -0,0 +1,97 @@
+package com.lemuelinchrist.exercise.facepalm.controllers;
+
+import com.lemuelinchrist.exercise.facepalm.controllers.dto.InboxResponseDTO;
+import com.lemuelinchrist.exercise.facepalm.controllers.dto.SenderDTO;
+import com.lemuelinchrist.exercise.facepalm.exception.FanOutRejectedException;
+import com.lemuelinchrist.exercise.facepalm.exception.InvalidParameterException;
+import com.lemuelinchrist.exercise.facepalm.exception.NonExistentAccountException;
+import com.lemuelinchrist.exercise.facepalm.fanout.FanOutJob;
+import com.lemuelinchrist.exercise.facepalm.fanout.FanOutService;
+import com.lemuelinchrist.exercise.facepalm.fanout.Update;
+import com.lemuelinchrist.exercise.facepalm.model.Account;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Posting updates and reading the inboxes they are delivered to. Delivery runs in the background through the
+ * FanOutService, so posting never waits for the recipients to be written.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@RestController
+@RequestMapping("/account-management")
+public class UpdateDeliveryController {
+
+    private FanOutService fanOutService;
+
+    @Autowired
+    public UpdateDeliveryController(FanOutService fanOutService) {
+        this.fanOutService = fanOutService;
+    }
+
+    /**
+     * Posts an update to every recipient of USER STORY #6. The request has the same structure as the one of
+     * /get-update-recipients:
+     * <code>{
+     * "sender": "john@example.com",
+     * "text": "Hello World! kate@example.com"
+     * }</code>
+     * <p>
+     * The response is 202 Accepted with the job delivering the update, and its Location is the progress of the job:
+     * <code>{"id": 1, "sender": "john@example.com", "state": "QUEUED", "recipients": -1, "delivered": 0, "failed": 0,
+     * "postedAt": 1792300000000, "finishedAt": 0}</code>
+     *
+     * @param senderDTO the json object request
+     * @return the job delivering the update
+     * @throws InvalidParameterException   Thrown if email in the request is malformed or empty
+     * @throws NonExistentAccountException Thrown if email doesn't exist in the database
+     * @throws FanOutRejectedException     Thrown if too many updates are waiting to be delivered
+     */
+    @RequestMapping(value = "/post-update", method = RequestMethod.POST)
+    public ResponseEntity<FanOutJob> postUpdate(@RequestBody SenderDTO senderDTO)
+            throws InvalidParameterException, NonExistentAccountException, FanOutRejectedException {
+        senderDTO.checkValidity();
+        FanOutJob job = fanOutService.post(senderDTO.getSender(), senderDTO.getText());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path(
+                "/{id}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    /**
+     * @param id the id of the job returned by /post-update
+     * @return the progress of the delivery, or 404 if the job is unknown
+     */
+    @RequestMapping(value = "/post-update/{id}", method = RequestMethod.GET)
+    public ResponseEntity<FanOutJob> updateProgress(@PathVariable Long id) {
+        return fanOutService.getJob(id)
+                .map(job -> ResponseEntity.ok().body(job))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retrieves the updates delivered to an Account, newest first. The request has the same structure as the one of
+     * /get-friends and the response has the following structure:
+     * <code>{
+     * "success": true,
+     * "updates": [{"id": 1, "sender": "john@example.com", "text": "Hello World!", "postedAt": 1792300000000}],
+     * "count": 1
+     * }</code>
+     *
+     * @param account a json request with an 'email' parameter
+     * @return the updates in the inbox of the Account
+     * @throws NonExistentAccountException The service will not accept emails that do not have a created account yet
+     */
+    @RequestMapping(value = "/get-inbox", method = RequestMethod.POST)
+    public ResponseEntity<InboxResponseDTO> getInbox(@Valid @RequestBody Account account)
+            throws NonExistentAccountException {
+        List<Update> updates = fanOutService.getInbox(account.getEmail());
+        return ResponseEntity.ok().body(new InboxResponseDTO("true", updates, updates.size()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Result of one item of a batch request. index refers to the position of the item in the request.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultDTO {
+    private Integer index;
+    private String success;
+    private String error;
+
+    public BatchItemResultDTO(Integer index, String success, String error) {
+        this.index = index;
+        this.success = success;
+        this.error = error;
+    }
+
+    public BatchItemResultDTO() {
+
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,60 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.exception.InvalidParameterException;
+
+import java.util.List;
+
+/**
+ * Response of the batch services. success is true if the batch was processed, even if some of its items failed.
+ * count is the number of items that succeeded.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class BatchResponseDTO {
+    public static final int MAX_BATCH_SIZE = 100_000;
+
+    private String success;
+    private List<BatchItemResultDTO> results;
+    private Integer count;
+
+    public BatchResponseDTO(String success, List<BatchItemResultDTO> results, Integer count) {
+        this.success = success;
+        this.results = results;
+        this.count = count;
+    }
+
+    public BatchResponseDTO() {
+
+    }
+
+    static void checkBatchSize(List<?> requests) throws InvalidParameterException {
+        if (requests == null || requests.isEmpty()) throw new InvalidParameterException("The batch is empty");
+        if (requests.size() > MAX_BATCH_SIZE)
+            throw new InvalidParameterException("A batch can have at most " + MAX_BATCH_SIZE + " requests");
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public List<BatchItemResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResultDTO> results) {
+        this.results = results;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,48 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import java.util.List;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class ConnectionPathResponseDTO {
+
+    private String success;
+    private List<String> path;
+    private Integer degrees;
+
+    public ConnectionPathResponseDTO(String success, List<String> path, Integer degrees) {
+        this.success = success;
+        this.path = path;
+        this.degrees = degrees;
+    }
+
+    public ConnectionPathResponseDTO() {
+
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public List<String> getPath() {
+        return path;
+    }
+
+    public void setPath(List<String> path) {
+        this.path = path;
+    }
+
+    public Integer getDegrees() {
+        return degrees;
+    }
+
+    public void setDegrees(Integer degrees) {
+        this.degrees = degrees;
+    }
+}
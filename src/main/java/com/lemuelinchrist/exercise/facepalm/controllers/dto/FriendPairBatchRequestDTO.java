@@ -0,0 +1,42 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.exception.InvalidParameterException;
+
+import java.util.List;
+
+/**
+ * Convenient DTO object for JSON conversion of batch befriend requests. Each element of requests has the same structure
+ * as a single befriend request.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class FriendPairBatchRequestDTO {
+    private List<FriendPairRequestDTO> requests;
+
+    public FriendPairBatchRequestDTO() {
+
+    }
+
+    public FriendPairBatchRequestDTO(List<FriendPairRequestDTO> requests) {
+        this.requests = requests;
+    }
+
+    public List<FriendPairRequestDTO> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<FriendPairRequestDTO> requests) {
+        this.requests = requests;
+    }
+
+    /**
+     * Ensures that the batch is not empty and not larger than {@link BatchResponseDTO#MAX_BATCH_SIZE}. The items
+     * themselves are validated one by one so that a bad item doesn't fail the whole batch.
+     *
+     * @throws InvalidParameterException Thrown if the batch is empty or too large.
+     */
+    public void checkValidity() throws InvalidParameterException {
+        BatchResponseDTO.checkBatchSize(requests);
+    }
+}
@@ -48,10 +48,10 @@ public class FriendPairRequestDTO extends RequestDTO {
      * @throws InvalidParameterException Thrown if the emails in friends list do not meet the expected criteria.
      */
     public void checkValidity() throws InvalidParameterException {
-        if (friends.size() != 2) throw new InvalidParameterException("You should only specify two emails");
+        if (friends == null || friends.size() != 2) throw new InvalidParameterException("You should only specify two emails");
         final StringBuilder invalidEmails = new StringBuilder();
         for (String email : friends) {
-            if (email.isEmpty()) throw new InvalidParameterException("One of the emails is empty");
+            if (email == null || email.isEmpty()) throw new InvalidParameterException("One of the emails is empty");
             if (!isValidEmail(email)) {
                 invalidEmails.append(email);
                 invalidEmails.append(", ");
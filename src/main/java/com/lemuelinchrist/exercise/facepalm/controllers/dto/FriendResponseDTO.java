@@ -1,5 +1,7 @@
 package com.lemuelinchrist.exercise.facepalm.controllers.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
@@ -9,8 +11,12 @@ import java.util.List;
 public class FriendResponseDTO {
 
     private String success;
+    // absent when only the count was asked for
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> friends;
     private Integer count;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long nextCursor;
 
     public FriendResponseDTO(String success, List<String> friends, Integer count) {
         this.success = success;
@@ -38,6 +44,11 @@ public class FriendResponseDTO {
         this.friends = friends;
     }
 
+    public FriendResponseDTO(String success, List<String> friends, Integer count, Long nextCursor) {
+        this(success, friends, count);
+        this.nextCursor = nextCursor;
+    }
+
     public Integer getCount() {
         return count;
     }
@@ -46,4 +57,15 @@ public class FriendResponseDTO {
         this.count = count;
     }
 
+    /**
+     * @return the cursor to pass to get the next page of a paginated list, or null if there are no more pages
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.fanout.Update;
+
+import java.util.List;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class InboxResponseDTO {
+
+    private String success;
+    private List<Update> updates;
+    private Integer count;
+
+    public InboxResponseDTO(String success, List<Update> updates, Integer count) {
+        this.success = success;
+        this.updates = updates;
+        this.count = count;
+    }
+
+    public InboxResponseDTO() {
+
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public List<Update> getUpdates() {
+        return updates;
+    }
+
+    public void setUpdates(List<Update> updates) {
+        this.updates = updates;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
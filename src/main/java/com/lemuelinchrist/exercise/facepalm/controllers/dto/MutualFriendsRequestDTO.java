@@ -0,0 +1,61 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.exception.InvalidParameterException;
+
+import java.util.List;
+
+/**
+ * Convenient DTO object for JSON conversion of the mutual friend counts of one Account with many candidates.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class MutualFriendsRequestDTO extends RequestDTO {
+    public static final int MAX_CANDIDATES = 5000;
+
+    private String email;
+    private List<String> candidates;
+
+    public MutualFriendsRequestDTO(String email, List<String> candidates) {
+        this.email = email;
+        this.candidates = candidates;
+    }
+
+    public MutualFriendsRequestDTO() {
+
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<String> getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(List<String> candidates) {
+        this.candidates = candidates;
+    }
+
+    /**
+     * Ensures that the email and every candidate are properly formed emails, and that there are between 1 and
+     * {@link #MAX_CANDIDATES} candidates.
+     *
+     * @throws InvalidParameterException Thrown if the email or the candidates do not meet the expected criteria.
+     */
+    public void checkValidity() throws InvalidParameterException {
+        if (email == null || email.isEmpty()) throw new InvalidParameterException("Email is Empty");
+        if (!isValidEmail(email)) throw new InvalidParameterException("Email is not a valid email");
+        if (candidates == null || candidates.isEmpty()) throw new InvalidParameterException("Candidates are Empty");
+        if (candidates.size() > MAX_CANDIDATES)
+            throw new InvalidParameterException("There can be at most " + MAX_CANDIDATES + " candidates");
+        for (String candidate : candidates) {
+            if (candidate == null || !isValidEmail(candidate))
+                throw new InvalidParameterException("Candidate " + candidate + " is not a valid email");
+        }
+    }
+}
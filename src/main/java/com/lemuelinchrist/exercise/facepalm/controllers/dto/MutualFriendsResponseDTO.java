@@ -0,0 +1,50 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.graph.MutualFriendCount;
+
+import java.util.List;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class MutualFriendsResponseDTO {
+
+    private String success;
+    private List<MutualFriendCount> candidates;
+    private Integer count;
+
+    public MutualFriendsResponseDTO(String success, List<MutualFriendCount> candidates, Integer count) {
+        this.success = success;
+        this.candidates = candidates;
+        this.count = count;
+    }
+
+    public MutualFriendsResponseDTO() {
+
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public List<MutualFriendCount> getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(List<MutualFriendCount> candidates) {
+        this.candidates = candidates;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,78 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.model.Account;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class RelationshipCountsResponseDTO {
+
+    private String success;
+    private Integer friends;
+    private Integer subscribers;
+    private Integer subscriptions;
+    private Integer blocked;
+    private Integer blockers;
+
+    public RelationshipCountsResponseDTO(String success, Account account) {
+        this.success = success;
+        this.friends = account.getFriendCount();
+        this.subscribers = account.getSubscriberCount();
+        this.subscriptions = account.getSubscriptionCount();
+        this.blocked = account.getBlockedCount();
+        this.blockers = account.getBlockerCount();
+    }
+
+    public RelationshipCountsResponseDTO() {
+
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public Integer getFriends() {
+        return friends;
+    }
+
+    public void setFriends(Integer friends) {
+        this.friends = friends;
+    }
+
+    public Integer getSubscribers() {
+        return subscribers;
+    }
+
+    public void setSubscribers(Integer subscribers) {
+        this.subscribers = subscribers;
+    }
+
+    public Integer getSubscriptions() {
+        return subscriptions;
+    }
+
+    public void setSubscriptions(Integer subscriptions) {
+        this.subscriptions = subscriptions;
+    }
+
+    public Integer getBlocked() {
+        return blocked;
+    }
+
+    public void setBlocked(Integer blocked) {
+        this.blocked = blocked;
+    }
+
+    public Integer getBlockers() {
+        return blockers;
+    }
+
+    public void setBlockers(Integer blockers) {
+        this.blockers = blockers;
+    }
+}
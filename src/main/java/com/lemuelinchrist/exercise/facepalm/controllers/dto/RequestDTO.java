@@ -1,7 +1,6 @@
 package com.lemuelinchrist.exercise.facepalm.controllers.dto;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import com.lemuelinchrist.exercise.facepalm.email.EmailScanner;
 
 /**
  * @author Lemuel Cantos
@@ -10,12 +9,6 @@ import java.util.regex.Pattern;
 public abstract class RequestDTO {
 
     protected boolean isValidEmail(String email) {
-        Pattern pattern = Pattern.compile("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,4}");
-        Matcher mat = pattern.matcher(email);
-        if (!mat.matches()) {
-            return false;
-        } else {
-            return true;
-        }
+        return EmailScanner.isValidEmail(email);
     }
 }
@@ -0,0 +1,50 @@
+package com.lemuelinchrist.exercise.facepalm.controllers.dto;
+
+import com.lemuelinchrist.exercise.facepalm.graph.FriendSuggestion;
+
+import java.util.List;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class SuggestionResponseDTO {
+
+    private String success;
+    private List<FriendSuggestion> suggestions;
+    private Integer count;
+
+    public SuggestionResponseDTO(String success, List<FriendSuggestion> suggestions, Integer count) {
+        this.success = success;
+        this.suggestions = suggestions;
+        this.count = count;
+    }
+
+    public SuggestionResponseDTO() {
+
+    }
+
+    public String getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(String success) {
+        this.success = success;
+    }
+
+    public List<FriendSuggestion> getSuggestions() {
+        return suggestions;
+    }
+
+    public void setSuggestions(List<FriendSuggestion> suggestions) {
+        this.suggestions = suggestions;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
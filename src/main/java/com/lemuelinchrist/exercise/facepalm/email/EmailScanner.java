@@ -0,0 +1,116 @@
+package com.lemuelinchrist.exercise.facepalm.email;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hand-written scanner for the two email grammars of the request path. It classifies characters with a lookup table and
+ * never backtracks, so validating an email allocates nothing and extracting mentions only allocates the found emails.
+ * <p>
+ * Requests use the grammar <code>[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\.[A-Za-z]{2,4}</code> for the whole email, and
+ * mentions in the text of a broadcast use <code>[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\.[a-zA-Z0-9-.]+</code>. Both are
+ * accepted exactly like the regular expressions would.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class EmailScanner {
+    private static final int LETTER = 1;
+    private static final int DIGIT = 1 << 1;
+    private static final int DOT = 1 << 2;
+    private static final int DASH = 1 << 3;
+    // _ and +
+    private static final int UNDERSCORE_OR_PLUS = 1 << 4;
+    private static final int PERCENT = 1 << 5;
+
+    private static final int REQUEST_LOCAL = LETTER | DIGIT | DOT | DASH | UNDERSCORE_OR_PLUS | PERCENT;
+    private static final int REQUEST_DOMAIN = LETTER | DIGIT | DOT | DASH;
+    private static final int MENTION_LOCAL = LETTER | DIGIT | DOT | DASH | UNDERSCORE_OR_PLUS;
+    private static final int MENTION_LABEL = LETTER | DIGIT | DASH;
+    private static final int MENTION_DOMAIN = LETTER | DIGIT | DOT | DASH;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] = LETTER;
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] = LETTER;
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] = DIGIT;
+        CLASSES['.'] = DOT;
+        CLASSES['-'] = DASH;
+        CLASSES['_'] = UNDERSCORE_OR_PLUS;
+        CLASSES['+'] = UNDERSCORE_OR_PLUS;
+        CLASSES['%'] = PERCENT;
+    }
+
+    private EmailScanner() {
+    }
+
+    /**
+     * @param email the email to validate
+     * @return true if the whole email is a well formed request email
+     */
+    public static boolean isValidEmail(CharSequence email) {
+        if (email == null) return false;
+        int length = email.length();
+        int at = 0;
+        while (at < length && is(email.charAt(at), REQUEST_LOCAL)) at++;
+        if (at == 0 || at == length || email.charAt(at) != '@') return false;
+
+        int lastDot = -1;
+        for (int i = at + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (!is(c, REQUEST_DOMAIN)) return false;
+            if (c == '.') lastDot = i;
+        }
+        // the domain needs at least one character before the dot of a 2 to 4 letters top level domain
+        int topLevelLength = length - lastDot - 1;
+        if (lastDot <= at + 1 || topLevelLength < 2 || topLevelLength > 4) return false;
+        for (int i = lastDot + 1; i < length; i++) {
+            if (!is(email.charAt(i), LETTER)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Passes every email mentioned in the text to the consumer, in order of appearance.
+     *
+     * @param text     the text to scan, may be null
+     * @param consumer receives the mentioned emails
+     */
+    public static void scanMentions(String text, Consumer<String> consumer) {
+        if (text == null) return;
+        int length = text.length();
+        // a mention never starts before the end of the previous one
+        int from = 0;
+        for (int at = text.indexOf('@'); at >= 0; at = text.indexOf('@', at + 1)) {
+            int start = at;
+            while (start > from && is(text.charAt(start - 1), MENTION_LOCAL)) start--;
+            if (start == at) continue;
+
+            int end = at + 1;
+            while (end < length && is(text.charAt(end), MENTION_LABEL)) end++;
+            if (end == at + 1 || end == length || text.charAt(end) != '.') continue;
+            int domainStart = ++end;
+            while (end < length && is(text.charAt(end), MENTION_DOMAIN)) end++;
+            if (end == domainStart) continue;
+
+            consumer.accept(text.substring(start, end));
+            from = end;
+        }
+    }
+
+    /**
+     * @param text the text to scan, may be null
+     * @return the emails mentioned in the text, in order of appearance
+     */
+    public static List<String> findMentions(String text) {
+        List<String> mentions = new ArrayList<>();
+        scanMentions(text, mentions::add);
+        return mentions;
+    }
+
+    private static boolean is(char c, int characterClass) {
+        return c < 128 && (CLASSES[c] & characterClass) != 0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.lemuelinchrist.exercise.facepalm.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the queue of updates waiting to be delivered is full
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Too many updates are being delivered")
+public class FanOutRejectedException extends Exception {
+}
@@ -0,0 +1,14 @@
+package com.lemuelinchrist.exercise.facepalm.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an import is started while another one is still running
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "An import is already running")
+public class ImportInProgressException extends Exception {
+}
@@ -0,0 +1,117 @@
+package com.lemuelinchrist.exercise.facepalm.fanout;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the delivery of one update. Counters are updated batch by batch by the workers and can be read at any
+ * time from another thread.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class FanOutJob {
+
+    public enum State {
+        /** waiting for the dispatcher */
+        QUEUED,
+        /** recipients are computed and batches are being delivered */
+        DELIVERING,
+        /** every batch was delivered or failed */
+        DONE,
+        /** the recipients could not be computed, nothing was delivered */
+        FAILED
+    }
+
+    private final Update update;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile State state = State.QUEUED;
+    private volatile long recipients = -1;
+    private volatile long finishedAt;
+
+    FanOutJob(Update update) {
+        this.update = update;
+    }
+
+    void start(long recipients) {
+        this.recipients = recipients;
+        state = State.DELIVERING;
+        if (recipients == 0) finish(State.DONE);
+    }
+
+    /**
+     * @return true if these were the last recipients of the job
+     */
+    boolean addDelivered(long count) {
+        delivered.addAndGet(count);
+        return finishIfComplete();
+    }
+
+    /**
+     * @return true if these were the last recipients of the job
+     */
+    boolean addFailed(long count) {
+        failed.addAndGet(count);
+        return finishIfComplete();
+    }
+
+    void fail() {
+        finish(State.FAILED);
+    }
+
+    private boolean finishIfComplete() {
+        return delivered.get() + failed.get() == recipients && finish(State.DONE);
+    }
+
+    private synchronized boolean finish(State finalState) {
+        if (finishedAt != 0) return false;
+        finishedAt = System.currentTimeMillis();
+        state = finalState;
+        return true;
+    }
+
+    public long getId() {
+        return update.getId();
+    }
+
+    public String getSender() {
+        return update.getSender();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the number of recipients of the update, or -1 while they are not computed yet
+     */
+    public long getRecipients() {
+        return recipients;
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return recipients of the batches that could not be written to the inbox store
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getPostedAt() {
+        return update.getPostedAt();
+    }
+
+    /**
+     * @return the time the last batch was delivered, or 0 while the job is running
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    Update getUpdate() {
+        return update;
+    }
+}
@@ -0,0 +1,187 @@
+package com.lemuelinchrist.exercise.facepalm.fanout;
+
+import com.lemuelinchrist.exercise.facepalm.exception.FanOutRejectedException;
+import com.lemuelinchrist.exercise.facepalm.exception.NonExistentAccountException;
+import com.lemuelinchrist.exercise.facepalm.metrics.LatencyHistograms;
+import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers posted updates to the inboxes of their recipients in the background, so posting from an Account with a
+ * million followers returns as soon as the update is queued.
+ * <p>
+ * Posted updates wait in a bounded queue for a single dispatcher thread, and posting fails with a
+ * {@link FanOutRejectedException} once the queue is full. The dispatcher computes the recipients of an update with
+ * {@link AccountService#getUpdateRecipientsOf(String, String)}, splits them into batches of
+ * <code>facepalm.fanout.batch-size</code> and hands the batches to a pool of workers that write them to the
+ * {@link InboxStore}. At most <code>facepalm.fanout.max-pending-batches</code> batches are handed out at a time: the
+ * dispatcher waits for a worker to finish a batch before it hands out another one, so a huge fan-out never queues more
+ * than a bounded number of recipient lists and the workers set the pace.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class FanOutService {
+    private static final Logger log = LoggerFactory.getLogger(FanOutService.class);
+    // jobs kept for progress queries, oldest are forgotten first
+    static final int RETAINED_JOBS = 1000;
+
+    private final AccountService accountService;
+    private final InboxStore inboxStore;
+    private final LatencyHistograms latencyHistograms;
+    private final int batchSize;
+    private final Semaphore pendingBatches;
+    private final ThreadPoolExecutor dispatcher;
+    private final ThreadPoolExecutor workers;
+    private final AtomicLong lastId = new AtomicLong();
+    private final Map<Long, FanOutJob> jobs = Collections.synchronizedMap(new LinkedHashMap<Long, FanOutJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, FanOutJob> eldest) {
+            return size() > RETAINED_JOBS;
+        }
+    });
+
+    @Autowired
+    public FanOutService(AccountService accountService, InboxStore inboxStore, LatencyHistograms latencyHistograms,
+                         @Value("${facepalm.fanout.workers:0}") int workerCount,
+                         @Value("${facepalm.fanout.batch-size:1000}") int batchSize,
+                         @Value("${facepalm.fanout.max-pending-batches:64}") int maxPendingBatches,
+                         @Value("${facepalm.fanout.max-queued-updates:1000}") int maxQueuedUpdates) {
+        if (batchSize < 1 || maxPendingBatches < 1 || maxQueuedUpdates < 1) {
+            throw new IllegalArgumentException("Fan-out batch size and queue sizes should be at least 1");
+        }
+        this.accountService = accountService;
+        this.inboxStore = inboxStore;
+        this.latencyHistograms = latencyHistograms;
+        this.batchSize = batchSize;
+        this.pendingBatches = new Semaphore(maxPendingBatches);
+        int threads = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedUpdates), threadFactory("fanout-dispatcher"));
+        // the semaphore already bounds the queued batches, the queue itself never fills up
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("fanout-worker"));
+    }
+
+    /**
+     * Queues an update for delivery to the recipients of the sender (see USER STORY # 6) and returns without waiting
+     * for it to be delivered.
+     *
+     * @param senderEmail the email of the Account posting the update
+     * @param text        the text of the update, may mention other Accounts
+     * @return the job delivering the update, whose id can be used to follow its progress
+     * @throws NonExistentAccountException Thrown if the sender doesn't exist
+     * @throws FanOutRejectedException     Thrown if too many updates are already waiting to be delivered
+     */
+    public FanOutJob post(String senderEmail, String text) throws NonExistentAccountException, FanOutRejectedException {
+        accountService.checkIfEmailExists(senderEmail);
+
+        FanOutJob job = new FanOutJob(new Update(lastId.incrementAndGet(), senderEmail, text, System.currentTimeMillis()));
+        jobs.put(job.getId(), job);
+        try {
+            dispatcher.execute(() -> dispatch(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new FanOutRejectedException();
+        }
+        return job;
+    }
+
+    /**
+     * @param id the id of a job returned by {@link #post(String, String)}
+     * @return the job, or empty if there is no such job or it is too old to be retained
+     */
+    public Optional<FanOutJob> getJob(long id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * @param email the email of the recipient
+     * @return the updates delivered to the Account so far, newest first
+     * @throws NonExistentAccountException Thrown if the Account doesn't exist
+     */
+    public List<Update> getInbox(String email) throws NonExistentAccountException {
+        accountService.checkIfEmailExists(email);
+        return inboxStore.getInbox(email);
+    }
+
+    private void dispatch(FanOutJob job) {
+        Update update = job.getUpdate();
+        List<String> recipients;
+        try {
+            recipients = accountService.getUpdateRecipientsOf(update.getSender(), update.getText());
+        } catch (NonExistentAccountException | RuntimeException e) {
+            log.warn("Could not compute the recipients of update {} from {}", update.getId(), update.getSender(), e);
+            job.fail();
+            return;
+        }
+
+        job.start(recipients.size());
+        for (int from = 0; from < recipients.size(); from += batchSize) {
+            List<String> batch = recipients.subList(from, Math.min(recipients.size(), from + batchSize));
+            try {
+                pendingBatches.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.addFailed(recipients.size() - from);
+                return;
+            }
+            try {
+                workers.execute(() -> deliver(job, batch));
+            } catch (RejectedExecutionException e) {
+                pendingBatches.release();
+                job.addFailed(recipients.size() - from);
+                return;
+            }
+        }
+    }
+
+    private void deliver(FanOutJob job, List<String> batch) {
+        long start = System.nanoTime();
+        boolean finished;
+        try {
+            inboxStore.deliver(job.getUpdate(), batch);
+            finished = job.addDelivered(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not deliver update {} to {} recipients", job.getId(), batch.size(), e);
+            finished = job.addFailed(batch.size());
+        } finally {
+            pendingBatches.release();
+        }
+        latencyHistograms.record("fanout.batch", TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        if (finished) {
+            latencyHistograms.record("fanout.update",
+                    TimeUnit.MILLISECONDS.toMicros(job.getFinishedAt() - job.getPostedAt()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Fan-out workers did not finish in time, undelivered batches are dropped");
+            workers.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
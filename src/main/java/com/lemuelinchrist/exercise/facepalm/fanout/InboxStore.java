@@ -0,0 +1,27 @@
+package com.lemuelinchrist.exercise.facepalm.fanout;
+
+import java.util.List;
+
+/**
+ * Per-recipient inboxes of the delivered updates. Implementations must accept concurrent deliveries from the workers of
+ * the {@link FanOutService}.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public interface InboxStore {
+
+    /**
+     * Appends the update to the inbox of every recipient.
+     *
+     * @param update     the update to deliver
+     * @param recipients the emails of the recipients, one batch of the recipients of the update
+     */
+    void deliver(Update update, List<String> recipients);
+
+    /**
+     * @param email the email of the recipient
+     * @return the updates in the inbox of the recipient, newest first
+     */
+    List<Update> getInbox(String email);
+}
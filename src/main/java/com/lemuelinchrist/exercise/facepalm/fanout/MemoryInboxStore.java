@@ -0,0 +1,79 @@
+package com.lemuelinchrist.exercise.facepalm.fanout;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the inboxes in memory. Every inbox is a ring of references to the shared {@link Update}s that holds the newest
+ * <code>facepalm.inbox.capacity</code> updates, so delivering an update costs one array slot per recipient and older
+ * updates are dropped once an inbox is full.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class MemoryInboxStore implements InboxStore {
+    // most inboxes only ever see a few updates, so rings start small and grow up to the capacity
+    private static final int INITIAL_RING_SIZE = 4;
+
+    private final ConcurrentMap<String, Inbox> inboxes = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public MemoryInboxStore(@Value("${facepalm.inbox.capacity:100}") int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Inbox capacity should be at least 1");
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void deliver(Update update, List<String> recipients) {
+        for (String recipient : recipients) {
+            Inbox inbox = inboxes.get(recipient);
+            if (inbox == null) {
+                inbox = inboxes.computeIfAbsent(recipient, key -> new Inbox(Math.min(INITIAL_RING_SIZE, capacity)));
+            }
+            inbox.add(update, capacity);
+        }
+    }
+
+    @Override
+    public List<Update> getInbox(String email) {
+        Inbox inbox = inboxes.get(email);
+        return inbox == null ? new ArrayList<>() : inbox.newestFirst();
+    }
+
+    private static class Inbox {
+        private Update[] ring;
+        // index of the next slot to write and number of updates held
+        private int next;
+        private int size;
+
+        Inbox(int initialSize) {
+            ring = new Update[initialSize];
+        }
+
+        synchronized void add(Update update, int capacity) {
+            if (size == ring.length && ring.length < capacity) {
+                // the ring is full and in order from 0 when it grows, as nothing was overwritten yet
+                ring = Arrays.copyOf(ring, Math.min(capacity, ring.length * 2));
+                next = size;
+            }
+            ring[next] = update;
+            next = (next + 1) % ring.length;
+            if (size < ring.length) size++;
+        }
+
+        synchronized List<Update> newestFirst() {
+            List<Update> updates = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                updates.add(ring[(next - i + ring.length) % ring.length]);
+            }
+            return updates;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.lemuelinchrist.exercise.facepalm.fanout;
+
+/**
+ * An update posted by an Account. A single instance is shared by the inboxes of all its recipients.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class Update {
+    private final long id;
+    private final String sender;
+    private final String text;
+    private final long postedAt;
+
+    public Update(long id, String sender, String text, long postedAt) {
+        this.id = id;
+        this.sender = sender;
+        this.text = text;
+        this.postedAt = postedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the time the update was posted, in milliseconds since the epoch
+     */
+    public long getPostedAt() {
+        return postedAt;
+    }
+}
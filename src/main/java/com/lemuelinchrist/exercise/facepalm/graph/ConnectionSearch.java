@@ -0,0 +1,151 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds a shortest chain of friendships between two Accounts with a bidirectional breadth-first search: a frontier
+ * grows from each end, always the one with the fewest Accounts, until the two meet. The Accounts visited from each end
+ * are kept in an {@link IntBitmap} and every level of a frontier in a plain int array, so no parent map is needed:
+ * the path is rebuilt from the meeting point by looking up, level after level, an Account of the previous level that
+ * is a friend of the current one.
+ * <p>
+ * The search gives up once the path would be longer than its depth, or once more Accounts than its budget were
+ * visited. When blocks are honoured, a friendship is not followed if one of its Accounts blocked the other. The
+ * adjacencies must not change during a search: the graph holds its read lock around it.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class ConnectionSearch {
+    private final IntAdjacency friends;
+    private final IntAdjacency blocked;
+    private final IntAdjacency blockers;
+    private final int maxDepth;
+    private final int nodeBudget;
+    private final boolean honourBlocks;
+
+    private int visited;
+
+    ConnectionSearch(IntAdjacency friends, IntAdjacency blocked, IntAdjacency blockers, int maxDepth, int nodeBudget,
+                     boolean honourBlocks) {
+        this.friends = friends;
+        this.blocked = blocked;
+        this.blockers = blockers;
+        this.maxDepth = maxDepth;
+        this.nodeBudget = nodeBudget;
+        this.honourBlocks = honourBlocks;
+    }
+
+    /**
+     * @return the ids of the path from the first Account to the second, both included, or an empty array if there is
+     * none within the depth and the budget of the search
+     */
+    int[] find(int from, int to) {
+        if (from == to) return new int[]{from};
+        Side forward = new Side(from);
+        Side backward = new Side(to);
+        visited = 2;
+        for (int depth = 0; depth < maxDepth; depth++) {
+            Side growing = forward.frontierSize() <= backward.frontierSize() ? forward : backward;
+            Side other = growing == forward ? backward : forward;
+            int[] meeting = growing.expand(other);
+            if (meeting != null) {
+                return growing == forward ? join(forward, meeting[0], backward, meeting[1])
+                        : join(forward, meeting[1], backward, meeting[0]);
+            }
+            if (growing.frontierSize() == 0 || visited > nodeBudget) break;
+        }
+        return new int[0];
+    }
+
+    // the forward Account is on the last level of its side, the backward one is on the last level of the other
+    private int[] join(Side forward, int forwardMeeting, Side backward, int backwardMeeting) {
+        int[] forwardPath = forward.pathTo(forwardMeeting);
+        int[] backwardPath = backward.pathTo(backwardMeeting);
+        int[] path = Arrays.copyOf(forwardPath, forwardPath.length + backwardPath.length);
+        for (int i = 0; i < backwardPath.length; i++) {
+            path[forwardPath.length + i] = backwardPath[backwardPath.length - 1 - i];
+        }
+        return path;
+    }
+
+    private boolean canFollow(int account, int friend) {
+        return !honourBlocks || !(blocked.contains(account, friend) || blockers.contains(account, friend));
+    }
+
+    // the Accounts reached from one end of the search, level by level
+    private final class Side {
+        private final IntBitmap seen = new IntBitmap();
+        private final List<int[]> levels = new ArrayList<>();
+
+        Side(int start) {
+            seen.add(start);
+            levels.add(new int[]{start});
+        }
+
+        int frontierSize() {
+            return levels.get(levels.size() - 1).length;
+        }
+
+        /**
+         * Adds the next level to this side.
+         *
+         * @return the Account of this side and the Account of the other side where the two met, or null if they did
+         * not meet or the budget ran out
+         */
+        int[] expand(Side other) {
+            int[] frontier = levels.get(levels.size() - 1);
+            int[] next = new int[Math.max(16, frontier.length)];
+            int size = 0;
+            for (int account : frontier) {
+                int degree = friends.degree(account);
+                int[] list = friends.neighbours(account);
+                for (int i = 0; i < degree; i++) {
+                    int friend = list[i];
+                    if (seen.contains(friend) || !canFollow(account, friend)) continue;
+                    if (other.seen.contains(friend)) return new int[]{account, friend};
+                    seen.add(friend);
+                    if (size == next.length) next = Arrays.copyOf(next, size << 1);
+                    next[size++] = friend;
+                    if (++visited > nodeBudget) {
+                        levels.add(new int[0]);
+                        return null;
+                    }
+                }
+            }
+            levels.add(Arrays.copyOf(next, size));
+            return null;
+        }
+
+        /**
+         * @return the path from the start of this side to one of the Accounts it reached
+         */
+        int[] pathTo(int account) {
+            int level = levelOf(account);
+            int[] path = new int[level + 1];
+            path[level] = account;
+            for (int current = level; current > 0; current--) {
+                path[current - 1] = predecessorOf(path[current], levels.get(current - 1));
+            }
+            return path;
+        }
+
+        private int levelOf(int account) {
+            for (int level = levels.size() - 1; level >= 0; level--) {
+                for (int candidate : levels.get(level)) {
+                    if (candidate == account) return level;
+                }
+            }
+            throw new IllegalStateException("Account " + account + " was not reached by this side");
+        }
+
+        private int predecessorOf(int account, int[] previousLevel) {
+            for (int candidate : previousLevel) {
+                if (friends.contains(candidate, account) && canFollow(candidate, account)) return candidate;
+            }
+            throw new IllegalStateException("Account " + account + " has no predecessor");
+        }
+    }
+}
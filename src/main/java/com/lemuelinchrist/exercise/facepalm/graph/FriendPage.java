@@ -0,0 +1,31 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.List;
+
+/**
+ * One page of a friend list. The cursor is the database id of the last friend of the page, so it stays valid across
+ * restarts and graph engines, and must be passed back as is to get the next page.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class FriendPage {
+    private final List<String> emails;
+    private final Long nextCursor;
+
+    public FriendPage(List<String> emails, Long nextCursor) {
+        this.emails = emails;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<String> getEmails() {
+        return emails;
+    }
+
+    /**
+     * @return the cursor of the next page, or null if this is the last page
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,25 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+/**
+ * An Account that another Account may know: a friend of its friends, with the number of friends they have in common.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class FriendSuggestion {
+    private final String email;
+    private final int mutualFriends;
+
+    public FriendSuggestion(String email, int mutualFriends) {
+        this.email = email;
+        this.mutualFriends = mutualFriends;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getMutualFriends() {
+        return mutualFriends;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+/**
+ * One change made to the in-memory graph, as recorded in its {@link GraphJournal}. The emails follow the argument
+ * order of the SocialGraph write that made the change: a subscription is (requestor, target) and a block is
+ * (requestor, target). An account change has no second email, but carries the database id of the Account.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class GraphChange {
+
+    public enum Type {
+        ACCOUNT, FRIENDSHIP, SUBSCRIPTION, BLOCK
+    }
+
+    private final Type type;
+    private final String firstEmail;
+    private final String secondEmail;
+    private final long accountId;
+
+    public GraphChange(Type type, String firstEmail, String secondEmail) {
+        this(type, firstEmail, secondEmail, 0);
+    }
+
+    public GraphChange(Type type, String firstEmail, String secondEmail, long accountId) {
+        this.type = type;
+        this.firstEmail = firstEmail;
+        this.secondEmail = secondEmail;
+        this.accountId = accountId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getFirstEmail() {
+        return firstEmail;
+    }
+
+    public String getSecondEmail() {
+        return secondEmail;
+    }
+
+    /**
+     * @return the database id of the Account of an account change, 0 if unknown
+     */
+    public long getAccountId() {
+        return accountId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the changes of the in-memory graph once its journal made them durable, in journal order. Used to write the
+ * relationships to the database behind the journal when <code>facepalm.write.durability=wal</code>.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public interface GraphChangeListener {
+
+    /**
+     * Called from the journal thread, so it should hand the changes over rather than process them.
+     */
+    void changesDurable(List<GraphChange> changes);
+
+    /**
+     * Waits until every change received so far has been processed. The graph calls it before the journal is truncated
+     * into a snapshot, as the truncated changes can't be received again.
+     *
+     * @return false if the changes could not be processed within the timeout
+     */
+    boolean flush(long timeout, TimeUnit unit) throws InterruptedException;
+}
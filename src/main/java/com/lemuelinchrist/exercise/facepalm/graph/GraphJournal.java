@@ -0,0 +1,364 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of the changes made to the in-memory graph since its last {@link GraphSnapshot}.
+ * <p>
+ * Every record is framed as its payload length and the CRC32 of its payload, followed by the payload: a type byte and
+ * one or two modified UTF-8 emails, the email of an account being followed by its database id. On startup,
+ * {@link #recover()} reads the records back and cuts the file at the first one that is incomplete or fails its
+ * checksum, which is where a crash interrupted the last write.
+ * <p>
+ * {@link #append(GraphChange)} only queues the record and returns its sequence number. A single journal thread writes
+ * every queued record with one gathering write and, when <code>sync</code> is set, forces them to disk with a single
+ * <code>fsync</code>: this is the group commit. Records appended while a commit is in progress wait for the next
+ * one, so the number of <code>fsync</code> calls grows with the commit latency rather than with the number of writes.
+ * A commit delay makes the thread wait that long after the first queued record for more of them, trading latency for
+ * fewer commits. {@link #awaitDurable(long)} blocks until the commit of a sequence number is done.
+ * <p>
+ * A snapshot {@link #mark() marks} the journal while writes are held off and, once it is written, drops the records
+ * up to the mark with {@link #truncateToMark()}, which keeps the records appended in the meantime.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class GraphJournal implements AutoCloseable {
+    private static final int FRAME_BYTES = 8;
+    // a commit never waits for more records once this many bytes are queued
+    private static final int MAX_COMMIT_BYTES = 1 << 20;
+
+    private final Path path;
+    private final Object fileLock = new Object();
+    // guarded by fileLock, replaced by a new file when the journal is truncated to its mark
+    private FileChannel channel;
+    private final boolean sync;
+    private final long commitDelayNanos;
+    private final Consumer<List<GraphChange>> durableChanges;
+    private final Thread writer;
+
+    // guarded by this
+    private List<ByteBuffer> queuedRecords = new ArrayList<>();
+    private List<GraphChange> queuedChanges = new ArrayList<>();
+    private int queuedBytes;
+    private long firstQueuedAt;
+    private long appended;
+    private long durable;
+    private long records;
+    // the length of the file once every appended record is written
+    private long appendedBytes;
+    private long markSequence;
+    private long markBytes;
+    private long markRecords;
+    private long commits;
+    private IOException failure;
+    private boolean closed;
+    private boolean stopped;
+
+    /**
+     * Opens the journal at the path, creating it if needed. {@link #recover()} must be called before the first append.
+     *
+     * @param sync             force every commit to disk
+     * @param commitDelayNanos how long a commit waits for more records after the first one
+     * @param durableChanges   receives the changes of every commit once it is done, on the journal thread
+     */
+    GraphJournal(Path path, boolean sync, long commitDelayNanos, Consumer<List<GraphChange>> durableChanges)
+            throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.sync = sync;
+        this.commitDelayNanos = commitDelayNanos;
+        this.durableChanges = durableChanges;
+        this.writer = new Thread(this::writeCommits, "graph-journal-writer");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Reads every valid record of the journal, drops whatever follows the last one and starts the journal thread.
+     *
+     * @return the recorded changes, in journal order
+     */
+    List<GraphChange> recover() throws IOException {
+        List<GraphChange> changes = new ArrayList<>();
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+        long position = 0;
+        long size = channel.size();
+        while (position + FRAME_BYTES <= size) {
+            frame.clear();
+            readFully(frame, position);
+            frame.flip();
+            int length = frame.getInt();
+            long checksum = frame.getInt() & 0xffffffffL;
+            if (length <= 0 || position + FRAME_BYTES + length > size) break;
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + FRAME_BYTES);
+            if (checksum(payload.array()) != checksum) break;
+            changes.add(decode(payload.array()));
+            position += FRAME_BYTES + length;
+        }
+        // a torn or corrupt tail is dropped, so new records follow the last valid one
+        channel.truncate(position);
+        channel.position(position);
+        synchronized (this) {
+            records = changes.size();
+            appendedBytes = position;
+        }
+        writer.start();
+        return changes;
+    }
+
+    /**
+     * Queues a record of the change for the next commit.
+     *
+     * @return the sequence number to wait for with {@link #awaitDurable(long)}
+     * @throws IOException if an earlier commit failed, after which the journal accepts no more records
+     */
+    synchronized long append(GraphChange change) throws IOException {
+        if (failure != null) throw new IOException("Graph journal " + path + " failed", failure);
+        if (closed) throw new IOException("Graph journal " + path + " is closed");
+        byte[] payload = encode(change);
+        ByteBuffer record = ByteBuffer.allocate(FRAME_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) checksum(payload)).put(payload);
+        record.flip();
+        if (queuedRecords.isEmpty()) firstQueuedAt = System.nanoTime();
+        queuedRecords.add(record);
+        queuedChanges.add(change);
+        queuedBytes += record.remaining();
+        appendedBytes += record.remaining();
+        records++;
+        notifyAll();
+        return ++appended;
+    }
+
+    /**
+     * @return the sequence number of the last record appended
+     */
+    synchronized long lastSequence() {
+        return appended;
+    }
+
+    /**
+     * Blocks until the record of the sequence number, and every record before it, is committed.
+     *
+     * @throws IOException if the commit failed
+     */
+    synchronized void awaitDurable(long sequence) throws IOException {
+        boolean interrupted = false;
+        while (durable < sequence && failure == null && !stopped) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (durable < sequence) {
+            throw new IOException("Graph journal " + path + " failed before the record was committed", failure);
+        }
+    }
+
+    /**
+     * @return the number of records in the journal
+     */
+    synchronized long records() {
+        return records;
+    }
+
+    /**
+     * @return the number of commits since the journal was opened
+     */
+    synchronized long commits() {
+        return commits;
+    }
+
+    /**
+     * Drops every record, once they are all part of a snapshot. No record may be appended until this returns.
+     */
+    void truncate() throws IOException {
+        awaitDurable(lastSequence());
+        synchronized (fileLock) {
+            channel.truncate(0);
+            channel.position(0);
+            if (sync) channel.force(true);
+        }
+        synchronized (this) {
+            records = 0;
+            appendedBytes = 0;
+            markBytes = 0;
+            markRecords = 0;
+        }
+    }
+
+    /**
+     * Marks the end of the records appended so far. Must be called while no record is appended, so that the mark
+     * falls where a snapshot of the graph starts.
+     */
+    synchronized void mark() {
+        markSequence = appended;
+        markBytes = appendedBytes;
+        markRecords = records;
+    }
+
+    /**
+     * Drops the records up to the {@link #mark()}, once they are all part of a snapshot. Records may be appended
+     * meanwhile: the records after the mark are copied to a new file which then replaces the journal.
+     */
+    void truncateToMark() throws IOException {
+        long sequence;
+        long cut;
+        long dropped;
+        synchronized (this) {
+            sequence = markSequence;
+            cut = markBytes;
+            dropped = markRecords;
+        }
+        awaitDurable(sequence);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        // holds off the journal thread, whose commits go to the new file afterwards
+        synchronized (fileLock) {
+            try (FileChannel copy = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = channel.size();
+                for (long position = cut; position < size; ) {
+                    position += channel.transferTo(position, size - position, copy);
+                }
+                if (sync) copy.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileChannel truncated = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            truncated.position(truncated.size());
+            channel.close();
+            channel = truncated;
+        }
+        synchronized (this) {
+            records -= dropped;
+            appendedBytes -= cut;
+            markBytes = 0;
+            markRecords = 0;
+        }
+    }
+
+    /**
+     * Commits the queued records and stops the journal thread.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            if (writer.isAlive()) writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            channel.close();
+        }
+    }
+
+    private void writeCommits() {
+        while (true) {
+            List<ByteBuffer> commit;
+            List<GraphChange> changes;
+            long sequence;
+            synchronized (this) {
+                try {
+                    while (queuedRecords.isEmpty() && !closed) {
+                        wait();
+                    }
+                    long delay = firstQueuedAt + commitDelayNanos - System.nanoTime();
+                    while (delay > 0 && queuedBytes < MAX_COMMIT_BYTES && !closed) {
+                        TimeUnit.NANOSECONDS.timedWait(this, delay);
+                        delay = firstQueuedAt + commitDelayNanos - System.nanoTime();
+                    }
+                } catch (InterruptedException e) {
+                    closed = true;
+                }
+                if (queuedRecords.isEmpty()) {
+                    stopped = true;
+                    notifyAll();
+                    return;
+                }
+                commit = queuedRecords;
+                changes = queuedChanges;
+                sequence = appended;
+                queuedRecords = new ArrayList<>();
+                queuedChanges = new ArrayList<>();
+                queuedBytes = 0;
+            }
+            try {
+                ByteBuffer[] buffers = commit.toArray(new ByteBuffer[commit.size()]);
+                synchronized (fileLock) {
+                    while (buffers[buffers.length - 1].hasRemaining()) {
+                        channel.write(buffers);
+                    }
+                    if (sync) channel.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    stopped = true;
+                    notifyAll();
+                }
+                return;
+            }
+            // handed over before the commit is acknowledged, so whoever waited for it can rely on the receiver
+            durableChanges.accept(changes);
+            synchronized (this) {
+                durable = sequence;
+                commits++;
+                notifyAll();
+            }
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Truncated " + path);
+        }
+    }
+
+    private static long checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return crc.getValue();
+    }
+
+    private static byte[] encode(GraphChange change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(change.getType().ordinal());
+        output.writeUTF(change.getFirstEmail());
+        if (change.getType() == GraphChange.Type.ACCOUNT) output.writeLong(change.getAccountId());
+        else output.writeUTF(change.getSecondEmail());
+        return bytes.toByteArray();
+    }
+
+    private static GraphChange decode(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        GraphChange.Type type = GraphChange.Type.values()[input.readUnsignedByte()];
+        String first = input.readUTF();
+        if (type == GraphChange.Type.ACCOUNT) {
+            // accounts journaled before their ids were recorded have none
+            return new GraphChange(type, first, null, input.available() >= 8 ? input.readLong() : 0);
+        }
+        return new GraphChange(type, first, input.readUTF());
+    }
+}
@@ -0,0 +1,260 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of the in-memory graph, read through <code>FileChannel.map</code> so that a restart doesn't rebuild
+ * the graph from the database.
+ * <p>
+ * The file starts with a header of ints: magic, version, number of accounts <code>n</code> and the number of edges of
+ * each relation. Then come the sections, each aligned to 8 bytes:
+ * <ul>
+ * <li>the <code>n + 1</code> offsets of the emails in the email bytes, followed by the UTF-8 emails in id order</li>
+ * <li>the <code>n</code> database ids of the accounts, as longs in id order</li>
+ * <li>for every relation (friends, subscribers, blocked, blockers): the <code>n + 1</code> offsets of the lists in the
+ * targets, followed by the targets, every list sorted (compressed sparse row)</li>
+ * </ul>
+ * Every section is mapped on its own, so a section can be as large as 2 GB. Numbers are little-endian.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class GraphSnapshot {
+    static final int FRIENDS = 0;
+    static final int SUBSCRIBERS = 1;
+    static final int BLOCKED = 2;
+    static final int BLOCKERS = 3;
+    static final int RELATIONS = 4;
+
+    private static final int MAGIC = 0x46504753;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = align(4 * (3 + RELATIONS));
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final int accounts;
+    private final IntBuffer emailOffsets;
+    private final ByteBuffer emailBytes;
+    private final LongBuffer accountIds;
+    private final IntBuffer[] offsets = new IntBuffer[RELATIONS];
+    private final IntBuffer[] targets = new IntBuffer[RELATIONS];
+
+    private GraphSnapshot(int accounts, IntBuffer emailOffsets, ByteBuffer emailBytes, LongBuffer accountIds) {
+        this.accounts = accounts;
+        this.emailOffsets = emailOffsets;
+        this.emailBytes = emailBytes;
+        this.accountIds = accountIds;
+    }
+
+    /**
+     * Maps a snapshot written by {@link #write(Path, String[], long[], int, IntAdjacency.View[])}. The mappings stay
+     * valid after the file is replaced by a newer snapshot.
+     *
+     * @throws IOException if the file can't be read or is not a snapshot of this version
+     */
+    static GraphSnapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) throw new IOException("Truncated graph snapshot " + path);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a graph snapshot of version " + VERSION + ": " + path);
+            }
+            int accounts = header.getInt();
+            int[] edges = new int[RELATIONS];
+            for (int relation = 0; relation < RELATIONS; relation++) {
+                edges[relation] = header.getInt();
+            }
+
+            long position = HEADER_BYTES;
+            IntBuffer emailOffsets = mapInts(channel, position, accounts + 1);
+            position += align(4L * (accounts + 1));
+            int emailLength = emailOffsets.get(accounts);
+            ByteBuffer emailBytes = map(channel, position, emailLength);
+            position += align(emailLength);
+            LongBuffer accountIds = map(channel, position, 8L * accounts).asLongBuffer();
+            position += 8L * accounts;
+            GraphSnapshot snapshot = new GraphSnapshot(accounts, emailOffsets, emailBytes, accountIds);
+            for (int relation = 0; relation < RELATIONS; relation++) {
+                snapshot.offsets[relation] = mapInts(channel, position, accounts + 1);
+                position += align(4L * (accounts + 1));
+                snapshot.targets[relation] = mapInts(channel, position, edges[relation]);
+                position += align(4L * edges[relation]);
+            }
+            if (position != channel.size()) throw new IOException("Truncated graph snapshot " + path);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Writes the accounts <code>[0, size)</code>, their database ids and their relations to a temporary file next to
+     * the path, then moves it over the path, so the path always holds a complete snapshot.
+     *
+     * @param relations views of the adjacencies in the order of {@link #FRIENDS}, {@link #SUBSCRIBERS},
+     *                  {@link #BLOCKED} and {@link #BLOCKERS}, opened for at least <code>size</code> ids
+     */
+    static void write(Path path, String[] emails, long[] accountIds, int size, IntAdjacency.View[] relations)
+            throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(size);
+            for (IntAdjacency.View relation : relations) {
+                writer.putInt(edgesOf(relation, size));
+            }
+            writer.align();
+
+            byte[][] encoded = new byte[size][];
+            int offset = 0;
+            for (int id = 0; id < size; id++) {
+                encoded[id] = emails[id].getBytes(StandardCharsets.UTF_8);
+                writer.putInt(offset);
+                offset += encoded[id].length;
+            }
+            writer.putInt(offset);
+            writer.align();
+            for (byte[] email : encoded) {
+                writer.put(email);
+            }
+            writer.align();
+            for (int id = 0; id < size; id++) {
+                writer.putLong(accountIds[id]);
+            }
+
+            for (IntAdjacency.View relation : relations) {
+                offset = 0;
+                for (int id = 0; id < size; id++) {
+                    writer.putInt(offset);
+                    offset += relation.degree(id);
+                }
+                writer.putInt(offset);
+                writer.align();
+                for (int id = 0; id < size; id++) {
+                    int[] list = relation.neighbours(id);
+                    for (int i = 0, degree = relation.degree(id); i < degree; i++) {
+                        writer.putInt(list[i]);
+                    }
+                }
+                writer.align();
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    int accounts() {
+        return accounts;
+    }
+
+    String email(int id) {
+        int from = emailOffsets.get(id);
+        byte[] bytes = new byte[emailOffsets.get(id + 1) - from];
+        ByteBuffer source = emailBytes.duplicate();
+        source.position(from);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long accountId(int id) {
+        return accountIds.get(id);
+    }
+
+    IntBuffer offsets(int relation) {
+        return offsets[relation];
+    }
+
+    IntBuffer targets(int relation) {
+        return targets[relation];
+    }
+
+    private static int edgesOf(IntAdjacency.View relation, int size) {
+        long edges = 0;
+        for (int id = 0; id < size; id++) {
+            edges += relation.degree(id);
+        }
+        if (edges > Integer.MAX_VALUE / 4) throw new IllegalStateException("Relation too large for a graph snapshot");
+        return (int) edges;
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return map(channel, position, 4L * count).asIntBuffer();
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (position + length > channel.size()) throw new IOException("Truncated graph snapshot");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int align(int length) {
+        return (int) align((long) length);
+    }
+
+    private static long align(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    // buffered little-endian writes that keep track of the position for the section alignment
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int from = 0;
+            while (from < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int length = Math.min(buffer.remaining(), bytes.length - from);
+                buffer.put(bytes, from, length);
+                from += length;
+            }
+            position += bytes.length;
+        }
+
+        void align() throws IOException {
+            while (position % 8 != 0) {
+                if (!buffer.hasRemaining()) flush();
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
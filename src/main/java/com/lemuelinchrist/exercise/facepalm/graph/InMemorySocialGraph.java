@@ -0,0 +1,903 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory Social Graph engine. Account emails are interned to dense int ids and every relationship is stored as
+ * sorted primitive int adjacency arrays, so the user story reads never touch the database or hydrate entities.
+ * <p>
+ * The graph is streamed from the RelationshipRepository on startup, keyed by the database ids of the Accounts, and
+ * afterwards kept in step by the AccountService on every write. Reads share a read lock, writes take the write lock.
+ * Writes are therefore serialized here whatever the lock stripes of the WriteCoordinator, and every write holds off
+ * the readers for the time of its in-memory insert. The map of ids also backs the email index of the application,
+ * through {@link #accountIdOf(String)}, so every email is held once.
+ * <p>
+ * Senders whose friends and subscribers reach the broadcaster threshold get their eligible recipients
+ * (friends &#x222a; subscribers &#x2212; blockers) materialized, and the set is maintained incrementally on every
+ * befriend, subscribe and block so that broadcasting becomes a plain lookup.
+ * <p>
+ * When <code>facepalm.graph.snapshot.path</code> is set, the graph is saved to a {@link GraphSnapshot} at that path on
+ * shutdown and every <code>facepalm.graph.snapshot.interval-seconds</code>, and every change in between is appended to
+ * a {@link GraphJournal} next to it. A snapshot is written from copy-on-write views of the lists, so writes only wait
+ * while the views are opened. On startup the snapshot is mapped instead of querying the relationships, its emails are
+ * decoded into the map of ids, its journal is replayed, and the result is only kept if its account and edge counts
+ * are those of the database. Otherwise the graph is loaded from the database and a new snapshot is written right away.
+ * <p>
+ * With <code>facepalm.write.durability=wal</code> the journal becomes the write-ahead log of the relationships: every
+ * commit is forced to disk, {@link #sync()} waits for it, and the database is written behind the log by the
+ * {@link GraphChangeListener}. A snapshot then only truncates the log once the listener has written every change it
+ * holds, so on startup the database holds at least the edges of the snapshot and at most those of the replayed log.
+ * Changes replayed from the log are handed to the listener again, which must therefore skip the edges it already
+ * wrote.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+@ConditionalOnProperty(prefix = "facepalm.graph", name = "engine", havingValue = "memory", matchIfMissing = true)
+public class InMemorySocialGraph implements SocialGraph {
+    private static final Logger log = LoggerFactory.getLogger(InMemorySocialGraph.class);
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NOT_FOUND = -1;
+    // how long a snapshot waits for the listener to write the logged changes to the database
+    private static final long LISTENER_FLUSH_SECONDS = 30;
+    // how many times a snapshot waits for the listener again when changes were logged while it waited
+    private static final int SNAPSHOT_ATTEMPTS = 3;
+
+    private final AccountRepository accountRepository;
+    private final RelationshipRepository relationshipRepository;
+    private final int broadcasterThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // null when snapshots are disabled
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final long snapshotIntervalSeconds;
+    private final boolean writeAheadLog;
+    private final long commitDelayNanos;
+    private ScheduledExecutorService snapshotWriter;
+    // null when snapshots are disabled or the journal failed, until the next snapshot is written
+    private GraphJournal journal;
+
+    private final Object listenerLock = new Object();
+    // guarded by listenerLock; logged changes wait here until a listener is set
+    private GraphChangeListener changeListener;
+    private List<GraphChange> undeliveredChanges = new ArrayList<>();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] emails;
+    // the database id of every int id, 0 if unknown
+    private long[] accountIds;
+    // true as long as the database ids were interned in ascending order, so they can be binary searched
+    private boolean idsAscending;
+    private int size;
+
+    private IntAdjacency friends;
+    // target -> subscribers of the target
+    private IntAdjacency subscribers;
+    // requestor -> accounts blocked by the requestor
+    private IntAdjacency blocked;
+    // target -> accounts that blocked the target
+    private IntAdjacency blockers;
+    // sender -> eligible broadcast recipients, only for senders flagged in materialized
+    private IntAdjacency recipients;
+    private final BitSet materialized = new BitSet();
+
+    @Autowired
+    public InMemorySocialGraph(AccountRepository accountRepository, RelationshipRepository relationshipRepository,
+                               @Value("${facepalm.graph.broadcaster-threshold:1000}") int broadcasterThreshold,
+                               @Value("${facepalm.graph.snapshot.path:}") String snapshotPath,
+                               @Value("${facepalm.graph.snapshot.interval-seconds:600}") long snapshotIntervalSeconds,
+                               @Value("${facepalm.write.durability:database}") String durability,
+                               @Value("${facepalm.graph.journal.commit-delay-micros:0}") long commitDelayMicros) {
+        this.accountRepository = accountRepository;
+        this.relationshipRepository = relationshipRepository;
+        this.broadcasterThreshold = broadcasterThreshold;
+        this.snapshotPath = snapshotPath == null || snapshotPath.isEmpty() ? null : Paths.get(snapshotPath);
+        this.journalPath = this.snapshotPath == null ? null
+                : this.snapshotPath.resolveSibling(this.snapshotPath.getFileName() + ".journal");
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.writeAheadLog = "wal".equalsIgnoreCase(durability);
+        if (writeAheadLog && this.snapshotPath == null) {
+            throw new IllegalArgumentException("facepalm.write.durability=wal needs facepalm.graph.snapshot.path");
+        }
+        this.commitDelayNanos = TimeUnit.MICROSECONDS.toNanos(commitDelayMicros);
+        clear();
+    }
+
+    /**
+     * Builds the graph from the snapshot and its journal if they match the database, or else from the current content
+     * of the database.
+     */
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        boolean restored;
+        lock.writeLock().lock();
+        try {
+            List<GraphChange> journaled = snapshotPath != null ? openJournal() : Collections.emptyList();
+            restored = snapshotPath != null && restoreSnapshot(journaled);
+            if (!restored) {
+                loadFromRepository();
+                if (writeAheadLog) {
+                    // the logged changes were acknowledged, but the database may not have all of them
+                    journaled.forEach(this::apply);
+                } else if (journal != null) {
+                    discardSnapshot();
+                }
+            }
+            if (writeAheadLog) {
+                synchronized (listenerLock) {
+                    undeliveredChanges.addAll(journaled);
+                }
+            }
+            for (int id = 0; id < size; id++) {
+                materializeIfHeavyBroadcaster(id);
+            }
+            log.info("Loaded social graph with {} accounts and {} materialized broadcasters from the {} in {} ms",
+                    size, materialized.cardinality(), restored ? "snapshot" : "database",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (snapshotPath == null) return;
+        if (!restored) writeSnapshot();
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "graph-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotWriter.scheduleWithFixedDelay(this::writeSnapshotIfChanged,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (snapshotWriter == null) return;
+        // lets a snapshot in progress finish, the periodic one is cancelled
+        snapshotWriter.shutdown();
+        snapshotWriter.awaitTermination(1, TimeUnit.MINUTES);
+        writeSnapshotIfChanged();
+        lock.writeLock().lock();
+        try {
+            closeJournal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the listener that receives the changes of the write-ahead log once they are durable, starting with the
+     * changes replayed on startup. Only used with <code>facepalm.write.durability=wal</code>.
+     */
+    public void setChangeListener(GraphChangeListener listener) {
+        synchronized (listenerLock) {
+            if (listener != null && !undeliveredChanges.isEmpty()) {
+                listener.changesDurable(undeliveredChanges);
+                undeliveredChanges = new ArrayList<>();
+            }
+            changeListener = listener;
+        }
+    }
+
+    /**
+     * Saves the graph to the snapshot path and drops the journaled changes it holds. Writes only wait while views of
+     * the lists are opened, not while the snapshot is written or the logged changes are written to the database.
+     */
+    public synchronized void writeSnapshot() {
+        if (snapshotPath == null) return;
+        long start = System.nanoTime();
+        IntAdjacency[] relations = {friends, subscribers, blocked, blockers};
+        IntAdjacency.View[] views = null;
+        try {
+            String[] snapshotEmails;
+            long[] snapshotAccountIds;
+            int snapshotSize;
+            GraphJournal snapshotJournal;
+            for (int attempt = 1; ; attempt++) {
+                long sequence = writeAheadLog ? changesWritten() : 0;
+                if (sequence < 0) {
+                    log.info("Graph snapshot postponed, the logged changes are not in the database yet");
+                    return;
+                }
+                lock.readLock().lock();
+                try {
+                    // writers wait for the read lock, so the log can only have moved before it was taken
+                    if (writeAheadLog && journal.lastSequence() != sequence) {
+                        if (attempt < SNAPSHOT_ATTEMPTS) continue;
+                        log.info("Graph snapshot postponed, changes are logged faster than the database takes them");
+                        return;
+                    }
+                    if (journal == null) openJournal();
+                    snapshotJournal = journal;
+                    snapshotEmails = emails;
+                    snapshotAccountIds = accountIds;
+                    snapshotSize = size;
+                    views = new IntAdjacency.View[relations.length];
+                    for (int relation = 0; relation < relations.length; relation++) {
+                        views[relation] = relations[relation].openView(size);
+                    }
+                    if (snapshotJournal != null) snapshotJournal.mark();
+                    break;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            // interning only fills the arrays beyond the size, or a database id that was unknown so far
+            GraphSnapshot.write(snapshotPath, snapshotEmails, snapshotAccountIds, snapshotSize, views);
+            if (snapshotJournal != null) snapshotJournal.truncateToMark();
+            log.info("Wrote graph snapshot of {} accounts to {} in {} ms", snapshotSize, snapshotPath,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write graph snapshot to {}", snapshotPath, e);
+        } finally {
+            if (views != null) closeViews(relations);
+        }
+    }
+
+    private void closeViews(IntAdjacency[] relations) {
+        lock.writeLock().lock();
+        try {
+            for (IntAdjacency relation : relations) {
+                relation.closeViews();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void writeSnapshotIfChanged() {
+        if (journal == null || journal.records() > 0 || !Files.exists(snapshotPath)) writeSnapshot();
+    }
+
+    // the log may only be truncated once the listener wrote every change in it to the database; called without the
+    // lock, returns the sequence of the last change written or -1 if they are not all written yet
+    private long changesWritten() throws IOException {
+        GraphJournal current;
+        long sequence;
+        lock.readLock().lock();
+        try {
+            if (journal == null) return -1;
+            current = journal;
+            sequence = journal.lastSequence();
+        } finally {
+            lock.readLock().unlock();
+        }
+        // changes are handed to the listener before their commit is acknowledged
+        current.awaitDurable(sequence);
+        GraphChangeListener listener;
+        synchronized (listenerLock) {
+            if (!undeliveredChanges.isEmpty()) return -1;
+            listener = changeListener;
+        }
+        try {
+            boolean written = listener == null || listener.flush(LISTENER_FLUSH_SECONDS, TimeUnit.SECONDS);
+            return written ? sequence : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    // called by the journal thread after every commit
+    private void changesDurable(List<GraphChange> changes) {
+        if (!writeAheadLog) return;
+        synchronized (listenerLock) {
+            if (changeListener != null) changeListener.changesDurable(changes);
+            else undeliveredChanges.addAll(changes);
+        }
+    }
+
+    // must be called while holding the write lock
+    private boolean restoreSnapshot(List<GraphChange> journaled) {
+        if (!Files.exists(snapshotPath)) return false;
+        try {
+            GraphSnapshot snapshot = GraphSnapshot.map(snapshotPath);
+            int accounts = snapshot.accounts();
+            emails = new String[Math.max(INITIAL_CAPACITY, accounts)];
+            accountIds = new long[emails.length];
+            for (int id = 0; id < accounts; id++) {
+                intern(snapshot.email(id), snapshot.accountId(id));
+            }
+            friends.map(accounts, snapshot.offsets(GraphSnapshot.FRIENDS), snapshot.targets(GraphSnapshot.FRIENDS));
+            subscribers.map(accounts, snapshot.offsets(GraphSnapshot.SUBSCRIBERS),
+                    snapshot.targets(GraphSnapshot.SUBSCRIBERS));
+            blocked.map(accounts, snapshot.offsets(GraphSnapshot.BLOCKED), snapshot.targets(GraphSnapshot.BLOCKED));
+            blockers.map(accounts, snapshot.offsets(GraphSnapshot.BLOCKERS), snapshot.targets(GraphSnapshot.BLOCKERS));
+            long[] snapshotEdges = edgeCounts();
+            journaled.forEach(this::apply);
+            if (matchesRepository(snapshotEdges)) {
+                log.info("Restored graph snapshot {} and {} journaled changes", snapshotPath, journaled.size());
+                return true;
+            }
+            log.warn("Graph snapshot {} and its journal don't match the database", snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore graph snapshot {}", snapshotPath, e);
+        }
+        clear();
+        return false;
+    }
+
+    // relationships are never deleted, so the same counts mean the same edges
+    private boolean matchesRepository(long[] snapshotEdges) {
+        if (size != accountRepository.count()) return false;
+        long[] databaseEdges = {accountRepository.countFriendships(), accountRepository.countSubscriptions(),
+                accountRepository.countBlocks()};
+        long[] graphEdges = edgeCounts();
+        for (int i = 0; i < graphEdges.length; i++) {
+            // behind a write-ahead log, the database may still miss the changes of the log
+            boolean matches = writeAheadLog
+                    ? databaseEdges[i] >= snapshotEdges[i] && databaseEdges[i] <= graphEdges[i]
+                    : databaseEdges[i] == graphEdges[i];
+            if (!matches) return false;
+        }
+        return true;
+    }
+
+    private long[] edgeCounts() {
+        return new long[]{edges(friends), edges(subscribers), edges(blocked)};
+    }
+
+    private long edges(IntAdjacency relation) {
+        long edges = 0;
+        for (int id = 0; id < size; id++) {
+            edges += relation.degree(id);
+        }
+        return edges;
+    }
+
+    // must be called while holding the write lock
+    private void apply(GraphChange change) {
+        switch (change.getType()) {
+            case ACCOUNT:
+                // accounts journaled before their ids were recorded are looked up
+                if (change.getAccountId() != 0) intern(change.getFirstEmail(), change.getAccountId());
+                else intern(change.getFirstEmail());
+                break;
+            case FRIENDSHIP:
+                applyFriendship(change.getFirstEmail(), change.getSecondEmail());
+                break;
+            case SUBSCRIPTION:
+                applySubscription(change.getFirstEmail(), change.getSecondEmail());
+                break;
+            case BLOCK:
+                applyBlock(change.getFirstEmail(), change.getSecondEmail());
+                break;
+        }
+    }
+
+    // must be called while holding the lock; returns the recovered changes
+    private List<GraphChange> openJournal() {
+        try {
+            journal = new GraphJournal(journalPath, writeAheadLog, commitDelayNanos, this::changesDurable);
+            return journal.recover();
+        } catch (IOException e) {
+            if (writeAheadLog) throw new IllegalStateException("Could not open write-ahead log " + journalPath, e);
+            log.error("Could not open graph journal {}, changes are kept from the next snapshot on", journalPath, e);
+            closeJournal();
+            return Collections.emptyList();
+        }
+    }
+
+    // must be called while holding the write lock
+    private void journal(GraphChange change) {
+        if (journal == null) return;
+        try {
+            journal.append(change);
+        } catch (IOException e) {
+            // without the log, writes can't be acknowledged anymore
+            if (writeAheadLog) throw new UncheckedIOException(e);
+            log.error("Could not append to graph journal {}, the snapshot is dropped until the next one is written",
+                    journalPath, e);
+            closeJournal();
+            discardSnapshot();
+        }
+    }
+
+    // the snapshot and journal on disk are older than the database, the next snapshot replaces them
+    private void discardSnapshot() {
+        try {
+            Files.deleteIfExists(snapshotPath);
+            if (journal != null) journal.truncate();
+        } catch (IOException e) {
+            log.error("Could not discard graph snapshot {}", snapshotPath, e);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Could not close graph journal {}", journalPath, e);
+        }
+        journal = null;
+    }
+
+    // must be called while holding the write lock
+    private void clear() {
+        ids.clear();
+        emails = new String[INITIAL_CAPACITY];
+        accountIds = new long[INITIAL_CAPACITY];
+        idsAscending = true;
+        size = 0;
+        friends = new IntAdjacency(INITIAL_CAPACITY, IntAdjacency.DEFAULT_HUB_THRESHOLD);
+        subscribers = new IntAdjacency(INITIAL_CAPACITY);
+        blocked = new IntAdjacency(INITIAL_CAPACITY);
+        blockers = new IntAdjacency(INITIAL_CAPACITY);
+        recipients = new IntAdjacency(INITIAL_CAPACITY);
+        materialized.clear();
+    }
+
+    // must be called while holding the write lock
+    private void loadFromRepository() {
+        // in id order, so the edges below find their Accounts by binary search and append to the sorted lists
+        relationshipRepository.forEachAccount(this::intern);
+        relationshipRepository.forEachFriendship((accountId, friendId) -> {
+            int account = internAccountId(accountId);
+            int friend = internAccountId(friendId);
+            if (account != NOT_FOUND && friend != NOT_FOUND) friends.add(account, friend);
+        });
+        relationshipRepository.forEachSubscription((targetId, subscriberId) -> {
+            int target = internAccountId(targetId);
+            int subscriber = internAccountId(subscriberId);
+            if (target != NOT_FOUND && subscriber != NOT_FOUND) subscribers.add(target, subscriber);
+        });
+        relationshipRepository.forEachBlock((requestorId, targetId) -> {
+            int requestor = internAccountId(requestorId);
+            int target = internAccountId(targetId);
+            if (requestor != NOT_FOUND && target != NOT_FOUND) {
+                blocked.add(requestor, target);
+                blockers.add(target, requestor);
+            }
+        });
+    }
+
+    @Override
+    public void addAccount(String email, long accountId) {
+        lock.writeLock().lock();
+        try {
+            int before = size;
+            intern(email, accountId);
+            if (size > before) journal(new GraphChange(GraphChange.Type.ACCOUNT, email, null, accountId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the database id of the Account with the given email, or -1 if the graph doesn't know its id
+     */
+    public long accountIdOf(String email) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(email);
+            return id == NOT_FOUND || accountIds[id] == 0 ? NOT_FOUND : accountIds[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of Accounts in the graph
+     */
+    public int accounts() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addFriendship(String firstEmail, String secondEmail) {
+        lock.writeLock().lock();
+        try {
+            if (applyFriendship(firstEmail, secondEmail)) {
+                journal(new GraphChange(GraphChange.Type.FRIENDSHIP, firstEmail, secondEmail));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addSubscription(String requestorEmail, String targetEmail) {
+        lock.writeLock().lock();
+        try {
+            if (applySubscription(requestorEmail, targetEmail)) {
+                journal(new GraphChange(GraphChange.Type.SUBSCRIPTION, requestorEmail, targetEmail));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addBlock(String requestorEmail, String targetEmail) {
+        lock.writeLock().lock();
+        try {
+            if (applyBlock(requestorEmail, targetEmail)) {
+                journal(new GraphChange(GraphChange.Type.BLOCK, requestorEmail, targetEmail));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachSubscription(RelationshipRepository.PairConsumer consumer) {
+        forEachEdge(subscribers, consumer);
+    }
+
+    @Override
+    public void forEachBlock(RelationshipRepository.PairConsumer consumer) {
+        forEachEdge(blocked, consumer);
+    }
+
+    @Override
+    public void sync() {
+        GraphJournal current;
+        long sequence;
+        lock.readLock().lock();
+        try {
+            if (journal == null) return;
+            current = journal;
+            sequence = journal.lastSequence();
+        } finally {
+            lock.readLock().unlock();
+        }
+        // the commit is awaited without the lock, so other writes join it
+        try {
+            current.awaitDurable(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // must be called while holding the write lock
+    private boolean applyFriendship(String firstEmail, String secondEmail) {
+        int first = intern(firstEmail);
+        int second = intern(secondEmail);
+        boolean added = false;
+        if (friends.add(first, second)) {
+            onRecipientAdded(first, second);
+            added = true;
+        }
+        if (friends.add(second, first)) {
+            onRecipientAdded(second, first);
+            added = true;
+        }
+        return added;
+    }
+
+    // must be called while holding the write lock
+    private boolean applySubscription(String requestorEmail, String targetEmail) {
+        int target = intern(targetEmail);
+        int requestor = intern(requestorEmail);
+        if (!subscribers.add(target, requestor)) return false;
+        onRecipientAdded(target, requestor);
+        return true;
+    }
+
+    // must be called while holding the write lock
+    private boolean applyBlock(String requestorEmail, String targetEmail) {
+        int requestor = intern(requestorEmail);
+        int target = intern(targetEmail);
+        if (!blocked.add(requestor, target)) return false;
+        blockers.add(target, requestor);
+        if (materialized.get(target)) recipients.remove(target, requestor);
+        return true;
+    }
+
+    @Override
+    public List<String> getFriendsOf(String email) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(email);
+            if (id == NOT_FOUND) return new ArrayList<>();
+            return toEmails(friends.neighbours(id), friends.degree(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public FriendPage getFriendsOf(String email, Long afterCursor, int limit) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(email);
+            if (id == NOT_FOUND) return new FriendPage(new ArrayList<>(), null);
+            int[] list = friends.neighbours(id);
+            int degree = friends.degree(id);
+            // the cursor is the database id of the last friend returned, as with the repository engine
+            if (!idsAscending) return friendPageByAccountId(list, degree, afterCursor, limit);
+            // the sorted list is in database id order as well
+            int from = afterCursor != null ? firstAfter(list, degree, afterCursor) : 0;
+            int to = (int) Math.min(degree, (long) from + limit);
+            List<String> page = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                page.add(emails[list[i]]);
+            }
+            return new FriendPage(page, to < degree && to > from ? Long.valueOf(accountIds[list[to - 1]]) : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> getCommonFriendsOf(String firstEmail, String secondEmail) {
+        lock.readLock().lock();
+        try {
+            int first = idOf(firstEmail);
+            int second = idOf(secondEmail);
+            if (first == NOT_FOUND || second == NOT_FOUND) return new ArrayList<>();
+            int[] common = friends.intersect(first, second);
+            return toEmails(common, common.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<MutualFriendCount> getMutualFriendCountsOf(String email, List<String> candidates, boolean withLists) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(email);
+            int[] candidateIds = new int[candidates.size()];
+            for (int i = 0; i < candidateIds.length; i++) {
+                int candidateId = idOf(candidates.get(i));
+                candidateIds[i] = id == NOT_FOUND || candidateId == NOT_FOUND ? MutualFriendProbe.UNKNOWN : candidateId;
+            }
+            // every candidate is unknown when the Account is, so the probe never looks at the id it starts from then
+            // and the fork-join tasks read the adjacencies while this thread holds the read lock for them
+            MutualFriendProbe probe = new MutualFriendProbe(friends, Math.max(id, 0));
+            List<MutualFriendCount> counts = new ArrayList<>(candidateIds.length);
+            if (withLists) {
+                int[][] lists = probe.lists(candidateIds);
+                for (int i = 0; i < lists.length; i++) {
+                    counts.add(new MutualFriendCount(candidates.get(i), lists[i].length,
+                            toEmails(lists[i], lists[i].length)));
+                }
+            } else {
+                int[] mutualFriends = probe.counts(candidateIds);
+                for (int i = 0; i < mutualFriends.length; i++) {
+                    counts.add(new MutualFriendCount(candidates.get(i), mutualFriends[i], null));
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FriendSuggestion> getFriendSuggestionsOf(String email, int limit) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(email);
+            if (id == NOT_FOUND) return new ArrayList<>();
+            // the fork-join tasks read the adjacencies while this thread holds the read lock for them
+            long[] ranked = new MutualFriendCounter(friends, blocked, blockers).suggest(id, limit, size);
+            List<FriendSuggestion> suggestions = new ArrayList<>(ranked.length);
+            for (long packed : ranked) {
+                suggestions.add(new FriendSuggestion(emails[MutualFriendCounter.candidateOf(packed)],
+                        MutualFriendCounter.mutualFriendsOf(packed)));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> getConnectionPathOf(String fromEmail, String toEmail, int maxDepth, int nodeBudget,
+                                            boolean honourBlocks) {
+        lock.readLock().lock();
+        try {
+            int from = idOf(fromEmail);
+            int to = idOf(toEmail);
+            if (from == NOT_FOUND || to == NOT_FOUND) return new ArrayList<>();
+            int[] path = new ConnectionSearch(friends, blocked, blockers, maxDepth, nodeBudget, honourBlocks)
+                    .find(from, to);
+            return toEmails(path, path.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> getBroadcastRecipientsOf(String senderEmail) {
+        lock.readLock().lock();
+        try {
+            int sender = idOf(senderEmail);
+            if (sender == NOT_FOUND) return new ArrayList<>();
+            if (materialized.get(sender)) {
+                return toEmails(recipients.neighbours(sender), recipients.degree(sender));
+            }
+            int[] eligible = computeRecipients(sender);
+            return toEmails(eligible, eligible.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getBlockersAmong(String email, Collection<String> candidates) {
+        Set<String> found = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            int target = idOf(email);
+            if (target == NOT_FOUND) return found;
+            for (String candidate : candidates) {
+                int requestor = idOf(candidate);
+                if (requestor != NOT_FOUND && blockers.contains(target, requestor)) found.add(candidate);
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] computeRecipients(int sender) {
+        return IntSets.unionExcept(
+                friends.neighbours(sender), friends.degree(sender),
+                subscribers.neighbours(sender), subscribers.degree(sender),
+                blockers.neighbours(sender), blockers.degree(sender));
+    }
+
+    // must be called while holding the write lock
+    private void onRecipientAdded(int sender, int recipient) {
+        if (materialized.get(sender)) {
+            if (!blockers.contains(sender, recipient)) recipients.add(sender, recipient);
+        } else {
+            materializeIfHeavyBroadcaster(sender);
+        }
+    }
+
+    // must be called while holding the write lock
+    private void materializeIfHeavyBroadcaster(int sender) {
+        if (materialized.get(sender)) return;
+        if (friends.degree(sender) + subscribers.degree(sender) < broadcasterThreshold) return;
+        recipients.set(sender, computeRecipients(sender));
+        materialized.set(sender);
+    }
+
+    private int idOf(String email) {
+        Integer id = ids.get(email);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    // must be called while holding the write lock
+    private int intern(String email, long accountId) {
+        Integer id = ids.get(email);
+        if (id != null) {
+            if (accountIds[id] == 0 && accountId != 0) fillAccountId(id, accountId);
+            return id;
+        }
+        if (size == emails.length) {
+            emails = Arrays.copyOf(emails, size + (size >> 1));
+            accountIds = Arrays.copyOf(accountIds, emails.length);
+        }
+        if (size > 0 && accountId <= accountIds[size - 1]) idsAscending = false;
+        emails[size] = email;
+        accountIds[size] = accountId;
+        ids.put(email, size);
+        return size++;
+    }
+
+    // an Account interned before its database id was known
+    private void fillAccountId(int id, long accountId) {
+        accountIds[id] = accountId;
+        boolean afterPrevious = id == 0 || accountIds[id - 1] < accountId;
+        boolean beforeNext = id + 1 == size || accountId < accountIds[id + 1];
+        if (!afterPrevious || !beforeNext) idsAscending = false;
+    }
+
+    // an Account this graph wasn't told about, eg. one created by another instance, is looked up in the database
+    private int intern(String email) {
+        Integer id = ids.get(email);
+        if (id != null) return id;
+        Long accountId = relationshipRepository.findIdsByEmail(Collections.singleton(email)).get(email);
+        return intern(email, accountId == null ? 0 : accountId);
+    }
+
+    private int internAccountId(long accountId) {
+        int id = indexOf(accountId);
+        if (id != NOT_FOUND) return id;
+        // created after the Accounts were read
+        String email = relationshipRepository.findEmailsById(Collections.singleton(accountId)).get(accountId);
+        return email == null ? NOT_FOUND : intern(email, accountId);
+    }
+
+    // the int id of a database id, binary searched while the database ids are in ascending order
+    private int indexOf(long accountId) {
+        if (idsAscending) {
+            int id = Arrays.binarySearch(accountIds, 0, size, accountId);
+            return id >= 0 ? id : NOT_FOUND;
+        }
+        for (int id = 0; id < size; id++) {
+            if (accountIds[id] == accountId) return id;
+        }
+        return NOT_FOUND;
+    }
+
+    // the position of the first friend whose database id is above the cursor
+    private int firstAfter(int[] list, int degree, long afterCursor) {
+        int low = 0;
+        int high = degree;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (accountIds[list[middle]] <= afterCursor) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // the friends with the smallest database ids above the cursor, once an Account was added out of id order
+    private FriendPage friendPageByAccountId(int[] list, int degree, Long afterCursor, int limit) {
+        long after = afterCursor != null ? afterCursor : Long.MIN_VALUE;
+        int[] next = IntStream.range(0, degree).map(i -> list[i]).filter(friend -> accountIds[friend] > after)
+                .boxed().sorted(Comparator.comparingLong(friend -> accountIds[friend])).limit(limit + 1L)
+                .mapToInt(Integer::intValue).toArray();
+        int length = Math.min(next.length, limit);
+        Long nextCursor = next.length > limit ? Long.valueOf(accountIds[next[length - 1]]) : null;
+        return new FriendPage(toEmails(next, length), nextCursor);
+    }
+
+    // Accounts whose database id is unknown are skipped, as no relationship write can name them
+    private void forEachEdge(IntAdjacency relation, RelationshipRepository.PairConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            for (int from = 0; from < size; from++) {
+                long fromId = accountIds[from];
+                if (fromId == 0) continue;
+                relation.forEach(from, to -> {
+                    if (accountIds[to] != 0) consumer.accept(fromId, accountIds[to]);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> toEmails(int[] list, int length) {
+        List<String> result = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            result.add(emails[list[i]]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,339 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Adjacency lists of one relationship type (eg. friends) keyed by dense int ids. Every list is kept as a sorted
+ * primitive int array so that membership is a binary search and set operations are linear merges. No boxing involved.
+ * <p>
+ * Lists that grow beyond the hub threshold are additionally mirrored in an {@link IntBitmap}, which lets
+ * {@link #intersect(int, int)} pick between a linear merge, galloping search, bitmap probing and a bitmap AND
+ * depending on the degrees of the two lists.
+ * <p>
+ * An adjacency can start from the lists of a {@link GraphSnapshot}, which stay in the mapped file: a list is copied
+ * to the heap once, the first time it is read or an edge is added to it, and membership tests on a list that was
+ * never read search the mapped file directly.
+ * <p>
+ * A {@link View} keeps the lists as they were when it was opened, so a snapshot can be written from it while the
+ * graph takes writes: until the views are closed, a list shared with them is copied before its first change.
+ * <p>
+ * This class is not thread safe. The owning graph is responsible for locking: reads may run concurrently with each
+ * other, writes must run alone.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class IntAdjacency {
+    private static final int[] EMPTY = new int[0];
+    private static final int INITIAL_LIST_CAPACITY = 4;
+    // switch from linear merge to galloping search when one list is this many times larger than the other
+    static final int GALLOPING_SKEW = 32;
+    // lists with at least this many entries also get a bitmap; 0 disables bitmaps
+    static final int DEFAULT_HUB_THRESHOLD = 4096;
+
+    private final int hubThreshold;
+    private int[][] lists;
+    private int[] sizes;
+    private IntBitmap[] bitmaps;
+    // lists of the snapshot, used for the ids below mappedIds whose list was not copied to the heap yet
+    private IntBuffer mappedOffsets;
+    private IntBuffer mappedTargets;
+    private int mappedIds;
+    // the heap copies of the mapped lists read so far, published atomically since concurrent reads fill it
+    private AtomicReferenceArray<int[]> mappedCopies;
+    // ids whose list array is shared with an open view, null when no view is open
+    private BitSet shared;
+
+    IntAdjacency(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    IntAdjacency(int initialCapacity, int hubThreshold) {
+        this.hubThreshold = hubThreshold;
+        lists = new int[initialCapacity][];
+        sizes = new int[initialCapacity];
+        bitmaps = new IntBitmap[initialCapacity];
+    }
+
+    /**
+     * Adds the edge from -&gt; to. Duplicates are ignored.
+     *
+     * @return true if the edge was not present yet
+     */
+    boolean add(int from, int to) {
+        ensureCapacity(from + 1);
+        copyIfMapped(from);
+        copyIfShared(from);
+        int[] list = lists[from];
+        int size = sizes[from];
+        if (list == null) {
+            list = new int[INITIAL_LIST_CAPACITY];
+            lists[from] = list;
+        }
+        int position = Arrays.binarySearch(list, 0, size, to);
+        if (position >= 0) return false;
+        int insertionPoint = -position - 1;
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size + (size >> 1) + 1);
+            lists[from] = list;
+        }
+        System.arraycopy(list, insertionPoint, list, insertionPoint + 1, size - insertionPoint);
+        list[insertionPoint] = to;
+        sizes[from] = size + 1;
+
+        if (bitmaps[from] != null) {
+            bitmaps[from].add(to);
+        } else if (hubThreshold > 0 && size + 1 >= hubThreshold) {
+            bitmaps[from] = IntBitmap.of(list, size + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the edge from -&gt; to if present.
+     *
+     * @return true if the edge was present
+     */
+    boolean remove(int from, int to) {
+        if (from >= lists.length) return false;
+        copyIfMapped(from);
+        copyIfShared(from);
+        if (lists[from] == null) return false;
+        int[] list = lists[from];
+        int size = sizes[from];
+        int position = Arrays.binarySearch(list, 0, size, to);
+        if (position < 0) return false;
+        System.arraycopy(list, position + 1, list, position, size - position - 1);
+        sizes[from] = size - 1;
+        if (bitmaps[from] != null) bitmaps[from].remove(to);
+        return true;
+    }
+
+    /**
+     * Replaces the list of the given id with the given sorted array, which is owned by this adjacency afterwards.
+     */
+    void set(int from, int[] sortedValues) {
+        ensureCapacity(from + 1);
+        lists[from] = sortedValues;
+        sizes[from] = sortedValues.length;
+        if (shared != null) shared.clear(from);
+        bitmaps[from] = hubThreshold > 0 && sortedValues.length >= hubThreshold
+                ? IntBitmap.of(sortedValues, sortedValues.length) : null;
+    }
+
+    boolean contains(int from, int to) {
+        if (from >= lists.length) return false;
+        if (bitmaps[from] != null) return bitmaps[from].contains(to);
+        if (isMapped(from)) return mappedBinarySearch(from, to);
+        if (lists[from] == null) return false;
+        return Arrays.binarySearch(lists[from], 0, sizes[from], to) >= 0;
+    }
+
+    /**
+     * Starts this empty adjacency from the lists of a snapshot in CSR form: the list of id <code>i</code> is
+     * <code>targets[offsets[i], offsets[i + 1])</code>. Only the degrees and the bitmaps of the hubs are computed here.
+     *
+     * @param ids     the number of ids in the snapshot
+     * @param offsets the <code>ids + 1</code> offsets of the lists in targets
+     * @param targets the sorted lists, one after the other
+     */
+    void map(int ids, IntBuffer offsets, IntBuffer targets) {
+        ensureCapacity(ids);
+        mappedOffsets = offsets;
+        mappedTargets = targets;
+        mappedIds = ids;
+        mappedCopies = new AtomicReferenceArray<>(ids);
+        for (int id = 0; id < ids; id++) {
+            sizes[id] = offsets.get(id + 1) - offsets.get(id);
+            if (hubThreshold > 0 && sizes[id] >= hubThreshold) {
+                int[] list = neighbours(id);
+                bitmaps[id] = IntBitmap.of(list, list.length);
+            }
+        }
+    }
+
+    /**
+     * Intersects the lists of two ids, choosing the cheapest strategy for their degrees:
+     * <ul>
+     * <li>both are hubs: word-wise AND of their bitmaps</li>
+     * <li>only one is a hub: the smaller list is probed against the bitmap</li>
+     * <li>degrees differ by at least {@link #GALLOPING_SKEW} times: galloping search</li>
+     * <li>otherwise: linear merge</li>
+     * </ul>
+     *
+     * @return the sorted ids present in both lists
+     */
+    int[] intersect(int first, int second) {
+        int firstDegree = degree(first);
+        int secondDegree = degree(second);
+        if (firstDegree == 0 || secondDegree == 0) return EMPTY;
+        if (firstDegree > secondDegree) {
+            return intersect(second, first);
+        }
+        // from here on, first is the smaller list
+        IntBitmap firstBitmap = bitmaps[first];
+        IntBitmap secondBitmap = bitmaps[second];
+        if (firstBitmap != null && secondBitmap != null) {
+            return firstBitmap.and(secondBitmap);
+        }
+        int[] firstList = neighbours(first);
+        if (secondBitmap != null) {
+            return IntSets.intersect(firstList, firstDegree, secondBitmap);
+        }
+        int[] secondList = neighbours(second);
+        if (secondDegree / firstDegree >= GALLOPING_SKEW) {
+            return IntSets.intersectGalloping(firstList, firstDegree, secondList, secondDegree);
+        }
+        return IntSets.intersect(firstList, firstDegree, secondList, secondDegree);
+    }
+
+    int degree(int from) {
+        return from < sizes.length ? sizes[from] : 0;
+    }
+
+    /**
+     * Returns the backing sorted array of the given id. Only the first {@link #degree(int)} elements are valid and the
+     * array must not be modified by the caller. The list of a snapshot is copied from the mapped file on the first call
+     * and that copy is returned afterwards.
+     */
+    int[] neighbours(int from) {
+        if (from >= lists.length) return EMPTY;
+        if (isMapped(from)) return mappedCopy(from);
+        if (lists[from] == null) return EMPTY;
+        return lists[from];
+    }
+
+    /**
+     * Hands every entry of the list of the given id to the consumer, in order. Unlike {@link #neighbours(int)}, a list
+     * of the snapshot is read from the mapped file without being copied to the heap.
+     */
+    void forEach(int from, IntConsumer consumer) {
+        if (isMapped(from)) {
+            for (int i = mappedOffsets.get(from), end = mappedOffsets.get(from + 1); i < end; i++) {
+                consumer.accept(mappedTargets.get(i));
+            }
+            return;
+        }
+        int[] list = neighbours(from);
+        for (int i = 0, degree = degree(from); i < degree; i++) {
+            consumer.accept(list[i]);
+        }
+    }
+
+    private boolean isMapped(int from) {
+        return from < mappedIds && lists[from] == null && sizes[from] > 0;
+    }
+
+    private int[] mappedCopy(int from) {
+        int[] copy = mappedCopies.get(from);
+        if (copy != null) return copy;
+        copy = new int[sizes[from]];
+        IntBuffer targets = mappedTargets.duplicate();
+        targets.position(mappedOffsets.get(from));
+        targets.get(copy);
+        // readers racing on the first read of a list all return the copy published first
+        return mappedCopies.compareAndSet(from, null, copy) ? copy : mappedCopies.get(from);
+    }
+
+    // the list of the snapshot becomes a growable heap list before its first change
+    private void copyIfMapped(int from) {
+        if (!isMapped(from)) return;
+        int[] list = mappedCopy(from);
+        lists[from] = Arrays.copyOf(list, list.length + (list.length >> 1) + 1);
+        mappedCopies.set(from, null);
+    }
+
+    // a list shared with a view gets its own array before its first change
+    private void copyIfShared(int from) {
+        if (shared == null || !shared.get(from)) return;
+        if (lists[from] != null) lists[from] = lists[from].clone();
+        shared.clear(from);
+    }
+
+    /**
+     * Opens a view of the lists of the ids <code>[0, ids)</code> as they are now. Must be called while writes are held
+     * off, and by one caller at a time.
+     */
+    View openView(int ids) {
+        ensureCapacity(ids);
+        if (shared == null) shared = new BitSet(ids);
+        shared.set(0, ids);
+        return new View(Arrays.copyOf(lists, ids), Arrays.copyOf(sizes, ids), mappedOffsets, mappedTargets,
+                Math.min(mappedIds, ids));
+    }
+
+    /**
+     * Closes every view, after which lists are changed in place again. Must be called while writes are held off.
+     */
+    void closeViews() {
+        shared = null;
+    }
+
+    private boolean mappedBinarySearch(int from, int to) {
+        int low = mappedOffsets.get(from);
+        int high = mappedOffsets.get(from + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = mappedTargets.get(middle);
+            if (value < to) low = middle + 1;
+            else if (value > to) high = middle - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity <= lists.length) return;
+        int newCapacity = Math.max(capacity, lists.length + (lists.length >> 1) + 1);
+        lists = Arrays.copyOf(lists, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+        bitmaps = Arrays.copyOf(bitmaps, newCapacity);
+    }
+
+    /**
+     * The lists of an adjacency as they were when {@link #openView(int)} was called. Reads neither the adjacency nor
+     * its locks, so it can be read while the adjacency changes.
+     */
+    static final class View {
+        private final int[][] lists;
+        private final int[] sizes;
+        private final IntBuffer mappedOffsets;
+        private final IntBuffer mappedTargets;
+        private final int mappedIds;
+
+        private View(int[][] lists, int[] sizes, IntBuffer mappedOffsets, IntBuffer mappedTargets, int mappedIds) {
+            this.lists = lists;
+            this.sizes = sizes;
+            this.mappedOffsets = mappedOffsets;
+            this.mappedTargets = mappedTargets;
+            this.mappedIds = mappedIds;
+        }
+
+        int ids() {
+            return sizes.length;
+        }
+
+        int degree(int from) {
+            return sizes[from];
+        }
+
+        /**
+         * Returns the sorted list of the given id. Only the first {@link #degree(int)} elements are valid and the array
+         * must not be modified by the caller.
+         */
+        int[] neighbours(int from) {
+            if (lists[from] != null) return lists[from];
+            if (from >= mappedIds || sizes[from] == 0) return EMPTY;
+            // the list was never copied from the snapshot, which stays mapped
+            int[] list = new int[sizes[from]];
+            IntBuffer targets = mappedTargets.duplicate();
+            targets.position(mappedOffsets.get(from));
+            targets.get(list);
+            return list;
+        }
+    }
+}
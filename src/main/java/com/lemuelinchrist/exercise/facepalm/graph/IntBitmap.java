@@ -0,0 +1,94 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.Arrays;
+
+/**
+ * A chunked bitmap of non-negative ints. The id space is split in chunks of 65536 ids and only the chunks that contain
+ * at least one id are allocated, so a bitmap of a hub account costs at most 8KB per populated chunk instead of one bit
+ * for every account in the system.
+ * <p>
+ * This class is not thread safe. The owning graph is responsible for locking.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class IntBitmap {
+    private static final int CHUNK_BITS = 16;
+    private static final int WORDS_PER_CHUNK = (1 << CHUNK_BITS) >>> 6;
+
+    private long[][] chunks = new long[0][];
+    private int cardinality;
+
+    static IntBitmap of(int[] values, int length) {
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < length; i++) {
+            bitmap.add(values[i]);
+        }
+        return bitmap;
+    }
+
+    void add(int value) {
+        int chunkIndex = value >>> CHUNK_BITS;
+        if (chunkIndex >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkIndex + 1);
+        }
+        long[] chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            chunk = new long[WORDS_PER_CHUNK];
+            chunks[chunkIndex] = chunk;
+        }
+        int word = (value & ((1 << CHUNK_BITS) - 1)) >>> 6;
+        long mask = 1L << value;
+        if ((chunk[word] & mask) == 0) {
+            chunk[word] |= mask;
+            cardinality++;
+        }
+    }
+
+    void remove(int value) {
+        int chunkIndex = value >>> CHUNK_BITS;
+        if (chunkIndex >= chunks.length || chunks[chunkIndex] == null) return;
+        long[] chunk = chunks[chunkIndex];
+        int word = (value & ((1 << CHUNK_BITS) - 1)) >>> 6;
+        long mask = 1L << value;
+        if ((chunk[word] & mask) != 0) {
+            chunk[word] &= ~mask;
+            cardinality--;
+        }
+    }
+
+    boolean contains(int value) {
+        int chunkIndex = value >>> CHUNK_BITS;
+        if (chunkIndex >= chunks.length || chunks[chunkIndex] == null) return false;
+        return (chunks[chunkIndex][(value & ((1 << CHUNK_BITS) - 1)) >>> 6] & (1L << value)) != 0;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Word-wise AND of two bitmaps.
+     *
+     * @return the sorted ids present in both bitmaps
+     */
+    int[] and(IntBitmap other) {
+        int[] result = new int[Math.min(cardinality, other.cardinality)];
+        int k = 0;
+        int commonChunks = Math.min(chunks.length, other.chunks.length);
+        for (int c = 0; c < commonChunks; c++) {
+            long[] mine = chunks[c];
+            long[] theirs = other.chunks[c];
+            if (mine == null || theirs == null) continue;
+            int base = c << CHUNK_BITS;
+            for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+                long word = mine[w] & theirs[w];
+                while (word != 0) {
+                    result[k++] = base + (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+}
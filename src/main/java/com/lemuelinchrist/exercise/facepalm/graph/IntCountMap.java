@@ -0,0 +1,103 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.Arrays;
+
+/**
+ * Counts per int id in an open-addressing hash table of two primitive arrays, so that counting millions of ids
+ * neither boxes them nor allocates an entry per id. Ids must not be negative.
+ * <p>
+ * This class is not thread safe: it is meant to be filled and read by the thread that created it.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class IntCountMap {
+    private static final int FREE = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] counts;
+    private int shift;
+    private int size;
+
+    IntCountMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Adds one to the count of the id.
+     */
+    void increment(int id) {
+        add(id, 1);
+    }
+
+    void add(int id, int count) {
+        int slot = slotOf(id);
+        if (keys[slot] == FREE) {
+            keys[slot] = id;
+            counts[slot] = count;
+            // rehashing at half full keeps the probe sequences short
+            if (++size * 2 > keys.length) grow();
+        } else {
+            counts[slot] += count;
+        }
+    }
+
+    /**
+     * @return the count of the id, 0 if it was never counted
+     */
+    int get(int id) {
+        int slot = slotOf(id);
+        return keys[slot] == FREE ? 0 : counts[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(CountConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) consumer.accept(keys[slot], counts[slot]);
+        }
+    }
+
+    // the slot holding the id, or the free slot where it belongs
+    private int slotOf(int id) {
+        int mask = keys.length - 1;
+        // fibonacci hashing spreads the dense ids of the graph over the whole table
+        int slot = (id * 0x9E3779B9) >>> shift;
+        while (keys[slot] != FREE && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(keys.length << 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                counts[target] = oldCounts[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        counts = new int[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    @FunctionalInterface
+    interface CountConsumer {
+        void accept(int id, int count);
+    }
+}
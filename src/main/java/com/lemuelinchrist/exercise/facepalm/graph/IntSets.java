@@ -0,0 +1,109 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.Arrays;
+
+/**
+ * Set operations over sorted primitive int arrays. Every array is accompanied by its valid length so that the
+ * over-allocated backing arrays of {@link IntAdjacency} can be passed in directly without copying.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class IntSets {
+
+    private IntSets() {
+    }
+
+    /**
+     * Linear merge intersection of two sorted arrays.
+     *
+     * @return a new sorted array containing the elements present in both a and b
+     */
+    static int[] intersect(int[] a, int aLength, int[] b, int bLength) {
+        int[] result = new int[Math.min(aLength, bLength)];
+        int i = 0, j = 0, k = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Galloping (exponential search) intersection. Every element of the small array is searched in the large array
+     * starting from the position of the previous match, which costs O(small * log(large / small)) and is much cheaper
+     * than a linear merge when the degrees are heavily skewed.
+     *
+     * @return a new sorted array containing the elements present in both arrays
+     */
+    static int[] intersectGalloping(int[] small, int smallLength, int[] large, int largeLength) {
+        int[] result = new int[smallLength];
+        int k = 0;
+        int low = 0;
+        for (int i = 0; i < smallLength && low < largeLength; i++) {
+            int value = small[i];
+            int step = 1;
+            int high = low;
+            while (high < largeLength && large[high] < value) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(large, low, Math.min(high + 1, largeLength), value);
+            if (position >= 0) {
+                result[k++] = value;
+                low = position + 1;
+            } else {
+                low = -position - 1;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Intersects a sorted array with a bitmap by probing every element of the array.
+     *
+     * @return a new sorted array containing the elements of the array that are set in the bitmap
+     */
+    static int[] intersect(int[] a, int aLength, IntBitmap bitmap) {
+        int[] result = new int[aLength];
+        int k = 0;
+        for (int i = 0; i < aLength; i++) {
+            if (bitmap.contains(a[i])) result[k++] = a[i];
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Computes (a &#x222a; b) &#x2212; excluded in one pass over the three sorted arrays.
+     *
+     * @return a new sorted array without duplicates
+     */
+    static int[] unionExcept(int[] a, int aLength, int[] b, int bLength, int[] excluded, int excludedLength) {
+        int[] result = new int[aLength + bLength];
+        int i = 0, j = 0, x = 0, k = 0;
+        while (i < aLength || j < bLength) {
+            int next;
+            if (j >= bLength || (i < aLength && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i >= aLength || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i];
+                i++;
+                j++;
+            }
+            while (x < excludedLength && excluded[x] < next) x++;
+            if (x < excludedLength && excluded[x] == next) continue;
+            result[k++] = next;
+        }
+        return Arrays.copyOf(result, k);
+    }
+}
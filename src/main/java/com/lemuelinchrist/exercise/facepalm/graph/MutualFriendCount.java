@@ -0,0 +1,37 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.List;
+
+/**
+ * The friends that an Account has in common with one candidate: always their number, and their emails when they were
+ * asked for.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class MutualFriendCount {
+    private final String email;
+    private final int mutualFriends;
+    private final List<String> friends;
+
+    public MutualFriendCount(String email, int mutualFriends, List<String> friends) {
+        this.email = email;
+        this.mutualFriends = mutualFriends;
+        this.friends = friends;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getMutualFriends() {
+        return mutualFriends;
+    }
+
+    /**
+     * @return the emails of the mutual friends, or null if only their number was asked for
+     */
+    public List<String> getFriends() {
+        return friends;
+    }
+}
@@ -0,0 +1,232 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ranks the friends of friends of an Account by the number of friends they have in common with it.
+ * <p>
+ * Accounts whose friends have few friends of their own walk the friend lists once, counting each second degree Account
+ * in an {@link IntCountMap}. Beyond {@link #PARALLEL_THRESHOLD} second degree edges, the candidate ids are split into
+ * ranges over the common fork-join pool instead: every task counts the ids of its range in a dense int array of at
+ * most {@link #MAX_RANGE_WIDTH} entries, finding where the range starts in each sorted friend list by binary search,
+ * and keeps the best candidates of its range. The counters stay in the CPU cache, tasks never merge their counts, and
+ * the memory used is bounded by the range width times the parallelism whatever the number of paths.
+ * <p>
+ * Candidates are only checked against the friends and blocks of the Account when they would enter the bounded heap of
+ * the best ones. The adjacencies must not change while a count is running: the graph holds its read lock around it.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class MutualFriendCounter {
+    // below this many second degree edges, a single pass over a hash map beats forking
+    static final int PARALLEL_THRESHOLD = 50_000;
+    static final int MIN_RANGE_WIDTH = 1 << 14;
+    // 256 KB of counters per task
+    static final int MAX_RANGE_WIDTH = 1 << 16;
+
+    private final IntAdjacency friends;
+    private final IntAdjacency blocked;
+    private final IntAdjacency blockers;
+
+    MutualFriendCounter(IntAdjacency friends, IntAdjacency blocked, IntAdjacency blockers) {
+        this.friends = friends;
+        this.blocked = blocked;
+        this.blockers = blockers;
+    }
+
+    /**
+     * @param ids the number of ids of the graph
+     * @return the candidates with the most mutual friends, best first, each packed by {@link #pack(int, int)}. Ties
+     * are ranked by id. Friends of the Account, Accounts it blocked and Accounts that blocked it are left out.
+     */
+    long[] suggest(int account, int limit, int ids) {
+        SecondDegree secondDegree = new SecondDegree(account);
+        if (secondDegree.paths < PARALLEL_THRESHOLD) return suggestByMap(secondDegree, account, limit);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int width = (int) Math.min(MAX_RANGE_WIDTH, Math.max(MIN_RANGE_WIDTH, (long) ids / (4L * parallelism) + 1));
+        return suggestByRanges(secondDegree, account, limit, ids, width);
+    }
+
+    long[] suggestByMap(SecondDegree secondDegree, int account, int limit) {
+        TopCandidates top = new TopCandidates(limit);
+        count(secondDegree.lists, secondDegree.degrees)
+                .forEach((candidate, mutualFriends) -> offer(top, account, candidate, mutualFriends));
+        return top.toSortedArray();
+    }
+
+    long[] suggestByRanges(SecondDegree secondDegree, int account, int limit, int ids, int width) {
+        return ForkJoinPool.commonPool().invoke(new RangeTask(account, limit, secondDegree.lists,
+                secondDegree.degrees, 0, ids, width));
+    }
+
+    /**
+     * @return how many of the given friend lists every Account appears in
+     */
+    static IntCountMap count(int[][] lists, int[] degrees) {
+        int paths = 0;
+        for (int degree : degrees) {
+            paths += degree;
+        }
+        IntCountMap counts = new IntCountMap(paths);
+        for (int i = 0; i < lists.length; i++) {
+            int[] list = lists[i];
+            for (int j = 0; j < degrees[i]; j++) {
+                counts.increment(list[j]);
+            }
+        }
+        return counts;
+    }
+
+    static long pack(int candidate, int mutualFriends) {
+        // the complement ranks lower ids first among equal counts
+        return (long) mutualFriends << 32 | (~candidate & 0xffffffffL);
+    }
+
+    static int candidateOf(long packed) {
+        return ~(int) packed;
+    }
+
+    static int mutualFriendsOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    // the friend lists of the friends of an Account, mapped lists copied once here rather than once per task
+    final class SecondDegree {
+        final int[][] lists;
+        final int[] degrees;
+        final long paths;
+
+        SecondDegree(int account) {
+            int degree = friends.degree(account);
+            int[] firstDegree = friends.neighbours(account);
+            lists = new int[degree][];
+            degrees = new int[degree];
+            long count = 0;
+            for (int i = 0; i < degree; i++) {
+                lists[i] = friends.neighbours(firstDegree[i]);
+                degrees[i] = friends.degree(firstDegree[i]);
+                count += degrees[i];
+            }
+            paths = count;
+        }
+    }
+
+    private void offer(TopCandidates top, int account, int candidate, int mutualFriends) {
+        long packed = pack(candidate, mutualFriends);
+        if (!top.accepts(packed) || isExcluded(account, candidate)) return;
+        top.add(packed);
+    }
+
+    private boolean isExcluded(int account, int candidate) {
+        return candidate == account || friends.contains(account, candidate)
+                || blocked.contains(account, candidate) || blockers.contains(account, candidate);
+    }
+
+    // counts the candidates of the ids [from, to) and returns the best of them
+    private final class RangeTask extends RecursiveTask<long[]> {
+        private final int account;
+        private final int limit;
+        private final int[][] lists;
+        private final int[] degrees;
+        private final int from;
+        private final int to;
+        private final int width;
+
+        RangeTask(int account, int limit, int[][] lists, int[] degrees, int from, int to, int width) {
+            this.account = account;
+            this.limit = limit;
+            this.lists = lists;
+            this.degrees = degrees;
+            this.from = from;
+            this.to = to;
+            this.width = width;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= width) return countRange();
+            // splits on a multiple of the width, so every leaf but the last is exactly one range wide
+            int middle = from + ((to - from) / width + 1) / 2 * width;
+            RangeTask left = new RangeTask(account, limit, lists, degrees, from, middle, width);
+            left.fork();
+            long[] right = new RangeTask(account, limit, lists, degrees, middle, to, width).compute();
+            long[] joined = left.join();
+            TopCandidates top = new TopCandidates(limit);
+            for (long packed : joined) {
+                top.add(packed);
+            }
+            for (long packed : right) {
+                if (top.accepts(packed)) top.add(packed);
+            }
+            return top.toSortedArray();
+        }
+
+        private long[] countRange() {
+            int[] counts = new int[to - from];
+            for (int i = 0; i < lists.length; i++) {
+                int[] list = lists[i];
+                int degree = degrees[i];
+                int position = Arrays.binarySearch(list, 0, degree, from);
+                for (int j = position >= 0 ? position : -position - 1; j < degree && list[j] < to; j++) {
+                    counts[list[j] - from]++;
+                }
+            }
+            TopCandidates top = new TopCandidates(limit);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) offer(top, account, from + i, counts[i]);
+            }
+            return top.toSortedArray();
+        }
+    }
+
+    // min-heap of the packed candidates, the worst of the best at the root
+    private static final class TopCandidates {
+        private final long[] heap;
+        private int size;
+
+        TopCandidates(int limit) {
+            heap = new long[limit];
+        }
+
+        boolean accepts(long packed) {
+            return size < heap.length || packed > heap[0];
+        }
+
+        // must only be called with a candidate that accepts(packed)
+        void add(long packed) {
+            if (size < heap.length) {
+                int child = size++;
+                while (child > 0 && heap[(child - 1) >>> 1] > packed) {
+                    heap[child] = heap[(child - 1) >>> 1];
+                    child = (child - 1) >>> 1;
+                }
+                heap[child] = packed;
+                return;
+            }
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (heap[child] >= packed) break;
+                heap[parent] = heap[child];
+                parent = child;
+            }
+            heap[parent] = packed;
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(heap, size);
+            Arrays.sort(sorted);
+            for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+                long swap = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = swap;
+            }
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Counts the friends an Account has in common with each of many candidates. The friends of the Account are put in an
+ * {@link IntBitmap} once, and each candidate then costs one bitmap probe per friend of its own. A candidate with more
+ * friends than the Account is probed the other way around, by looking up each friend of the Account in the candidate's
+ * list, so a celebrity among the candidates costs no more than the Account's own friend list.
+ * <p>
+ * Candidates are evaluated on the common fork-join pool once the probes add up to {@link #PARALLEL_THRESHOLD}.
+ * The adjacency must not change while the candidates are evaluated: the graph holds its read lock around it.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class MutualFriendProbe {
+    // below this many probes, the candidates are evaluated on the calling thread
+    static final int PARALLEL_THRESHOLD = 50_000;
+    // the id of a candidate without an Account
+    static final int UNKNOWN = -1;
+    private static final int[] NONE = new int[0];
+
+    private final IntAdjacency friends;
+    private final int[] accountFriends;
+    private final int degree;
+    private final IntBitmap friendSet;
+
+    MutualFriendProbe(IntAdjacency friends, int account) {
+        this.friends = friends;
+        this.accountFriends = friends.neighbours(account);
+        this.degree = friends.degree(account);
+        this.friendSet = IntBitmap.of(accountFriends, degree);
+    }
+
+    /**
+     * @param candidates the ids of the candidates, {@link #UNKNOWN} for the ones without an Account
+     * @return the number of mutual friends of every candidate, in the same order
+     */
+    int[] counts(int[] candidates) {
+        int[] counts = new int[candidates.length];
+        evaluate(candidates, i -> counts[i] = count(candidates[i]));
+        return counts;
+    }
+
+    /**
+     * @param candidates the ids of the candidates, {@link #UNKNOWN} for the ones without an Account
+     * @return the sorted ids of the mutual friends of every candidate, in the same order
+     */
+    int[][] lists(int[] candidates) {
+        int[][] lists = new int[candidates.length][];
+        evaluate(candidates, i -> lists[i] = list(candidates[i]));
+        return lists;
+    }
+
+    int count(int candidate) {
+        if (candidate == UNKNOWN) return 0;
+        int candidateDegree = friends.degree(candidate);
+        int count = 0;
+        if (candidateDegree <= degree) {
+            int[] list = friends.neighbours(candidate);
+            for (int i = 0; i < candidateDegree; i++) {
+                if (friendSet.contains(list[i])) count++;
+            }
+        } else {
+            for (int i = 0; i < degree; i++) {
+                if (friends.contains(candidate, accountFriends[i])) count++;
+            }
+        }
+        return count;
+    }
+
+    int[] list(int candidate) {
+        if (candidate == UNKNOWN) return NONE;
+        int candidateDegree = friends.degree(candidate);
+        int[] common = new int[Math.min(degree, candidateDegree)];
+        int size = 0;
+        // both loops walk a sorted list, so the mutual friends come out sorted
+        if (candidateDegree <= degree) {
+            int[] list = friends.neighbours(candidate);
+            for (int i = 0; i < candidateDegree; i++) {
+                if (friendSet.contains(list[i])) common[size++] = list[i];
+            }
+        } else {
+            for (int i = 0; i < degree; i++) {
+                if (friends.contains(candidate, accountFriends[i])) common[size++] = accountFriends[i];
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    private void evaluate(int[] candidates, IntConsumer evaluation) {
+        long probes = 0;
+        for (int candidate : candidates) {
+            if (candidate != UNKNOWN) probes += Math.min(degree, friends.degree(candidate));
+        }
+        IntStream indexes = IntStream.range(0, candidates.length);
+        // parallel streams run on the common fork-join pool
+        (probes < PARALLEL_THRESHOLD ? indexes : indexes.parallel()).forEach(evaluation);
+    }
+}
@@ -0,0 +1,223 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Social Graph engine that answers every read with the JPQL queries of the AccountRepository, and the broadcast
+ * recipients with the native set operations of the RelationshipRepository. The database is the only state, so the
+ * write notifications and {@link #sync()} are no-ops.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+@ConditionalOnProperty(prefix = "facepalm.graph", name = "engine", havingValue = "repository")
+public class RepositorySocialGraph implements SocialGraph {
+    // candidate emails bound to the in clause of one query
+    private static final int CANDIDATES_PER_QUERY = 1000;
+
+    private final AccountRepository accountRepository;
+    private final RelationshipRepository relationshipRepository;
+
+    @Autowired
+    public RepositorySocialGraph(AccountRepository accountRepository, RelationshipRepository relationshipRepository) {
+        this.accountRepository = accountRepository;
+        this.relationshipRepository = relationshipRepository;
+    }
+
+    @Override
+    public void addAccount(String email, long accountId) {
+    }
+
+    @Override
+    public void addFriendship(String firstEmail, String secondEmail) {
+    }
+
+    @Override
+    public void addSubscription(String requestorEmail, String targetEmail) {
+    }
+
+    @Override
+    public void addBlock(String requestorEmail, String targetEmail) {
+    }
+
+    @Override
+    public void forEachSubscription(RelationshipRepository.PairConsumer consumer) {
+        relationshipRepository.forEachSubscription(consumer);
+    }
+
+    @Override
+    public void forEachBlock(RelationshipRepository.PairConsumer consumer) {
+        relationshipRepository.forEachBlock(consumer);
+    }
+
+    @Override
+    public void sync() {
+    }
+
+    @Override
+    public List<String> getFriendsOf(String email) {
+        return accountRepository.findFriendListByEmail(email).orElseGet(ArrayList::new);
+    }
+
+    @Override
+    public FriendPage getFriendsOf(String email, Long afterCursor, int limit) {
+        // the cursor is the Account id of the last friend returned; one extra row tells if there is a next page
+        List<Object[]> rows = accountRepository.findFriendPageByEmail(email, afterCursor != null ? afterCursor : 0L,
+                new PageRequest(0, limit + 1));
+        int size = Math.min(rows.size(), limit);
+        List<String> page = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            page.add((String) rows.get(i)[1]);
+        }
+        Long nextCursor = rows.size() > limit ? (Long) rows.get(limit - 1)[0] : null;
+        return new FriendPage(page, nextCursor);
+    }
+
+    @Override
+    public List<String> getCommonFriendsOf(String firstEmail, String secondEmail) {
+        return accountRepository.findCommonFriendsBetweenAccounts(firstEmail, secondEmail).orElseGet(ArrayList::new);
+    }
+
+    @Override
+    public List<MutualFriendCount> getMutualFriendCountsOf(String email, List<String> candidates, boolean withLists) {
+        Map<String, Integer> counts = new HashMap<>(candidates.size() * 2);
+        Map<String, List<String>> lists = new HashMap<>(candidates.size() * 2);
+        // one query per chunk of candidates, which the database answers with one join over the friendship index
+        for (int from = 0; from < candidates.size(); from += CANDIDATES_PER_QUERY) {
+            List<String> chunk = candidates.subList(from, Math.min(candidates.size(), from + CANDIDATES_PER_QUERY));
+            if (withLists) {
+                for (Object[] row : accountRepository.findMutualFriendsAmong(email, chunk)) {
+                    lists.computeIfAbsent((String) row[0], candidate -> new ArrayList<>()).add((String) row[1]);
+                }
+            } else {
+                for (Object[] row : accountRepository.countMutualFriendsAmong(email, chunk)) {
+                    counts.put((String) row[0], ((Number) row[1]).intValue());
+                }
+            }
+        }
+        List<MutualFriendCount> result = new ArrayList<>(candidates.size());
+        for (String candidate : candidates) {
+            if (withLists) {
+                List<String> friends = lists.getOrDefault(candidate, new ArrayList<>());
+                result.add(new MutualFriendCount(candidate, friends.size(), friends));
+            } else {
+                result.add(new MutualFriendCount(candidate, counts.getOrDefault(candidate, 0), null));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<FriendSuggestion> getFriendSuggestionsOf(String email, int limit) {
+        // each row is (candidate email, mutual friends), already ranked and cut by the database
+        List<Object[]> rows = accountRepository.findFriendSuggestions(email, new PageRequest(0, limit));
+        List<FriendSuggestion> suggestions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            suggestions.add(new FriendSuggestion((String) row[0], ((Number) row[1]).intValue()));
+        }
+        return suggestions;
+    }
+
+    @Override
+    public List<String> getConnectionPathOf(String fromEmail, String toEmail, int maxDepth, int nodeBudget,
+                                            boolean honourBlocks) {
+        Optional<Long> fromId = accountRepository.findIdByEmail(fromEmail);
+        Optional<Long> toId = accountRepository.findIdByEmail(toEmail);
+        if (!fromId.isPresent() || !toId.isPresent()) return new ArrayList<>();
+        if (fromId.get().equals(toId.get())) return new ArrayList<>(Collections.singletonList(fromEmail));
+
+        // each side maps the Accounts it reached to the one it reached them from, and grows by one query per level
+        Map<Long, Long> forward = new HashMap<>();
+        Map<Long, Long> backward = new HashMap<>();
+        forward.put(fromId.get(), null);
+        backward.put(toId.get(), null);
+        List<Long> forwardFrontier = Collections.singletonList(fromId.get());
+        List<Long> backwardFrontier = Collections.singletonList(toId.get());
+        for (int depth = 0; depth < maxDepth; depth++) {
+            boolean growForward = forwardFrontier.size() <= backwardFrontier.size();
+            Map<Long, Long> reached = growForward ? forward : backward;
+            Map<Long, Long> otherSide = growForward ? backward : forward;
+            Set<AccountPair> friendships = relationshipRepository
+                    .findFriendshipsOf(growForward ? forwardFrontier : backwardFrontier);
+            if (honourBlocks) removeBlocked(friendships);
+            List<Long> next = new ArrayList<>();
+            for (AccountPair friendship : friendships) {
+                long friend = friendship.getSecondId();
+                if (reached.containsKey(friend)) continue;
+                reached.put(friend, friendship.getFirstId());
+                if (otherSide.containsKey(friend)) return toEmails(pathThrough(friend, forward, backward));
+                if (forward.size() + backward.size() > nodeBudget) return new ArrayList<>();
+                next.add(friend);
+            }
+            if (next.isEmpty()) break;
+            if (growForward) forwardFrontier = next;
+            else backwardFrontier = next;
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<String> getBroadcastRecipientsOf(String senderEmail) {
+        // the set operations already removed the duplicates
+        return relationshipRepository.findBroadcastRecipients(senderEmail);
+    }
+
+    @Override
+    public Set<String> getBlockersAmong(String email, Collection<String> candidates) {
+        if (candidates.isEmpty()) return new HashSet<>();
+        return new HashSet<>(accountRepository.findBlockersAmong(email, candidates));
+    }
+
+    // drops the friendships between Accounts where one blocked the other
+    private void removeBlocked(Set<AccountPair> friendships) {
+        if (friendships.isEmpty()) return;
+        Set<Long> accountIds = new HashSet<>();
+        Set<Long> friendIds = new HashSet<>();
+        for (AccountPair friendship : friendships) {
+            accountIds.add(friendship.getFirstId());
+            friendIds.add(friendship.getSecondId());
+        }
+        friendships.removeAll(relationshipRepository.findBlocks(accountIds, friendIds));
+        for (AccountPair block : relationshipRepository.findBlocks(friendIds, accountIds)) {
+            friendships.remove(block.reversed());
+        }
+    }
+
+    private static List<Long> pathThrough(long meeting, Map<Long, Long> forward, Map<Long, Long> backward) {
+        LinkedList<Long> path = new LinkedList<>();
+        for (Long id = meeting; id != null; id = forward.get(id)) {
+            path.addFirst(id);
+        }
+        for (Long id = backward.get(meeting); id != null; id = backward.get(id)) {
+            path.addLast(id);
+        }
+        return path;
+    }
+
+    private List<String> toEmails(List<Long> ids) {
+        Map<Long, String> emails = relationshipRepository.findEmailsById(ids);
+        List<String> path = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            path.add(emails.get(id));
+        }
+        return path;
+    }
+}
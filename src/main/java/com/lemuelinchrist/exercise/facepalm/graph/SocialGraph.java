@@ -0,0 +1,133 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A Social Graph engine answers the read side of the user stories (friends, common friends, broadcast recipients) and
+ * is kept in step with the database by the AccountService whenever an Account or a relationship is created.
+ * <p>
+ * The engine is selected through the <code>facepalm.graph.engine</code> property. <code>memory</code> (the default)
+ * serves all reads from primitive adjacency arrays, while <code>repository</code> forwards every read to the
+ * JPQL queries of the AccountRepository.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public interface SocialGraph {
+
+    /**
+     * Registers a newly created Account.
+     *
+     * @param email     the unique email of the Account
+     * @param accountId the database id of the Account
+     */
+    void addAccount(String email, long accountId);
+
+    /**
+     * Records a (mutual) friend connection between two Accounts.
+     */
+    void addFriendship(String firstEmail, String secondEmail);
+
+    /**
+     * Records that the requestor subscribed to the updates of the target.
+     */
+    void addSubscription(String requestorEmail, String targetEmail);
+
+    /**
+     * Records that the requestor blocked the target.
+     */
+    void addBlock(String requestorEmail, String targetEmail);
+
+    /**
+     * Hands every subscription to the consumer as a (target, subscriber) pair of database ids, including those that
+     * are only in the write-ahead log of the graph so far. Used to load the EdgeIndex on startup.
+     */
+    void forEachSubscription(RelationshipRepository.PairConsumer consumer);
+
+    /**
+     * Hands every block to the consumer as a (blocker, blocked) pair of database ids, including those that are only
+     * in the write-ahead log of the graph so far. Used to load the EdgeIndex on startup.
+     */
+    void forEachBlock(RelationshipRepository.PairConsumer consumer);
+
+    /**
+     * Waits until the writes recorded so far are durable. Only needed when the writes are acknowledged from the
+     * write-ahead log of the graph rather than from the database (<code>facepalm.write.durability=wal</code>).
+     *
+     * @throws java.io.UncheckedIOException if the log failed to make them durable
+     */
+    void sync();
+
+    /**
+     * @param email email of an existing Account
+     * @return the emails of all friends of the Account
+     */
+    List<String> getFriendsOf(String email);
+
+    /**
+     * Keyset pagination over the friend list of an Account. Friends are returned in the order of their database ids
+     * and the cursor is the id of the last one, so following the cursors visits every friend that existed when the
+     * first page was read exactly once, whichever engine serves each page.
+     *
+     * @param email       email of an existing Account
+     * @param afterCursor the cursor returned with the previous page, or null for the first page. Not negative.
+     * @param limit       maximum number of friends in the page
+     * @return a page of friend emails and the cursor of the next page
+     */
+    FriendPage getFriendsOf(String email, Long afterCursor, int limit);
+
+    /**
+     * @return the emails of the friends that both Accounts have in common
+     */
+    List<String> getCommonFriendsOf(String firstEmail, String secondEmail);
+
+    /**
+     * Counts the mutual friends of one Account with each of many candidates in one call.
+     *
+     * @param email      email of an existing Account
+     * @param candidates emails of the candidates; a candidate without an Account has no mutual friends
+     * @param withLists  if true, the emails of the mutual friends are returned along with their number
+     * @return one count per candidate, in the order of the candidates
+     */
+    List<MutualFriendCount> getMutualFriendCountsOf(String email, List<String> candidates, boolean withLists);
+
+    /**
+     * People you may know: the friends of the friends of an Account, ranked by the number of friends they have in
+     * common with it. Its own friends, the Accounts it blocked and the Accounts that blocked it are never suggested.
+     *
+     * @param email email of an existing Account
+     * @param limit maximum number of suggestions
+     * @return the suggestions, most mutual friends first
+     */
+    List<FriendSuggestion> getFriendSuggestionsOf(String email, int limit);
+
+    /**
+     * Degrees of separation: a shortest chain of friendships between two Accounts.
+     *
+     * @param maxDepth     the maximum number of friendships in the path
+     * @param nodeBudget   the maximum number of Accounts the search may visit before giving up
+     * @param honourBlocks if true, a friendship is not followed when one of its Accounts blocked the other
+     * @return the emails of the path, from the first Account to the second, both included. Empty if the Accounts are
+     * not connected within the depth, or if the budget ran out first.
+     */
+    List<String> getConnectionPathOf(String fromEmail, String toEmail, int maxDepth, int nodeBudget,
+                                     boolean honourBlocks);
+
+    /**
+     * @param senderEmail the broadcaster
+     * @return the emails of friends and subscribers of the sender, minus the Accounts that blocked the sender. The
+     * list is a new one that the caller may modify.
+     */
+    List<String> getBroadcastRecipientsOf(String senderEmail);
+
+    /**
+     * @param email      email of an existing Account
+     * @param candidates emails of existing Accounts
+     * @return the candidates that blocked the Account
+     */
+    Set<String> getBlockersAmong(String email, Collection<String> candidates);
+}
@@ -0,0 +1,162 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers the subscription and block checks of the relationship writes from memory, with either graph engine. Every
+ * subscription and every block is kept in an {@link EdgeSet} as a pair of database ids, so a check is a hash lookup
+ * that costs no statement and takes no lock.
+ * <p>
+ * The sets are read from the SocialGraph on startup, which includes the edges only in its write-ahead log so far, and
+ * the AccountService adds every edge it writes. Ids that don't fit in a packed pair are checked in the database.
+ * <p>
+ * The sets only see the writes of this instance. When several instances write to the same database,
+ * <code>facepalm.edge-index.enabled=false</code> sends every check to the database instead, which the write-ahead log
+ * doesn't allow since its edges reach the database later.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class EdgeIndex {
+    private static final Logger log = LoggerFactory.getLogger(EdgeIndex.class);
+
+    private final SocialGraph socialGraph;
+    private final RelationshipRepository relationshipRepository;
+    // (target, subscriber) and (blocker, blocked) pairs, both null when the index is disabled
+    private final EdgeSet subscriptions;
+    private final EdgeSet blocks;
+
+    @Autowired
+    public EdgeIndex(SocialGraph socialGraph, RelationshipRepository relationshipRepository,
+                     @Value("${facepalm.edge-index.enabled:true}") boolean enabled,
+                     @Value("${facepalm.edge-index.expected-edges:100000}") int expectedEdges,
+                     @Value("${facepalm.write.durability:database}") String durability) {
+        if (!enabled && "wal".equalsIgnoreCase(durability)) {
+            throw new IllegalArgumentException("facepalm.write.durability=wal needs facepalm.edge-index.enabled");
+        }
+        this.socialGraph = socialGraph;
+        this.relationshipRepository = relationshipRepository;
+        this.subscriptions = enabled ? new EdgeSet(expectedEdges) : null;
+        this.blocks = enabled ? new EdgeSet(expectedEdges) : null;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (blocks == null) return;
+        long start = System.nanoTime();
+        socialGraph.forEachSubscription((targetId, subscriberId) -> add(subscriptions, targetId, subscriberId));
+        socialGraph.forEachBlock((blockerId, blockedId) -> add(blocks, blockerId, blockedId));
+        log.info("Loaded edge index with {} subscriptions and {} blocks in {} ms", subscriptions.size(), blocks.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * @return true if the subscriber is subscribed to the target
+     */
+    public boolean hasSubscription(long targetId, long subscriberId) {
+        if (subscriptions != null && EdgeSet.fits(targetId, subscriberId)) {
+            return subscriptions.contains(targetId, subscriberId);
+        }
+        return relationshipRepository.hasSubscription(targetId, subscriberId);
+    }
+
+    /**
+     * @return true if the blocker blocked the other Account
+     */
+    public boolean hasBlock(long blockerId, long blockedId) {
+        if (blocks != null && EdgeSet.fits(blockerId, blockedId)) return blocks.contains(blockerId, blockedId);
+        return relationshipRepository.hasBlock(blockerId, blockedId);
+    }
+
+    /**
+     * @return true if either Account blocked the other
+     */
+    public boolean hasBlockBetween(long firstId, long secondId) {
+        if (blocks != null && EdgeSet.fits(firstId, secondId)) {
+            return blocks.contains(firstId, secondId) || blocks.contains(secondId, firstId);
+        }
+        return relationshipRepository.hasBlockBetween(firstId, secondId);
+    }
+
+    /**
+     * @param pairs (target, subscriber) pairs of ids
+     * @return the subscriptions among the pairs. Without the index, every subscription between the Accounts of the
+     * pairs is returned.
+     */
+    public Set<AccountPair> findSubscriptions(Collection<AccountPair> pairs) {
+        if (subscriptions == null) {
+            Set<Long> ids = idsOf(pairs);
+            return relationshipRepository.findSubscriptions(ids, ids);
+        }
+        Set<AccountPair> found = new HashSet<>();
+        for (AccountPair pair : pairs) {
+            if (hasSubscription(pair.getFirstId(), pair.getSecondId())) found.add(pair);
+        }
+        return found;
+    }
+
+    /**
+     * @param pairs pairs of ids, in any order
+     * @return the blocks between the Accounts of each pair in either direction, as (blocker, blocked) pairs. Without
+     * the index, every block between the Accounts of the pairs is returned.
+     */
+    public Set<AccountPair> findBlocksBetween(Collection<AccountPair> pairs) {
+        if (blocks == null) {
+            Set<Long> ids = idsOf(pairs);
+            return relationshipRepository.findBlocks(ids, ids);
+        }
+        Set<AccountPair> found = new HashSet<>();
+        for (AccountPair pair : pairs) {
+            if (hasBlock(pair.getFirstId(), pair.getSecondId())) found.add(pair);
+            if (hasBlock(pair.getSecondId(), pair.getFirstId())) found.add(pair.reversed());
+        }
+        return found;
+    }
+
+    /**
+     * Records subscriptions written by this instance, as (target, subscriber) pairs of ids.
+     */
+    public void subscriptionsAdded(Collection<AccountPair> pairs) {
+        if (subscriptions == null) return;
+        for (AccountPair pair : pairs) {
+            add(subscriptions, pair.getFirstId(), pair.getSecondId());
+        }
+    }
+
+    /**
+     * Records blocks written by this instance, as (blocker, blocked) pairs of ids.
+     */
+    public void blocksAdded(Collection<AccountPair> pairs) {
+        if (blocks == null) return;
+        for (AccountPair pair : pairs) {
+            add(blocks, pair.getFirstId(), pair.getSecondId());
+        }
+    }
+
+    private static void add(EdgeSet edges, long firstId, long secondId) {
+        if (EdgeSet.fits(firstId, secondId)) edges.add(firstId, secondId);
+    }
+
+    private static Set<Long> idsOf(Collection<AccountPair> pairs) {
+        Set<Long> ids = new HashSet<>();
+        for (AccountPair pair : pairs) {
+            ids.add(pair.getFirstId());
+            ids.add(pair.getSecondId());
+        }
+        return ids;
+    }
+}
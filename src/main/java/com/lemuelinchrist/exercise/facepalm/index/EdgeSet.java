@@ -0,0 +1,178 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * The pairs of one edge table, kept in memory by the {@link EdgeIndex} so that checking whether a pair exists costs
+ * neither a statement nor a search of an adjacency list. Each pair is packed into a single long, its first id in the
+ * high half and its second id in the low half, and stored in an open addressing table with linear probing.
+ * <p>
+ * A Bloom filter of about ten bits per pair sits in front of the table. Most checks are for pairs that don't exist,
+ * such as the blocks between two Accounts about to become friends, and the filter answers those from a bit array
+ * several times smaller than the table, without probing it. A pair the filter lets through is looked up in the table.
+ * <p>
+ * Lookups take no lock: the table and the filter are atomic arrays replaced as a whole when they grow. Additions are
+ * serialized on the set. A pair is added to the filter before the table and the filter is rebuilt before it fills, so
+ * a pair whose {@link #add(long, long)} returned is never reported missing. Pairs are never removed, as relationships
+ * are never deleted.
+ * <p>
+ * Only ids between 1 and 2<sup>32</sup> - 2 fit in a packed pair; callers check {@link #fits(long, long)} and look
+ * up the other pairs elsewhere.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+final class EdgeSet {
+    // can't be a packed pair, since the first id of a pair is never 0
+    private static final long EMPTY = 0L;
+    private static final long MAX_ID = 0xfffffffeL;
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table;
+    private volatile BloomFilter filter;
+    // guarded by this
+    private int size;
+
+    EdgeSet(int expectedPairs) {
+        int pairs = Math.max(1, expectedPairs);
+        table = new Table(tableCapacity(pairs));
+        filter = new BloomFilter(pairs);
+    }
+
+    static boolean fits(long firstId, long secondId) {
+        return firstId > 0 && firstId <= MAX_ID && secondId > 0 && secondId <= MAX_ID;
+    }
+
+    static long pack(long firstId, long secondId) {
+        return firstId << 32 | secondId;
+    }
+
+    /**
+     * @return true if the pair is in the set. The ids must {@link #fits(long, long) fit}.
+     */
+    boolean contains(long firstId, long secondId) {
+        long pair = pack(firstId, secondId);
+        return filter.mightContain(pair) && table.contains(pair);
+    }
+
+    /**
+     * @return true if the pair was not in the set yet. The ids must {@link #fits(long, long) fit}.
+     */
+    synchronized boolean add(long firstId, long secondId) {
+        long pair = pack(firstId, secondId);
+        if (table.contains(pair)) return false;
+        if (size + 1 > filter.capacity) {
+            // the new filter holds every pair before it replaces the old one
+            BloomFilter grown = new BloomFilter((long) (size + 1) * 2);
+            table.forEach(grown::add);
+            filter = grown;
+        }
+        filter.add(pair);
+        if ((size + 1) * 2L > table.slots.length()) {
+            Table grown = new Table(tableCapacity(size + 1));
+            table.forEach(grown::insert);
+            table = grown;
+        }
+        table.insert(pair);
+        size++;
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // a power of two at least four times the number of pairs, so the table is at most half full after it grows
+    private static int tableCapacity(int pairs) {
+        long capacity = Long.highestOneBit(Math.max(MIN_CAPACITY, (long) pairs * 4) - 1) << 1;
+        if (capacity > 1 << 30) throw new IllegalStateException("Too many pairs for an edge set: " + pairs);
+        return (int) capacity;
+    }
+
+    // finalizer of MurmurHash3, spreads the ids over every bit of the hash
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ value >>> 33;
+    }
+
+    private static final class Table {
+        private final AtomicLongArray slots;
+        private final int mask;
+
+        Table(int capacity) {
+            slots = new AtomicLongArray(capacity);
+            mask = capacity - 1;
+        }
+
+        boolean contains(long pair) {
+            for (int slot = (int) mix(pair) & mask; ; slot = (slot + 1) & mask) {
+                long value = slots.get(slot);
+                if (value == pair) return true;
+                if (value == EMPTY) return false;
+            }
+        }
+
+        // must only be called with a pair missing from a table with an empty slot left
+        void insert(long pair) {
+            int slot = (int) mix(pair) & mask;
+            while (slots.get(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, pair);
+        }
+
+        void forEach(LongConsumer consumer) {
+            for (int slot = 0; slot < slots.length(); slot++) {
+                long value = slots.get(slot);
+                if (value != EMPTY) consumer.accept(value);
+            }
+        }
+    }
+
+    // seven probes over a power of two of at least ten bits per pair keep false positives around one percent
+    private static final class BloomFilter {
+        private static final int BITS_PER_PAIR = 10;
+        private static final int PROBES = 7;
+        // 128 MB, enough for a hundred million pairs
+        private static final long MAX_BITS = 1L << 30;
+        // a seed of its own, so the bits probed don't follow the slot of the pair in the table
+        private static final long SEED = 0x9e3779b97f4a7c15L;
+
+        private final AtomicLongArray words;
+        private final long bitMask;
+        private final long capacity;
+
+        BloomFilter(long capacity) {
+            long bits = Math.min(MAX_BITS, Long.highestOneBit(Math.max(64L, capacity * BITS_PER_PAIR) - 1) << 1);
+            this.words = new AtomicLongArray((int) (bits >>> 6));
+            this.bitMask = bits - 1;
+            // past the largest filter, pairs are still added but false positives become more frequent
+            this.capacity = bits == MAX_BITS ? Long.MAX_VALUE : capacity;
+        }
+
+        boolean mightContain(long pair) {
+            long hash = mix(pair ^ SEED);
+            long step = hash >>> 32 | 1;
+            for (int probe = 0; probe < PROBES; probe++, hash += step) {
+                long bit = hash & bitMask;
+                if ((words.get((int) (bit >>> 6)) & 1L << bit) == 0) return false;
+            }
+            return true;
+        }
+
+        void add(long pair) {
+            long hash = mix(pair ^ SEED);
+            long step = hash >>> 32 | 1;
+            for (int probe = 0; probe < PROBES; probe++, hash += step) {
+                long bit = hash & bitMask;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((words.get(word) & mask) == 0) words.getAndAccumulate(word, mask, (a, b) -> a | b);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-process index from the email of an Account to its id, so existence checks and id resolution don't need to query
+ * the database or hydrate an Account. Implementations are safe for concurrent use.
+ * <p>
+ * The memory engine looks emails up in its graph. With the repository engine, the storage is selected through the
+ * <code>facepalm.email-index.storage</code> property: <code>heap</code> (the default) keeps the emails in a
+ * ConcurrentHashMap, while <code>off-heap</code> keeps them in direct memory so that hundreds of millions of emails
+ * don't weigh on the garbage collector.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public interface EmailIndex {
+    long NOT_FOUND = -1;
+
+    /**
+     * @param email the email to look up
+     * @return the id of the Account with the given email, or {@link #NOT_FOUND}
+     */
+    long idOf(String email);
+
+    /**
+     * Maps an email to the id of its Account, replacing any previous id.
+     */
+    void put(String email, long id);
+
+    /**
+     * @return the number of indexed emails
+     */
+    long size();
+
+    /**
+     * Resolves the ids of many emails, loading the ones that are not indexed yet (eg. Accounts created by another
+     * instance) with a single call to the loader and indexing them.
+     *
+     * @param emails the emails to resolve
+     * @param loader finds the ids of the emails it is given, leaving out the ones without an Account
+     * @return the ids of the emails. Emails without an Account are absent from the returned map.
+     */
+    default Map<String, Long> idsOf(Collection<String> emails, Function<List<String>, Map<String, Long>> loader) {
+        Map<String, Long> ids = new HashMap<>(emails.size() * 2);
+        List<String> notIndexed = new ArrayList<>();
+        for (String email : emails) {
+            long id = idOf(email);
+            if (id != NOT_FOUND) {
+                ids.put(email, id);
+            } else {
+                notIndexed.add(email);
+            }
+        }
+        if (!notIndexed.isEmpty()) {
+            Map<String, Long> storedIds = loader.apply(notIndexed);
+            storedIds.forEach(this::put);
+            ids.putAll(storedIds);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,54 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import com.lemuelinchrist.exercise.facepalm.graph.InMemorySocialGraph;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the {@link EmailIndex} of the graph engine in use.
+ * <p>
+ * The memory engine interns every email already, so its index is the {@link GraphEmailIndex} over the graph. With the
+ * repository engine the index is the one selected by <code>facepalm.email-index.storage</code>, filled with every
+ * Account of the database on startup.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Configuration
+public class EmailIndexConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(EmailIndexConfiguration.class);
+
+    @Bean
+    @ConditionalOnProperty(prefix = "facepalm.graph", name = "engine", havingValue = "memory", matchIfMissing = true)
+    public EmailIndex graphEmailIndex(InMemorySocialGraph socialGraph,
+                                      @Value("${facepalm.email-index.storage:heap}") String storage) {
+        if (!"heap".equals(storage)) {
+            throw new IllegalArgumentException(
+                    "facepalm.email-index.storage=" + storage + " needs facepalm.graph.engine=repository");
+        }
+        return new GraphEmailIndex(socialGraph);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "facepalm.graph", name = "engine", havingValue = "repository")
+    public EmailIndex emailIndex(RelationshipRepository relationshipRepository,
+                                 @Value("${facepalm.email-index.storage:heap}") String storage,
+                                 @Value("${facepalm.email-index.expected-size:100000}") long expectedSize) {
+        EmailIndex emailIndex;
+        if ("off-heap".equals(storage)) {
+            emailIndex = new OffHeapEmailIndex(expectedSize);
+        } else if ("heap".equals(storage)) {
+            emailIndex = new HeapEmailIndex((int) Math.min(Integer.MAX_VALUE, expectedSize));
+        } else {
+            throw new IllegalArgumentException("Unknown email index storage: " + storage);
+        }
+        relationshipRepository.forEachAccount(emailIndex::put);
+        log.info("Loaded {} email index with {} emails", storage, emailIndex.size());
+        return emailIndex;
+    }
+}
@@ -0,0 +1,33 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import com.lemuelinchrist.exercise.facepalm.graph.InMemorySocialGraph;
+
+/**
+ * Email index of the memory engine, backed by the intern table of the graph so that every email is held once.
+ * Putting an email adds its Account to the graph, or fills in its id if the graph didn't know it yet.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class GraphEmailIndex implements EmailIndex {
+    private final InMemorySocialGraph socialGraph;
+
+    public GraphEmailIndex(InMemorySocialGraph socialGraph) {
+        this.socialGraph = socialGraph;
+    }
+
+    @Override
+    public long idOf(String email) {
+        return socialGraph.accountIdOf(email);
+    }
+
+    @Override
+    public void put(String email, long id) {
+        socialGraph.addAccount(email, id);
+    }
+
+    @Override
+    public long size() {
+        return socialGraph.accounts();
+    }
+}
@@ -0,0 +1,34 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Email index backed by a ConcurrentHashMap. Lookups are lock-free.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class HeapEmailIndex implements EmailIndex {
+    private final ConcurrentMap<String, Long> ids;
+
+    public HeapEmailIndex(int expectedSize) {
+        this.ids = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    @Override
+    public long idOf(String email) {
+        Long id = ids.get(email);
+        return id != null ? id : NOT_FOUND;
+    }
+
+    @Override
+    public void put(String email, long id) {
+        ids.put(email, id);
+    }
+
+    @Override
+    public long size() {
+        return ids.size();
+    }
+}
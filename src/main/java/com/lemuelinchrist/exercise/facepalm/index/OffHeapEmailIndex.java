@@ -0,0 +1,222 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Email index kept in direct memory, sized for hundreds of millions of emails without adding objects to the heap.
+ * <p>
+ * The index is split in {@link #SEGMENTS} segments by the top bits of a 64 bit hash of the UTF-8 email, each one guarded
+ * by its own read-write lock. A segment is an open-addressing hash table with linear probing whose 16 byte slots hold a
+ * reference to the email and the id of its Account. Emails are appended, length-prefixed, to an arena of direct 1 MB
+ * chunks; the reference packs 24 more bits of the hash with the arena position, so most probes that don't match are
+ * rejected without reading the arena.
+ * <p>
+ * Memory use is about 16 / 0.75 bytes per email for the tables plus the length of the email and 2 bytes in the arena,
+ * which needs a large enough <code>-XX:MaxDirectMemorySize</code>.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class OffHeapEmailIndex implements EmailIndex {
+    private static final int SEGMENT_BITS = 6;
+    static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public OffHeapEmailIndex(long expectedSize) {
+        int expectedPerSegment = (int) Math.min(Segment.MAX_CAPACITY / 2, expectedSize / SEGMENTS + 1);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(expectedPerSegment);
+        }
+    }
+
+    @Override
+    public long idOf(String email) {
+        byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(bytes);
+        return segmentOf(hash).get(bytes, hash);
+    }
+
+    @Override
+    public void put(String email, long id) {
+        byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(bytes);
+        segmentOf(hash).put(bytes, hash, id);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    private Segment segmentOf(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    // FNV-1a followed by the MurmurHash3 finalizer, so every bit of the email reaches the segment and slot bits
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte value : bytes) {
+            hash ^= value;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * One hash table of the index with its arena of emails.
+     */
+    private static final class Segment {
+        // keeps slot offsets within the int range of a ByteBuffer
+        static final int MAX_CAPACITY = 1 << 26;
+        private static final int SLOT_BYTES = 16;
+        private static final int POSITION_BITS = 40;
+        private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+        private static final long FRAGMENT_MASK = (1L << (64 - POSITION_BITS)) - 1;
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final EmailArena arena = new EmailArena();
+        private ByteBuffer slots;
+        private int capacity;
+        private volatile int size;
+
+        Segment(int expectedSize) {
+            capacity = Math.min(MAX_CAPACITY, Math.max(16, Integer.highestOneBit(expectedSize * 4 / 3 + 1) << 1));
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        }
+
+        long get(byte[] email, long hash) {
+            lock.readLock().lock();
+            try {
+                int slot = find(slots, capacity, email, hash);
+                long reference = slots.getLong(slot * SLOT_BYTES);
+                return reference != 0 ? slots.getLong(slot * SLOT_BYTES + 8) : NOT_FOUND;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(byte[] email, long hash, long id) {
+            lock.writeLock().lock();
+            try {
+                int slot = find(slots, capacity, email, hash);
+                if (slots.getLong(slot * SLOT_BYTES) == 0) {
+                    if (size + 1 > capacity / 4 * 3) {
+                        resize();
+                        slot = find(slots, capacity, email, hash);
+                    }
+                    long position = arena.append(email);
+                    slots.putLong(slot * SLOT_BYTES, reference(hash, position));
+                    size++;
+                }
+                slots.putLong(slot * SLOT_BYTES + 8, id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * @return the slot holding the email, or the empty slot where it belongs
+         */
+        private int find(ByteBuffer table, int tableCapacity, byte[] email, long hash) {
+            int mask = tableCapacity - 1;
+            long fragment = fragmentOf(hash);
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                long reference = table.getLong(slot * SLOT_BYTES);
+                if (reference == 0) return slot;
+                if ((reference >>> POSITION_BITS) == fragment
+                        && arena.matches((reference & POSITION_MASK) - 1, email)) return slot;
+            }
+        }
+
+        private void resize() {
+            if (capacity == MAX_CAPACITY) throw new IllegalStateException("Email index segment is full");
+            int newCapacity = capacity << 1;
+            ByteBuffer newSlots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+            int mask = newCapacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                long reference = slots.getLong(slot * SLOT_BYTES);
+                if (reference == 0) continue;
+                // only 24 bits of the hash are kept, so the slot bits are hashed again from the arena
+                long hash = hash(arena.read((reference & POSITION_MASK) - 1));
+                int newSlot = (int) hash & mask;
+                while (newSlots.getLong(newSlot * SLOT_BYTES) != 0) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                newSlots.putLong(newSlot * SLOT_BYTES, reference);
+                newSlots.putLong(newSlot * SLOT_BYTES + 8, slots.getLong(slot * SLOT_BYTES + 8));
+            }
+            slots = newSlots;
+            capacity = newCapacity;
+        }
+
+        // the position is stored plus one, so that a zero reference marks an empty slot
+        private static long reference(long hash, long position) {
+            return (fragmentOf(hash) << POSITION_BITS) | (position + 1);
+        }
+
+        private static long fragmentOf(long hash) {
+            return (hash >>> 32) & FRAGMENT_MASK;
+        }
+    }
+
+    /**
+     * Append-only storage of length-prefixed emails in direct memory chunks. An email never spans two chunks.
+     */
+    private static final class EmailArena {
+        private static final int CHUNK_BITS = 20;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        private static final int MAX_EMAIL_BYTES = 0xFFFF;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        /**
+         * @return the position of the appended email
+         */
+        long append(byte[] email) {
+            if (email.length > MAX_EMAIL_BYTES) throw new IllegalArgumentException("Email is too long to be indexed");
+            ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (chunk == null || chunk.remaining() < email.length + 2) {
+                chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+                chunks.add(chunk);
+            }
+            long position = ((long) (chunks.size() - 1) << CHUNK_BITS) | chunk.position();
+            chunk.putShort((short) email.length).put(email);
+            return position;
+        }
+
+        boolean matches(long position, byte[] email) {
+            ByteBuffer chunk = chunks.get((int) (position >>> CHUNK_BITS));
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            if ((chunk.getShort(offset) & 0xFFFF) != email.length) return false;
+            for (int i = 0; i < email.length; i++) {
+                if (chunk.get(offset + 2 + i) != email[i]) return false;
+            }
+            return true;
+        }
+
+        byte[] read(long position) {
+            ByteBuffer chunk = chunks.get((int) (position >>> CHUNK_BITS));
+            int offset = (int) (position & (CHUNK_SIZE - 1));
+            byte[] email = new byte[chunk.getShort(offset) & 0xFFFF];
+            for (int i = 0; i < email.length; i++) {
+                email[i] = chunk.get(offset + 2 + i);
+            }
+            return email;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Counts every entity that Hibernate hydrates from a result set. Registered through the
+ * <code>hibernate.ejb.interceptor</code> property.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class EntityLoadInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCounters.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,33 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint (<code>/latency</code>) exposing the histograms of {@link LatencyHistograms}: latencies in
+ * microseconds per endpoint and repository method, and SQL statements and entity loads per request.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+@ConfigurationProperties(prefix = "endpoints.latency")
+public class LatencyEndpoint extends AbstractEndpoint<Map<String, Map<String, Object>>> {
+    private final LatencyHistograms latencyHistograms;
+
+    @Autowired
+    public LatencyEndpoint(LatencyHistograms latencyHistograms) {
+        // sensitive like /metrics, operators can open it with endpoints.latency.sensitive=false
+        super("latency", true);
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> invoke() {
+        return latencyHistograms.snapshot();
+    }
+}
@@ -0,0 +1,75 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Named HdrHistograms of the request and query metrics. Values are recorded through HdrHistogram Recorders, which are
+ * wait-free for the recording threads, so recording can stay on in production. The recorded values are moved into an
+ * accumulated histogram only when a snapshot is taken.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class LatencyHistograms {
+    // latencies up to one hour in microseconds, with 3 significant digits
+    private static final long HIGHEST_TRACKABLE_VALUE = 3_600_000_000L;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Records one value in the histogram of the given name, creating the histogram on first use.
+     */
+    public void record(String name, long value) {
+        Metric metric = metrics.get(name);
+        if (metric == null) {
+            metric = metrics.computeIfAbsent(name, key -> new Metric());
+        }
+        metric.recorder.recordValue(Math.min(Math.max(value, 0), HIGHEST_TRACKABLE_VALUE));
+    }
+
+    /**
+     * @return count, mean, max and percentiles of every histogram since startup (or since the last reset), sorted by name
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        metrics.forEach((name, metric) -> snapshot.put(name, metric.summary()));
+        return snapshot;
+    }
+
+    public void reset() {
+        metrics.values().forEach(Metric::reset);
+    }
+
+    private static class Metric {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+        private final Histogram accumulated = new Histogram(HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS);
+        private Histogram interval;
+
+        synchronized Map<String, Object> summary() {
+            interval = recorder.getIntervalHistogram(interval);
+            accumulated.add(interval);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", accumulated.getTotalCount());
+            summary.put("mean", Math.round(accumulated.getMean()));
+            summary.put("p50", accumulated.getValueAtPercentile(50));
+            summary.put("p90", accumulated.getValueAtPercentile(90));
+            summary.put("p99", accumulated.getValueAtPercentile(99));
+            summary.put("p999", accumulated.getValueAtPercentile(99.9));
+            summary.put("max", accumulated.getMaxValue());
+            return summary;
+        }
+
+        synchronized void reset() {
+            interval = recorder.getIntervalHistogram(interval);
+            accumulated.reset();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Declares the {@link LatencyHistograms} and registers the {@link RequestMetricsInterceptor} on every controller. The
+ * Hibernate hooks are registered in application.properties.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Configuration
+public class MetricsConfiguration extends WebMvcConfigurerAdapter {
+
+    @Bean
+    public LatencyHistograms latencyHistograms() {
+        return new LatencyHistograms();
+    }
+
+    @Bean
+    public RequestMetricsInterceptor requestMetricsInterceptor() {
+        return new RequestMetricsInterceptor(latencyHistograms());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor());
+    }
+}
@@ -0,0 +1,46 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+/**
+ * Per-thread counters of the SQL statements and entity loads issued by the current request. They are incremented by
+ * Hibernate (see {@link SqlStatementInspector} and {@link EntityLoadInterceptor}) and by the JDBC repositories, and
+ * read by the request and repository metrics. A plain field of a thread-confined object keeps the cost of an increment
+ * to a ThreadLocal lookup.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class QueryCounters {
+    private static final ThreadLocal<QueryCounters> CURRENT = ThreadLocal.withInitial(QueryCounters::new);
+
+    private long statements;
+    private long entityLoads;
+
+    private QueryCounters() {
+    }
+
+    public static QueryCounters current() {
+        return CURRENT.get();
+    }
+
+    public static void statementIssued() {
+        CURRENT.get().statements++;
+    }
+
+    public static void entityLoaded() {
+        CURRENT.get().entityLoads++;
+    }
+
+    /**
+     * @return SQL statements issued by the current thread so far
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return entities hydrated by the current thread so far
+     */
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+}
@@ -0,0 +1,42 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the duration of every repository method call in microseconds, under
+ * <code>repository.[Repository].[method]</code>. The count of each histogram is the number of calls of the method.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+    private final LatencyHistograms latencyHistograms;
+
+    @Autowired
+    public RepositoryMetricsAspect(LatencyHistograms latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    @Around("execution(* com.lemuelinchrist.exercise.facepalm.model.AccountRepository+.*(..))" +
+            " || execution(public * com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository.*(..))")
+    public Object recordDuration(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long micros = (System.nanoTime() - start) / 1000;
+            // Spring Data repositories are proxies, so they are named after the interface rather than the target class
+            String repository = joinPoint.getThis() instanceof AccountRepository
+                    ? AccountRepository.class.getSimpleName()
+                    : joinPoint.getSignature().getDeclaringType().getSimpleName();
+            latencyHistograms.record("repository." + repository + "." + joinPoint.getSignature().getName(), micros);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records, for every request handled by a controller method, its latency in microseconds and the number of SQL
+ * statements and entity loads it triggered. Histograms are named after the handler, eg.
+ * <code>endpoint.AccountManagementController.befriend</code>, <code>endpoint.AccountManagementController.befriend.statements</code>
+ * and <code>endpoint.AccountManagementController.befriend.entity-loads</code>.
+ * <p>
+ * Asynchronous requests (like the streamed friend list) are dispatched twice; their latency covers both dispatches but
+ * their statements are only counted on the first one.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class RequestMetricsInterceptor extends HandlerInterceptorAdapter {
+    private static final String START = RequestMetricsInterceptor.class.getName() + ".start";
+    private static final String STATEMENTS = RequestMetricsInterceptor.class.getName() + ".statements";
+    private static final String ENTITY_LOADS = RequestMetricsInterceptor.class.getName() + ".entityLoads";
+
+    private final LatencyHistograms latencyHistograms;
+
+    public RequestMetricsInterceptor(LatencyHistograms latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // keep the start of the first dispatch of an asynchronous request
+        if (handler instanceof HandlerMethod && request.getAttribute(START) == null) {
+            QueryCounters counters = QueryCounters.current();
+            request.setAttribute(START, System.nanoTime());
+            request.setAttribute(STATEMENTS, counters.getStatements());
+            request.setAttribute(ENTITY_LOADS, counters.getEntityLoads());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        recordQueries(request, handler);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long start = (Long) request.getAttribute(START);
+        if (start == null) return;
+        recordQueries(request, handler);
+        latencyHistograms.record(nameOf(handler), (System.nanoTime() - start) / 1000);
+    }
+
+    private void recordQueries(HttpServletRequest request, Object handler) {
+        Long statements = (Long) request.getAttribute(STATEMENTS);
+        if (statements == null) return;
+        QueryCounters counters = QueryCounters.current();
+        latencyHistograms.record(nameOf(handler) + ".statements", counters.getStatements() - statements);
+        latencyHistograms.record(nameOf(handler) + ".entity-loads",
+                counters.getEntityLoads() - (Long) request.getAttribute(ENTITY_LOADS));
+        request.removeAttribute(STATEMENTS);
+    }
+
+    private static String nameOf(Object handler) {
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        return "endpoint." + handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+    }
+}
@@ -0,0 +1,62 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Statistics;
+import org.hibernate.cache.ehcache.internal.regions.EhcacheDataRegion;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes the statistics of every region of the Hibernate second-level and query cache on the actuator
+ * <code>/metrics</code> endpoint, as <code>hibernate.cache.&lt;region&gt;.hits</code>, <code>.misses</code>,
+ * <code>.evictions</code> and <code>.size</code>. Nothing is reported when the second-level cache is disabled.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class SecondLevelCacheMetrics implements PublicMetrics {
+    private final SessionFactoryImplementor sessionFactory;
+
+    @Autowired
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        CacheManager cacheManager = cacheManager();
+        if (cacheManager == null) return metrics;
+        for (String name : cacheManager.getCacheNames()) {
+            Ehcache cache = cacheManager.getEhcache(name);
+            if (cache == null) continue;
+            Statistics statistics = cache.getStatistics();
+            String prefix = "hibernate.cache." + name;
+            metrics.add(new Metric<>(prefix + ".hits", statistics.getCacheHits()));
+            metrics.add(new Metric<>(prefix + ".misses", statistics.getCacheMisses()));
+            metrics.add(new Metric<>(prefix + ".evictions", statistics.getEvictionCount()));
+            metrics.add(new Metric<>(prefix + ".size", statistics.getObjectCount()));
+        }
+        return metrics;
+    }
+
+    // the cache manager is private to the region factory, but each region knows it
+    private CacheManager cacheManager() {
+        for (Object region : sessionFactory.getAllSecondLevelCacheRegions().values()) {
+            if (region instanceof EhcacheDataRegion) {
+                return ((EhcacheDataRegion) region).getEhcache().getCacheManager();
+            }
+        }
+        return null;
+    }
+}
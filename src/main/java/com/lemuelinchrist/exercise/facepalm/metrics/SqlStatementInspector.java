@@ -0,0 +1,19 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement that Hibernate prepares. Registered through the
+ * <code>hibernate.session_factory.statement_inspector</code> property.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounters.statementIssued();
+        return sql;
+    }
+}
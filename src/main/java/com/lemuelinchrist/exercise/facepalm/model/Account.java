@@ -1,21 +1,31 @@
 package com.lemuelinchrist.exercise.facepalm.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.validator.constraints.Email;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.persistence.*;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * An Account represents a Facepalm user account that is able to make friends, subscribe to updates, and block updates
  * similar to a Facebook application.
+ * <p>
+ * The relationships of an Account live in the edge tables of Friendship, Subscription and Block rather than in sets
+ * of the Account, so loading an Account never touches them and the queries of AccountRepository join the edges
+ * directly. Accounts are kept in the second-level cache, as they are read far more often than they are written.
+ * <p>
+ * The number of relationships of each kind is kept in counters of the Account, which RelationshipRepository
+ * increments in the transaction that inserts the edges. They are not part of the JSON of an Account, so a request
+ * can't set them.
  *
  * @author Lemuel Cantos
  * @since 29/7/2017
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 public class Account {
     @Id
     @GeneratedValue
@@ -26,22 +36,26 @@ public class Account {
     @Email
     private String email;
 
-    @JsonIgnore //This needs to be excluded during json serialization because it will create an endless recursion
-    @ManyToMany(fetch = FetchType.LAZY)
-    private Set<Account> friends;
+    // accounts inserted with plain JDBC start from the database default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int friendCount;
 
-    @JsonIgnore
-    @ManyToMany(fetch = FetchType.LAZY)
-    private Set<Account> subscribers;
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int subscriberCount;
 
-    @JsonIgnore
-    @ManyToMany(fetch = FetchType.LAZY)
-    private Set<Account> blockedAccounts;
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int subscriptionCount;
 
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int blockedCount;
 
-    @JsonIgnore
-    @ManyToMany(mappedBy = "blockedAccounts", fetch = FetchType.LAZY)
-    private Set<Account> blockers;
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int blockerCount;
 
     public String getEmail() {
         return email;
@@ -59,79 +73,51 @@ public class Account {
         this.id = id;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Account)) return false;
-
-        Account account = (Account) o;
-
-        return email.equals(account.email);
-    }
-
-
-    public void addFriend(Account account) {
-        if (friends == null) {
-            friends = new HashSet<>();
-        }
-        friends.add(account);
-
-    }
-
-    public void addSubscriber(Account account) {
-        if (subscribers == null) {
-            subscribers = new HashSet<>();
-        }
-        subscribers.add(account);
-
-    }
-
-    public void addBlockedAccount(Account account) {
-        if (blockedAccounts == null) {
-            blockedAccounts = new HashSet<>();
-        }
-        blockedAccounts.add(account);
-
-    }
-
-    public void addBlocker(Account account) {
-        if (blockers == null) {
-            blockers = new HashSet<>();
-        }
-        blockers.add(account);
-
-    }
-
-    public Set<Account> getFriends() {
-        return friends;
+    @JsonIgnore
+    public int getFriendCount() {
+        return friendCount;
     }
 
-    public void setFriends(Set<Account> friends) {
-        this.friends = friends;
+    /**
+     * @return the number of Accounts subscribed to the updates of this one
+     */
+    @JsonIgnore
+    public int getSubscriberCount() {
+        return subscriberCount;
     }
 
-    public Set<Account> getSubscribers() {
-        return subscribers;
+    /**
+     * @return the number of Accounts this one is subscribed to
+     */
+    @JsonIgnore
+    public int getSubscriptionCount() {
+        return subscriptionCount;
     }
 
-    public void setSubscribers(Set<Account> subscribers) {
-        this.subscribers = subscribers;
+    /**
+     * @return the number of Accounts this one blocked
+     */
+    @JsonIgnore
+    public int getBlockedCount() {
+        return blockedCount;
     }
 
-    public Set<Account> getBlockedAccounts() {
-        return blockedAccounts;
+    /**
+     * @return the number of Accounts that blocked this one
+     */
+    @JsonIgnore
+    public int getBlockerCount() {
+        return blockerCount;
     }
 
-    public void setBlockedAccounts(Set<Account> blockedAccounts) {
-        this.blockedAccounts = blockedAccounts;
-    }
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Account)) return false;
 
-    public Set<Account> getBlockers() {
-        return blockers;
-    }
+        Account account = (Account) o;
 
-    public void setBlockers(Set<Account> blockers) {
-        this.blockers = blockers;
+        return email.equals(account.email);
     }
 
 }
@@ -0,0 +1,44 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+/**
+ * An ordered pair of Account ids, representing one row of a relationship edge table.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class AccountPair {
+    private final long firstId;
+    private final long secondId;
+
+    public AccountPair(long firstId, long secondId) {
+        this.firstId = firstId;
+        this.secondId = secondId;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public long getSecondId() {
+        return secondId;
+    }
+
+    public AccountPair reversed() {
+        return new AccountPair(secondId, firstId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AccountPair)) return false;
+
+        AccountPair pair = (AccountPair) o;
+
+        return firstId == pair.firstId && secondId == pair.secondId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(firstId) + Long.hashCode(secondId);
+    }
+}
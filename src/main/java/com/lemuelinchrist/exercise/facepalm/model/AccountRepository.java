@@ -1,37 +1,112 @@
 package com.lemuelinchrist.exercise.facepalm.model;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
 /**
+ * The lookups of Accounts and the relationship queries are cached in the query cache regions of
+ * {@link QueryCacheRegions}. The counts that check a graph snapshot against the database are not cached.
+ *
  * @author Lemuel Cantos
  * @since 29/7/2017
  */
 public interface AccountRepository extends JpaRepository<Account, Long> {
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.ACCOUNT_QUERIES)})
     Optional<Account> findByEmail(String email);
 
-    @Query(value = "select f.email from Account a join a.friends f where a.email = ?1")
+    // resolves an email without hydrating the Account
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.ACCOUNT_QUERIES)})
+    @Query(value = "select a.id from Account a where a.email = ?1")
+    Optional<Long> findIdByEmail(String email);
+
+    // the edge queries lead with the key of the given Account, so they are range scans of the edge indexes
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.FRIEND_QUERIES)})
+    @Query(value = "select f.email from Friendship e join e.account a join e.friend f where a.email = ?1")
     Optional<List<String>> findFriendListByEmail(String email);
 
-    @Query(value = "select distinct a.email from Account a where a.email " +
-            "in (select f.email from Account a join a.friends f where a.email = ?1) " +
-            "and a.email in (select f.email from Account a join a.friends f where a.email = ?2)")
+    // each row is (friend id, friend email), ordered by friend id for keyset pagination
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.FRIEND_QUERIES)})
+    @Query(value = "select e.friendId, f.email from Friendship e join e.account a join e.friend f " +
+            "where a.email = ?1 and e.friendId > ?2 order by e.friendId")
+    List<Object[]> findFriendPageByEmail(String email, Long afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.FRIEND_QUERIES)})
+    @Query(value = "select f.email from Friendship first join first.account a join first.friend f, " +
+            "Friendship second join second.account b " +
+            "where a.email = ?1 and b.email = ?2 and second.friendId = first.friendId")
     Optional<List<String>> findCommonFriendsBetweenAccounts(String firstEmail, String secondEmail);
 
-    @Query(value = "select distinct a.email from Account a where " +
-            "(a.email in (select f.email from Account a join a.friends f where a.email = ?1) " +
-            "or a.email in (select s.email from Account a join a.subscribers s where a.email = ?1)) " +
-            "and a.email not in (select b.email from Account a join a.blockers b where a.email =?1)")
+    // each row is (candidate email, mutual friends), for the candidates that have at least one friend in common
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.FRIEND_QUERIES)})
+    @Query(value = "select b.email, count(second) from Friendship first join first.account a, " +
+            "Friendship second join second.account b " +
+            "where a.email = ?1 and b.email in ?2 and second.friendId = first.friendId group by b.email")
+    List<Object[]> countMutualFriendsAmong(String email, Collection<String> candidates);
+
+    // each row is (candidate email, mutual friend email), ordered by mutual friend
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.FRIEND_QUERIES)})
+    @Query(value = "select b.email, f.email from Friendship first join first.account a join first.friend f, " +
+            "Friendship second join second.account b " +
+            "where a.email = ?1 and b.email in ?2 and second.friendId = first.friendId order by first.friendId")
+    List<Object[]> findMutualFriendsAmong(String email, Collection<String> candidates);
+
+    // each row is (candidate email, mutual friends): friends of friends that are not friends and not blocked either way.
+    // Not cached, as it depends on both the friend and the block regions.
+    @Query(value = "select c.email, count(second) from Friendship first join first.account a, " +
+            "Friendship second join second.friend c " +
+            "where a.email = ?1 and second.accountId = first.friendId and second.friendId <> first.accountId " +
+            "and not exists (select x from Friendship x " +
+            "where x.accountId = first.accountId and x.friendId = second.friendId) " +
+            "and not exists (select k from Block k " +
+            "where (k.blockerId = first.accountId and k.blockedId = second.friendId) " +
+            "or (k.blockerId = second.friendId and k.blockedId = first.accountId)) " +
+            "group by second.friendId, c.email order by count(second) desc, second.friendId")
+    List<Object[]> findFriendSuggestions(String email, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.RECIPIENT_QUERIES)})
+    @Query(value = "select r.email from Account r where " +
+            "(r.id in (select e.friendId from Friendship e join e.account a where a.email = ?1) " +
+            "or r.id in (select s.subscriberId from Subscription s join s.target t where t.email = ?1)) " +
+            "and r.id not in (select k.blockerId from Block k join k.blocked d where d.email = ?1)")
     Optional<List<String>> findFriendsAndSubscribersOf(String email);
 
-    Optional<List<Account>> findByBlockedAccountsContaining(Account account);
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.BLOCK_QUERIES)})
+    @Query(value = "select b from Block k join k.blocked d join k.blocker b where d.email = ?1")
+    List<Account> findBlockersOf(String email);
+
+    // the candidates that blocked the Account of the given email
+    @QueryHints({@QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = QueryCacheRegions.BLOCK_QUERIES)})
+    @Query(value = "select b.email from Block k join k.blocked d join k.blocker b where d.email = ?1 and b.email in ?2")
+    List<String> findBlockersAmong(String email, Collection<String> candidates);
+
+    @Query(value = "select count(e) from Friendship e")
+    long countFriendships();
 
-//    @Query(value = "select distinct a.email from Account a where a.email not in (select b.email from Account a join a.blockedAccounts b where a.email = ?1)")
-//    Optional<List<String>> findBlockersOf(String email);
+    @Query(value = "select count(e) from Subscription e")
+    long countSubscriptions();
 
+    @Query(value = "select count(k) from Block k")
+    long countBlocks();
 
 }
@@ -0,0 +1,88 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * A Block is the edge from the Account that blocked to the blocked Account. The table isn't named block, as that is a
+ * reserved word of some databases. The primary key leads with the blocker, and account_block_blocked_idx with the
+ * blocked Account, since the recipients of an update exclude the blockers of its sender.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Entity
+@IdClass(Block.Key.class)
+@Table(name = "account_block",
+        indexes = @Index(name = "account_block_blocked_idx", columnList = "blocked_id, blocker_id"))
+public class Block {
+    @Id
+    @Column(name = "blocker_id")
+    private Long blockerId;
+
+    @Id
+    @Column(name = "blocked_id")
+    private Long blockedId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blocker_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "account_block_blocker_fk"))
+    private Account blocker;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blocked_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "account_block_blocked_fk"))
+    private Account blocked;
+
+    protected Block() {
+    }
+
+    public Block(Long blockerId, Long blockedId) {
+        this.blockerId = blockerId;
+        this.blockedId = blockedId;
+    }
+
+    public Long getBlockerId() {
+        return blockerId;
+    }
+
+    public Long getBlockedId() {
+        return blockedId;
+    }
+
+    public Account getBlocker() {
+        return blocker;
+    }
+
+    public Account getBlocked() {
+        return blocked;
+    }
+
+    public static class Key implements Serializable {
+        private Long blockerId;
+        private Long blockedId;
+
+        public Key() {
+        }
+
+        public Key(Long blockerId, Long blockedId) {
+            this.blockerId = blockerId;
+            this.blockedId = blockedId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+
+            return blockerId.equals(key.blockerId) && blockedId.equals(key.blockedId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * blockerId.hashCode() + blockedId.hashCode();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * A Friendship is one direction of the friendship between two Accounts. Befriending always writes both directions, so
+ * the friends of an Account are a range scan of the primary key (account_id, friend_id).
+ * <p>
+ * The Account associations are read-only and only serve the joins of the JPQL queries: edges are written by id with
+ * RelationshipRepository.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Entity
+@IdClass(Friendship.Key.class)
+@Table(name = "friendship", indexes = @Index(name = "friendship_friend_idx", columnList = "friend_id, account_id"))
+public class Friendship {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Id
+    @Column(name = "friend_id")
+    private Long friendId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "friendship_account_fk"))
+    private Account account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "friend_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "friendship_friend_fk"))
+    private Account friend;
+
+    protected Friendship() {
+    }
+
+    public Friendship(Long accountId, Long friendId) {
+        this.accountId = accountId;
+        this.friendId = friendId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Long getFriendId() {
+        return friendId;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public Account getFriend() {
+        return friend;
+    }
+
+    public static class Key implements Serializable {
+        private Long accountId;
+        private Long friendId;
+
+        public Key() {
+        }
+
+        public Key(Long accountId, Long friendId) {
+            this.accountId = accountId;
+            this.friendId = friendId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+
+            return accountId.equals(key.accountId) && friendId.equals(key.friendId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * accountId.hashCode() + friendId.hashCode();
+        }
+    }
+}
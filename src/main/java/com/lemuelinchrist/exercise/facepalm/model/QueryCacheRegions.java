@@ -0,0 +1,73 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+
+/**
+ * The query cache regions of the AccountRepository queries. Hibernate invalidates cached queries when it writes their
+ * tables itself, but RelationshipRepository writes with plain JDBC, so it evicts the regions of the queries that read
+ * the tables it writes, and the cached Accounts whose relationship counters it updates.
+ * <p>
+ * A region or an Account is evicted as soon as the write is issued and again when its transaction completes, so a
+ * query that ran while the transaction was open doesn't keep its result cached after the commit.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class QueryCacheRegions {
+    public static final String ACCOUNT_QUERIES = "account-queries";
+    public static final String FRIEND_QUERIES = "friend-queries";
+    public static final String BLOCK_QUERIES = "block-queries";
+    public static final String RECIPIENT_QUERIES = "recipient-queries";
+
+    private final Cache cache;
+
+    @Autowired
+    public QueryCacheRegions(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    public void evict(String... regions) {
+        evictNow(regions);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(regions);
+                }
+            });
+        }
+    }
+
+    public void evictAccounts(Collection<Long> accountIds) {
+        evictAccountsNow(accountIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictAccountsNow(accountIds);
+                }
+            });
+        }
+    }
+
+    private void evictAccountsNow(Collection<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            cache.evictEntity(Account.class, accountId);
+        }
+    }
+
+    private void evictNow(String[] regions) {
+        for (String region : regions) {
+            cache.evictQueryRegion(region);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+/**
+ * The native SQL forms of the broadcast recipients query of RelationshipRepository. Each form returns every recipient
+ * once and reads the edge tables by the leading column of their indexes; they only differ in the SQL the database
+ * understands:
+ * <ul>
+ * <li>EXCEPT: the union of friends and subscribers, except the blockers. H2, PostgreSQL, SQL Server and most others.</li>
+ * <li>MINUS: the same set operations, with the keyword of Oracle.</li>
+ * <li>ANTI_JOIN: the union of friends and subscribers, filtered with a <code>not exists</code> lookup of the block.
+ * For MySQL and MariaDB, which don't support EXCEPT.</li>
+ * </ul>
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public enum RecipientQuery {
+    EXCEPT, MINUS, ANTI_JOIN;
+
+    /**
+     * @param name the value of <code>facepalm.recipients.query</code>, eg. <code>anti-join</code>
+     */
+    public static RecipientQuery fromName(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * @param productName the product name reported by the JDBC driver
+     * @return the form that the database supports
+     */
+    public static RecipientQuery forDatabase(String productName) {
+        String product = productName.toLowerCase();
+        if (product.contains("mysql") || product.contains("mariadb")) return ANTI_JOIN;
+        if (product.contains("oracle")) return MINUS;
+        return EXCEPT;
+    }
+}
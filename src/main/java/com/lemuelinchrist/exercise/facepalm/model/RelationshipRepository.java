@@ -0,0 +1,366 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+import com.lemuelinchrist.exercise.facepalm.metrics.QueryCounters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * JDBC access to the account table and the edge tables of Friendship, Subscription and Block. Used by every
+ * relationship write, which checks and inserts edge rows by primary key without loading any entity, and by the bulk
+ * operations, which resolve many emails and insert many rows at once. Inserting edges also increments the
+ * relationship counters of their Accounts, in the same transaction.
+ * <p>
+ * Each pair returned or accepted by this repository follows the column order of its table:
+ * friends are (account, friend), subscribers are (target, subscriber) and blocks are (blocker, blocked).
+ * Every statement is counted in the {@link QueryCounters} of the request, like the ones Hibernate issues.
+ * <p>
+ * The <code>forEach</code> methods stream whole tables row by row, the driver fetching a few thousand rows at a time,
+ * so loading the graph never holds a table in memory.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Repository
+public class RelationshipRepository {
+    // keeps IN lists within the limits of every database we may run on
+    static final int IN_CLAUSE_LIMIT = 1000;
+    // rows fetched per round trip by the streaming reads
+    static final int FETCH_SIZE = 10_000;
+
+    private static final String FRIENDS_TABLE = "friendship";
+    private static final String FRIENDS_COLUMNS = "account_id, friend_id";
+    private static final String SUBSCRIBERS_TABLE = "subscription";
+    private static final String SUBSCRIBERS_COLUMNS = "target_id, subscriber_id";
+    private static final String BLOCKS_TABLE = "account_block";
+    private static final String BLOCKS_COLUMNS = "blocker_id, blocked_id";
+
+    // the sender is resolved once by the database, as the id of an uncorrelated subquery
+    private static final String SENDER_ID = "(select id from account where email = :sender)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final QueryCacheRegions queryCacheRegions;
+    private final RecipientQuery recipientQuery;
+    private final String recipientSql;
+
+    @Autowired
+    public RelationshipRepository(NamedParameterJdbcTemplate jdbcTemplate, QueryCacheRegions queryCacheRegions,
+                                  @Value("${facepalm.recipients.query:auto}") String recipientQuery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryCacheRegions = queryCacheRegions;
+        this.recipientQuery = "auto".equalsIgnoreCase(recipientQuery.trim())
+                ? RecipientQuery.forDatabase(jdbcTemplate.getJdbcOperations().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()))
+                : RecipientQuery.fromName(recipientQuery);
+        this.recipientSql = recipientSql(this.recipientQuery);
+    }
+
+    /**
+     * Resolves the ids of the given emails. Emails without an Account are absent from the returned map.
+     */
+    public Map<String, Long> findIdsByEmail(Collection<String> emails) {
+        Map<String, Long> ids = new HashMap<>(emails.size() * 2);
+        for (List<String> chunk : chunks(new ArrayList<>(emails))) {
+            QueryCounters.statementIssued();
+            jdbcTemplate.query("select id, email from account where email in (:emails)",
+                    new MapSqlParameterSource("emails", chunk),
+                    resultSet -> {
+                        ids.put(resultSet.getString(2), resultSet.getLong(1));
+                    });
+        }
+        return ids;
+    }
+
+    /**
+     * Resolves the emails of the given ids. Ids without an Account are absent from the returned map.
+     */
+    public Map<Long, String> findEmailsById(Collection<Long> ids) {
+        Map<Long, String> emails = new HashMap<>(ids.size() * 2);
+        for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+            QueryCounters.statementIssued();
+            jdbcTemplate.query("select id, email from account where id in (:ids)",
+                    new MapSqlParameterSource("ids", chunk),
+                    resultSet -> {
+                        emails.put(resultSet.getLong(1), resultSet.getString(2));
+                    });
+        }
+        return emails;
+    }
+
+    /**
+     * Streams the email and id of every Account to the consumer, in id order.
+     */
+    public void forEachAccount(ObjLongConsumer<String> consumer) {
+        stream("select id, email from account order by id", resultSet -> {
+            consumer.accept(resultSet.getString(2), resultSet.getLong(1));
+        });
+    }
+
+    /**
+     * Streams every friendship as an (account, friend) pair of ids, ordered by account and then friend.
+     */
+    public void forEachFriendship(PairConsumer consumer) {
+        forEachPair(FRIENDS_TABLE, FRIENDS_COLUMNS, consumer);
+    }
+
+    /**
+     * Streams every subscription as a (target, subscriber) pair of ids, ordered by target and then subscriber.
+     */
+    public void forEachSubscription(PairConsumer consumer) {
+        forEachPair(SUBSCRIBERS_TABLE, SUBSCRIBERS_COLUMNS, consumer);
+    }
+
+    /**
+     * Streams every block as a (blocker, blocked) pair of ids, ordered by blocker and then blocked.
+     */
+    public void forEachBlock(PairConsumer consumer) {
+        forEachPair(BLOCKS_TABLE, BLOCKS_COLUMNS, consumer);
+    }
+
+    /**
+     * Inserts one Account per email with a single JDBC batch. The emails must not exist yet.
+     */
+    @Transactional
+    public void insertAccounts(Collection<String> emails) {
+        if (emails.isEmpty()) return;
+        // the lookups of these emails may be cached as missing
+        queryCacheRegions.evict(QueryCacheRegions.ACCOUNT_QUERIES);
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[emails.size()];
+        int i = 0;
+        for (String email : emails) {
+            batch[i++] = new MapSqlParameterSource("email", email);
+        }
+        QueryCounters.statementIssued();
+        jdbcTemplate.batchUpdate("insert into account (email) values (:email)", batch);
+    }
+
+    /**
+     * USER STORY # 6 in native SQL. Finds the friends and subscribers of the sender that didn't block it, with the
+     * {@link RecipientQuery} form selected by <code>facepalm.recipients.query</code>. Only the emails are read, and
+     * the database removes the duplicates of Accounts that are both friend and subscriber.
+     *
+     * @return the emails of the recipients, in no particular order. Empty if the sender doesn't exist.
+     */
+    public List<String> findBroadcastRecipients(String senderEmail) {
+        QueryCounters.statementIssued();
+        return jdbcTemplate.queryForList(recipientSql, new MapSqlParameterSource("sender", senderEmail), String.class);
+    }
+
+    public RecipientQuery getRecipientQuery() {
+        return recipientQuery;
+    }
+
+    public Set<AccountPair> findFriendships(Collection<Long> accountIds, Collection<Long> friendIds) {
+        return findPairs(FRIENDS_TABLE, FRIENDS_COLUMNS, accountIds, friendIds);
+    }
+
+    public Set<AccountPair> findSubscriptions(Collection<Long> targetIds, Collection<Long> subscriberIds) {
+        return findPairs(SUBSCRIBERS_TABLE, SUBSCRIBERS_COLUMNS, targetIds, subscriberIds);
+    }
+
+    public Set<AccountPair> findBlocks(Collection<Long> blockerIds, Collection<Long> blockedIds) {
+        return findPairs(BLOCKS_TABLE, BLOCKS_COLUMNS, blockerIds, blockedIds);
+    }
+
+    /**
+     * @return every friendship of the given Accounts, as (account, friend) pairs read from the primary key index
+     */
+    public Set<AccountPair> findFriendshipsOf(Collection<Long> accountIds) {
+        Set<AccountPair> pairs = new HashSet<>();
+        String[] columnNames = FRIENDS_COLUMNS.split(", ");
+        String sql = "select " + FRIENDS_COLUMNS + " from " + FRIENDS_TABLE + " where " + columnNames[0] + " in (:ids)";
+        for (List<Long> chunk : chunks(new ArrayList<>(accountIds))) {
+            QueryCounters.statementIssued();
+            jdbcTemplate.query(sql, new MapSqlParameterSource("ids", chunk), resultSet -> {
+                pairs.add(new AccountPair(resultSet.getLong(1), resultSet.getLong(2)));
+            });
+        }
+        return pairs;
+    }
+
+    /**
+     * @return true if the Account has the friend, looked up by the primary key of the edge table
+     */
+    public boolean hasFriendship(long accountId, long friendId) {
+        return countPair(FRIENDS_TABLE, FRIENDS_COLUMNS, accountId, friendId) > 0;
+    }
+
+    /**
+     * @return true if the subscriber is subscribed to the target, looked up by the primary key of the edge table
+     */
+    public boolean hasSubscription(long targetId, long subscriberId) {
+        return countPair(SUBSCRIBERS_TABLE, SUBSCRIBERS_COLUMNS, targetId, subscriberId) > 0;
+    }
+
+    /**
+     * @return true if the blocker blocked the other Account, looked up by the primary key of the edge table
+     */
+    public boolean hasBlock(long blockerId, long blockedId) {
+        return countPair(BLOCKS_TABLE, BLOCKS_COLUMNS, blockerId, blockedId) > 0;
+    }
+
+    /**
+     * @return true if either Account blocked the other. Both directions are looked up by key in a single statement.
+     */
+    public boolean hasBlockBetween(long firstId, long secondId) {
+        String[] columnNames = BLOCKS_COLUMNS.split(", ");
+        String lookup = "(select count(*) from " + BLOCKS_TABLE + " where " + columnNames[0] + " = :%s and "
+                + columnNames[1] + " = :%s)";
+        MapSqlParameterSource parameters = new MapSqlParameterSource("first", firstId).addValue("second", secondId);
+        QueryCounters.statementIssued();
+        Long count = jdbcTemplate.queryForObject("select " + String.format(lookup, "first", "second") + " + "
+                + String.format(lookup, "second", "first"), parameters, Long.class);
+        return count != null && count > 0;
+    }
+
+    @Transactional
+    public void insertFriendships(Collection<AccountPair> pairs) {
+        if (pairs.isEmpty()) return;
+        queryCacheRegions.evict(QueryCacheRegions.FRIEND_QUERIES, QueryCacheRegions.RECIPIENT_QUERIES);
+        insertPairs(FRIENDS_TABLE, FRIENDS_COLUMNS, pairs);
+        // both directions of a friendship are rows of their own, so each row only counts for its first Account
+        incrementCounters("friend_count", pairs, AccountPair::getFirstId);
+    }
+
+    @Transactional
+    public void insertSubscriptions(Collection<AccountPair> pairs) {
+        if (pairs.isEmpty()) return;
+        queryCacheRegions.evict(QueryCacheRegions.RECIPIENT_QUERIES);
+        insertPairs(SUBSCRIBERS_TABLE, SUBSCRIBERS_COLUMNS, pairs);
+        incrementCounters("subscriber_count", pairs, AccountPair::getFirstId);
+        incrementCounters("subscription_count", pairs, AccountPair::getSecondId);
+    }
+
+    @Transactional
+    public void insertBlocks(Collection<AccountPair> pairs) {
+        if (pairs.isEmpty()) return;
+        queryCacheRegions.evict(QueryCacheRegions.BLOCK_QUERIES, QueryCacheRegions.RECIPIENT_QUERIES);
+        insertPairs(BLOCKS_TABLE, BLOCKS_COLUMNS, pairs);
+        incrementCounters("blocked_count", pairs, AccountPair::getFirstId);
+        incrementCounters("blocker_count", pairs, AccountPair::getSecondId);
+    }
+
+    // adds the new edges of each Account to its counter, in the transaction that inserted them
+    private void incrementCounters(String counter, Collection<AccountPair> pairs, ToLongFunction<AccountPair> account) {
+        // Accounts are updated in id order, so concurrent inserts lock their rows in the same order
+        Map<Long, Integer> increments = new TreeMap<>();
+        for (AccountPair pair : pairs) {
+            increments.merge(account.applyAsLong(pair), 1, Integer::sum);
+        }
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[increments.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> increment : increments.entrySet()) {
+            batch[i++] = new MapSqlParameterSource("id", increment.getKey())
+                    .addValue("increment", increment.getValue());
+        }
+        queryCacheRegions.evictAccounts(increments.keySet());
+        QueryCounters.statementIssued();
+        jdbcTemplate.batchUpdate("update account set " + counter + " = " + counter + " + :increment where id = :id",
+                batch);
+    }
+
+    private long countPair(String table, String columns, long firstId, long secondId) {
+        String[] columnNames = columns.split(", ");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("first", firstId).addValue("second", secondId);
+        QueryCounters.statementIssued();
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + table
+                + " where " + columnNames[0] + " = :first and " + columnNames[1] + " = :second", parameters, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static String recipientSql(RecipientQuery recipientQuery) {
+        String[] friends = FRIENDS_COLUMNS.split(", ");
+        String[] subscribers = SUBSCRIBERS_COLUMNS.split(", ");
+        String[] blocks = BLOCKS_COLUMNS.split(", ");
+        String candidates = "select " + friends[1] + " as id from " + FRIENDS_TABLE
+                + " where " + friends[0] + " = " + SENDER_ID
+                + " union select " + subscribers[1] + " from " + SUBSCRIBERS_TABLE
+                + " where " + subscribers[0] + " = " + SENDER_ID;
+        if (recipientQuery == RecipientQuery.ANTI_JOIN) {
+            return "select a.email from (" + candidates + ") r join account a on a.id = r.id"
+                    + " where not exists (select 1 from " + BLOCKS_TABLE + " b"
+                    + " where b." + blocks[0] + " = r.id and b." + blocks[1] + " = " + SENDER_ID + ")";
+        }
+        // union and except bind equally and apply from left to right
+        return "select a.email from (" + candidates + " " + recipientQuery.name().toLowerCase()
+                + " select " + blocks[0] + " from " + BLOCKS_TABLE + " where " + blocks[1] + " = " + SENDER_ID
+                + ") r join account a on a.id = r.id";
+    }
+
+    private Set<AccountPair> findPairs(String table, String columns, Collection<Long> firstIds, Collection<Long> secondIds) {
+        Set<AccountPair> pairs = new HashSet<>();
+        if (firstIds.isEmpty() || secondIds.isEmpty()) return pairs;
+        String[] columnNames = columns.split(", ");
+        String sql = "select " + columns + " from " + table
+                + " where " + columnNames[0] + " in (:first) and " + columnNames[1] + " in (:second)";
+        for (List<Long> firstChunk : chunks(new ArrayList<>(firstIds))) {
+            for (List<Long> secondChunk : chunks(new ArrayList<>(secondIds))) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource("first", firstChunk)
+                        .addValue("second", secondChunk);
+                QueryCounters.statementIssued();
+                jdbcTemplate.query(sql, parameters, resultSet -> {
+                    pairs.add(new AccountPair(resultSet.getLong(1), resultSet.getLong(2)));
+                });
+            }
+        }
+        return pairs;
+    }
+
+    // in primary key order, which the database reads from the index and the graph appends to its sorted lists
+    private void forEachPair(String table, String columns, PairConsumer consumer) {
+        stream("select " + columns + " from " + table + " order by " + columns, resultSet -> {
+            consumer.accept(resultSet.getLong(1), resultSet.getLong(2));
+        });
+    }
+
+    private void stream(String sql, RowCallbackHandler rowHandler) {
+        QueryCounters.statementIssued();
+        jdbcTemplate.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rowHandler);
+    }
+
+    private void insertPairs(String table, String columns, Collection<AccountPair> pairs) {
+        if (pairs.isEmpty()) return;
+        String[] columnNames = columns.split(", ");
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[pairs.size()];
+        int i = 0;
+        for (AccountPair pair : pairs) {
+            batch[i++] = new MapSqlParameterSource(columnNames[0], pair.getFirstId())
+                    .addValue(columnNames[1], pair.getSecondId());
+        }
+        QueryCounters.statementIssued();
+        jdbcTemplate.batchUpdate("insert into " + table + " (" + columns + ") values (:"
+                + columnNames[0] + ", :" + columnNames[1] + ")", batch);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_CLAUSE_LIMIT) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + IN_CLAUSE_LIMIT)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Receives the rows of an edge table, as the ids of each pair in the column order of the table.
+     */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(long firstId, long secondId);
+    }
+}
@@ -0,0 +1,88 @@
+package com.lemuelinchrist.exercise.facepalm.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * A Subscription is the edge from a target Account to one of its subscribers. The primary key leads with the target for
+ * the recipients of its updates, and subscription_subscriber_idx holds the reverse direction for the targets an
+ * Account is subscribed to.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Entity
+@IdClass(Subscription.Key.class)
+@Table(name = "subscription",
+        indexes = @Index(name = "subscription_subscriber_idx", columnList = "subscriber_id, target_id"))
+public class Subscription {
+    @Id
+    @Column(name = "target_id")
+    private Long targetId;
+
+    @Id
+    @Column(name = "subscriber_id")
+    private Long subscriberId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "target_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "subscription_target_fk"))
+    private Account target;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "subscriber_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "subscription_subscriber_fk"))
+    private Account subscriber;
+
+    protected Subscription() {
+    }
+
+    public Subscription(Long targetId, Long subscriberId) {
+        this.targetId = targetId;
+        this.subscriberId = subscriberId;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public Long getSubscriberId() {
+        return subscriberId;
+    }
+
+    public Account getTarget() {
+        return target;
+    }
+
+    public Account getSubscriber() {
+        return subscriber;
+    }
+
+    public static class Key implements Serializable {
+        private Long targetId;
+        private Long subscriberId;
+
+        public Key() {
+        }
+
+        public Key(Long targetId, Long subscriberId) {
+            this.targetId = targetId;
+            this.subscriberId = subscriberId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+
+            return targetId.equals(key.targetId) && subscriberId.equals(key.subscriberId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * targetId.hashCode() + subscriberId.hashCode();
+        }
+    }
+}
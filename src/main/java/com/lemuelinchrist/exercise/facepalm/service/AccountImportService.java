@@ -0,0 +1,238 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.lemuelinchrist.exercise.facepalm.email.EmailScanner;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadyBlockedException;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
+import com.lemuelinchrist.exercise.facepalm.exception.ImportInProgressException;
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.index.EmailIndex;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bulk provisioning of Accounts and their relationships from a newline-delimited JSON stream (see {@link ImportRecord}).
+ * <p>
+ * The stream is consumed line by line and processed in chunks of {@link #CHUNK_SIZE} lines, so memory stays bounded no
+ * matter how large the import is. Emails are deduplicated within a chunk and against the database with one query per
+ * chunk, Accounts are inserted with JDBC batches and the edges go through the batch operations of AccountService.
+ * Accounts of a chunk are written before its edges, so an edge may refer to an Account created earlier in the same
+ * chunk. Emails are validated like the ones of the requests, since the batches bypass the constraints of the entity.
+ * <p>
+ * An Account created through the API between the lookup and the insert of a chunk makes its batch fail on the unique
+ * email. The lookup and the insert are then repeated, and the Accounts created in between count as duplicates. The
+ * inserted Accounts are added to the EmailIndex and the SocialGraph like the ones created through the API.
+ * <p>
+ * Only one import runs at a time, so the progress reported by {@link #getLastImport()} is the one of that import.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class AccountImportService {
+    private static final Logger log = LoggerFactory.getLogger(AccountImportService.class);
+    static final int CHUNK_SIZE = 10_000;
+    // inserts of a chunk that may collide with Accounts created concurrently before the import gives up
+    static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final AccountService accountService;
+    private final RelationshipRepository relationshipRepository;
+    private final SocialGraph socialGraph;
+    private final EmailIndex emailIndex;
+    private final ObjectReader recordReader;
+    private final AtomicBoolean importing = new AtomicBoolean();
+    private volatile ImportProgress lastImport;
+
+    @Autowired
+    public AccountImportService(AccountService accountService, RelationshipRepository relationshipRepository,
+                                SocialGraph socialGraph, EmailIndex emailIndex, ObjectMapper objectMapper) {
+        this.accountService = accountService;
+        this.relationshipRepository = relationshipRepository;
+        this.socialGraph = socialGraph;
+        this.emailIndex = emailIndex;
+        this.recordReader = objectMapper.readerFor(ImportRecord.class);
+    }
+
+    /**
+     * Imports every record of the given NDJSON stream. Lines that cannot be parsed, have malformed emails or refer to
+     * Accounts that don't exist are counted as rejected and skipped; they never abort the import.
+     *
+     * @param inputStream UTF-8 encoded NDJSON, one {@link ImportRecord} per line
+     * @return the final counters of the import
+     * @throws IOException Thrown if the stream cannot be read
+     * @throws ImportInProgressException Thrown if another import is running
+     */
+    public ImportProgress importFrom(InputStream inputStream) throws IOException, ImportInProgressException {
+        if (!importing.compareAndSet(false, true)) throw new ImportInProgressException();
+        try {
+            ImportProgress progress = new ImportProgress();
+            lastImport = progress;
+            return importFrom(inputStream, progress);
+        } finally {
+            importing.set(false);
+        }
+    }
+
+    private ImportProgress importFrom(InputStream inputStream, ImportProgress progress) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Chunk chunk = new Chunk();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) continue;
+            progress.addLines(1);
+            chunk.add(parse(line), progress);
+            if (chunk.size >= CHUNK_SIZE) {
+                write(chunk, progress);
+                chunk = new Chunk();
+            }
+        }
+        write(chunk, progress);
+        progress.finish();
+        log.info("Import finished: {} lines, {} accounts, {} friendships, {} subscriptions, {} blocks, {} duplicates, " +
+                        "{} rejected in {} ms", progress.getLines(), progress.getAccounts(), progress.getFriendships(),
+                progress.getSubscriptions(), progress.getBlocks(), progress.getDuplicates(), progress.getRejected(),
+                progress.getElapsedMillis());
+        return progress;
+    }
+
+    /**
+     * @return the progress of the running import, or the result of the last one. Empty if nothing was imported yet.
+     */
+    public Optional<ImportProgress> getLastImport() {
+        return Optional.ofNullable(lastImport);
+    }
+
+    private ImportRecord parse(String line) {
+        try {
+            return recordReader.readValue(line);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void write(Chunk chunk, ImportProgress progress) {
+        if (chunk.size == 0) return;
+
+        List<String> newAccounts = insertNewAccounts(chunk.accounts);
+        // the batch doesn't return the generated ids
+        Map<String, Long> ids = relationshipRepository.findIdsByEmail(newAccounts);
+        ids.forEach(emailIndex::put);
+        // in insertion order, which is the order of the ids
+        for (String email : newAccounts) {
+            Long id = ids.get(email);
+            if (id != null) socialGraph.addAccount(email, id);
+        }
+        progress.addAccounts(newAccounts.size());
+        progress.addDuplicates(chunk.accounts.size() - newAccounts.size());
+
+        progress.addFriendships(apply(chunk.friendships, accountService::befriendAccounts, progress));
+        progress.addSubscriptions(apply(chunk.subscriptions, accountService::subscribeToUpdates, progress));
+        progress.addBlocks(apply(chunk.blocks, accountService::blockAccounts, progress));
+
+        log.info("Imported {} lines so far ({} accounts, {} friendships, {} subscriptions, {} blocks)",
+                progress.getLines(), progress.getAccounts(), progress.getFriendships(), progress.getSubscriptions(),
+                progress.getBlocks());
+    }
+
+    /**
+     * @return the emails that had no Account and were inserted
+     */
+    private List<String> insertNewAccounts(Set<String> emails) {
+        for (int attempt = 1; ; attempt++) {
+            Map<String, Long> existing = relationshipRepository.findIdsByEmail(emails);
+            List<String> newAccounts = new ArrayList<>(emails.size());
+            for (String email : emails) {
+                if (!existing.containsKey(email)) newAccounts.add(email);
+            }
+            try {
+                relationshipRepository.insertAccounts(newAccounts);
+                return newAccounts;
+            } catch (DuplicateKeyException e) {
+                // the batch was rolled back as a whole, the Accounts created meanwhile are found by the next lookup
+                if (attempt == MAX_INSERT_ATTEMPTS) throw e;
+                log.info("Accounts were created during the import, inserting the chunk again");
+            }
+        }
+    }
+
+    private long apply(List<EmailPair> pairs, Function<List<EmailPair>, List<BatchItemResult>> operation,
+                       ImportProgress progress) {
+        if (pairs.isEmpty()) return 0;
+        long applied = 0;
+        for (BatchItemResult result : operation.apply(pairs)) {
+            if (result.isSuccess()) {
+                applied++;
+            } else if (result.getErrorType() == AlreadySubscribedException.class
+                    || result.getErrorType() == AlreadyBlockedException.class) {
+                progress.addDuplicates(1);
+            } else {
+                progress.addRejected(1);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * The records of one chunk, grouped by type.
+     */
+    private static class Chunk {
+        private final Set<String> accounts = new LinkedHashSet<>();
+        private final List<EmailPair> friendships = new ArrayList<>();
+        private final List<EmailPair> subscriptions = new ArrayList<>();
+        private final List<EmailPair> blocks = new ArrayList<>();
+        private int size;
+
+        void add(ImportRecord record, ImportProgress progress) {
+            size++;
+            if (record == null || record.getType() == null) {
+                progress.addRejected(1);
+                return;
+            }
+            switch (record.getType()) {
+                case ImportRecord.ACCOUNT:
+                    if (!EmailScanner.isValidEmail(record.getEmail())) {
+                        progress.addRejected(1);
+                    } else if (!accounts.add(record.getEmail())) {
+                        progress.addDuplicates(1);
+                    }
+                    break;
+                case ImportRecord.FRIEND:
+                    List<String> friends = record.getFriends();
+                    if (friends == null || friends.size() != 2
+                            || !EmailScanner.isValidEmail(friends.get(0)) || !EmailScanner.isValidEmail(friends.get(1))) {
+                        progress.addRejected(1);
+                    } else {
+                        friendships.add(new EmailPair(friends.get(0), friends.get(1)));
+                    }
+                    break;
+                case ImportRecord.SUBSCRIBE:
+                case ImportRecord.BLOCK:
+                    if (!EmailScanner.isValidEmail(record.getRequestor())
+                            || !EmailScanner.isValidEmail(record.getTarget())) {
+                        progress.addRejected(1);
+                    } else if (ImportRecord.SUBSCRIBE.equals(record.getType())) {
+                        subscriptions.add(new EmailPair(record.getRequestor(), record.getTarget()));
+                    } else {
+                        blocks.add(new EmailPair(record.getRequestor(), record.getTarget()));
+                    }
+                    break;
+                default:
+                    progress.addRejected(1);
+            }
+        }
+    }
+}
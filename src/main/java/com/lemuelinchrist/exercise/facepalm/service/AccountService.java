@@ -1,9 +1,19 @@
 package com.lemuelinchrist.exercise.facepalm.service;
 
+import com.lemuelinchrist.exercise.facepalm.email.EmailScanner;
 import com.lemuelinchrist.exercise.facepalm.exception.*;
+import com.lemuelinchrist.exercise.facepalm.graph.FriendPage;
+import com.lemuelinchrist.exercise.facepalm.graph.FriendSuggestion;
+import com.lemuelinchrist.exercise.facepalm.graph.MutualFriendCount;
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.index.EdgeIndex;
+import com.lemuelinchrist.exercise.facepalm.index.EmailIndex;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
 import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -11,6 +21,21 @@ import java.util.*;
 /**
  * Account Service is the Service bean that handles all kinds of management of Account from CRUD operations to querying.
  * This class also contains all logic for the given user stories of the project.
+ * Writes go to the database first and are then mirrored into the SocialGraph, which serves all the read queries.
+ * Relationship writes insert their edges straight into the edge tables, without loading the Account entities, while
+ * holding the locks of the involved Accounts in the WriteCoordinator.
+ * Emails are checked and resolved to ids through the EmailIndex, falling back to an id-only query for emails that are
+ * not indexed yet (eg. Accounts created by another instance).
+ * Friend lists and broadcast recipients are served from the RelationshipListCache, which every write invalidates
+ * right after mirroring its edges into the SocialGraph.
+ * With <code>facepalm.write.durability=wal</code>, relationship writes are checked against the SocialGraph and only
+ * recorded there: they are acknowledged once its write-ahead log forced them to disk, and the RelationshipWriteBehind
+ * inserts their edges into the database afterwards.
+ * Subscriptions and blocks are checked in the EdgeIndex, which every write adds its edges to, so these checks cost no
+ * statement with either engine. Existing friendships are always checked in the database, except with the write-ahead
+ * log, where the SocialGraph skips them by itself.
+ * The relationship counters of an Account are incremented by the RelationshipRepository in the transaction of every
+ * edge insert, so they count the edges in the database and trail the RelationshipWriteBehind with the write-ahead log.
  *
  * @author Lemuel Cantos
  * @since 29/7/2017
@@ -18,11 +43,32 @@ import java.util.*;
 @Component
 public class AccountService {
 
+    // number of pairs of a batch request that are resolved, checked and inserted together
+    static final int BATCH_CHUNK_SIZE = 500;
+
     private AccountRepository accountRepository;
+    private RelationshipRepository relationshipRepository;
+    private SocialGraph socialGraph;
+    private EmailIndex emailIndex;
+    private EdgeIndex edgeIndex;
+    private WriteCoordinator writeCoordinator;
+    private RelationshipListCache relationshipListCache;
+    // relationships are written to the write-ahead log of the SocialGraph instead of the database
+    private boolean writeAheadLog;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, RelationshipRepository relationshipRepository,
+                          SocialGraph socialGraph, EmailIndex emailIndex, EdgeIndex edgeIndex,
+                          WriteCoordinator writeCoordinator, RelationshipListCache relationshipListCache,
+                          @Value("${facepalm.write.durability:database}") String durability) {
         this.accountRepository = accountRepository;
+        this.relationshipRepository = relationshipRepository;
+        this.socialGraph = socialGraph;
+        this.emailIndex = emailIndex;
+        this.edgeIndex = edgeIndex;
+        this.writeCoordinator = writeCoordinator;
+        this.relationshipListCache = relationshipListCache;
+        this.writeAheadLog = "wal".equalsIgnoreCase(durability);
     }
 
 
@@ -44,34 +90,40 @@ public class AccountService {
      * @throws ExistingEmailException Thrown if the email of the Account object already exists in the database.
      */
     public Long save(Account newAccount) throws ExistingEmailException {
-        if (accountRepository.findByEmail(newAccount.getEmail()).isPresent()) throw new ExistingEmailException();
+        if (findId(newAccount.getEmail()) != null) throw new ExistingEmailException();
         accountRepository.save(newAccount);
+        if (newAccount.getId() != null) {
+            emailIndex.put(newAccount.getEmail(), newAccount.getId());
+            socialGraph.addAccount(newAccount.getEmail(), newAccount.getId());
+        }
         return newAccount.getId();
     }
 
     /**
      * USER STORY #1
-     * This function will create a friend connection between two accounts of the given emails
+     * This function will create a friend connection between two accounts of the given emails. Befriending Accounts
+     * that are already friends succeeds without changes.
      *
      * @param firstEmail The email of the first Account
      * @param secondEmail The email of the second Account
-     * @return returns a list of the two involved accounts with their updated friends field
      * @throws NonExistentAccountException Thrown if Account in the emails don't exist
      * @throws AccountBlockedException Thrown if one Account is blocking the other
      */
-    public List<Account> befriendAccounts(String firstEmail, String secondEmail) throws NonExistentAccountException, AccountBlockedException {
-        Account firstAccount = checkIfEmailExistsAndGetAccount(firstEmail);
-        Account secondAccount = checkIfEmailExistsAndGetAccount(secondEmail);
-        if ((firstAccount.getBlockedAccounts() != null && firstAccount.getBlockedAccounts().contains(secondAccount))
-                || (secondAccount.getBlockedAccounts() != null && secondAccount.getBlockedAccounts().contains(firstAccount))) {
-            throw new AccountBlockedException();
-        }
-        firstAccount.addFriend(secondAccount);
-        secondAccount.addFriend(firstAccount);
-        firstAccount = accountRepository.save(firstAccount);
-        secondAccount = accountRepository.save(secondAccount);
-        return Arrays.asList(firstAccount, secondAccount);
-
+    public void befriendAccounts(String firstEmail, String secondEmail) throws NonExistentAccountException, AccountBlockedException {
+        long firstId = checkIfEmailExistsAndGetId(firstEmail);
+        long secondId = checkIfEmailExistsAndGetId(secondEmail);
+        writeCoordinator.write(firstId, secondId, () -> {
+            if (edgeIndex.hasBlockBetween(firstId, secondId)) throw new AccountBlockedException();
+            if (!writeAheadLog && !relationshipRepository.hasFriendship(firstId, secondId)) {
+                // both directions are always written together, so one of them tells if they are friends already
+                AccountPair friendship = new AccountPair(firstId, secondId);
+                // a set, as befriending oneself is a single row
+                relationshipRepository.insertFriendships(new HashSet<>(Arrays.asList(friendship, friendship.reversed())));
+            }
+            socialGraph.addFriendship(firstEmail, secondEmail);
+            relationshipListCache.friendshipAdded(firstEmail, secondEmail);
+        });
+        if (writeAheadLog) socialGraph.sync();
     }
 
     /**
@@ -84,9 +136,43 @@ public class AccountService {
      * @throws NonExistentAccountException Thrown if the email doesn't exist in the database.
      */
     public List<String> getFriendListByEmail(String email) throws NonExistentAccountException {
-        checkIfEmailExistsAndGetAccount(email);
+        checkIfEmailExists(email);
+
+        return relationshipListCache.getFriendsOf(email, socialGraph::getFriendsOf);
+    }
+
+    /**
+     * USER STORY #2 with pagination.
+     * This function will return one page of the friends of an Account. The cursor of the returned page retrieves the
+     * next one, so the memory used per call is bounded by the limit regardless of the number of friends.
+     *
+     * @param email       The email of the account to be retreived.
+     * @param afterCursor the cursor of the previous page, or null for the first page
+     * @param limit       the maximum number of friends to return
+     * @return a page of friend emails
+     * @throws NonExistentAccountException Thrown if the email doesn't exist in the database.
+     */
+    public FriendPage getFriendPageByEmail(String email, Long afterCursor, int limit) throws NonExistentAccountException {
+        checkIfEmailExists(email);
+
+        return socialGraph.getFriendsOf(email, afterCursor, limit);
+    }
 
-        return accountRepository.findFriendListByEmail(email).orElseGet(ArrayList::new);
+    /**
+     * Relationship counts.
+     * This function will return the Account of the given email with its relationship counters (friends, subscribers,
+     * subscriptions, blocked Accounts and blockers), without loading any of the relationships.
+     *
+     * @param email The email of the Account.
+     * @return returns the Account, usually from the second-level cache.
+     * @throws NonExistentAccountException Thrown if the email doesn't exist in the database.
+     */
+    public Account getRelationshipCountsOf(String email) throws NonExistentAccountException {
+        Long id = findId(email);
+        if (id == null) throw new NonExistentAccountException();
+        Account account = accountRepository.findOne(id);
+        if (account == null) throw new NonExistentAccountException();
+        return account;
     }
 
     /**
@@ -99,10 +185,10 @@ public class AccountService {
      * @throws NonExistentAccountException Thrown if the emails don't exist in the database.
      */
     public List<String> getCommonFriendsBetweenAccounts(String firstEmail, String secondEmail) throws NonExistentAccountException {
-        checkIfEmailExistsAndGetAccount(firstEmail);
-        checkIfEmailExistsAndGetAccount(secondEmail);
+        checkIfEmailExists(firstEmail);
+        checkIfEmailExists(secondEmail);
 
-        return accountRepository.findCommonFriendsBetweenAccounts(firstEmail, secondEmail).orElseGet(ArrayList::new);
+        return socialGraph.getCommonFriendsOf(firstEmail, secondEmail);
     }
 
     /**
@@ -112,22 +198,21 @@ public class AccountService {
      *
      * @param requestorEmail The email of the requesting Account
      * @param targetEmail    The email of the Account to subscribe to
-     * @return the updated target Account
      * @throws NonExistentAccountException Thrown if any of the emails do not exist in the database
      * @throws AlreadySubscribedException  Thrown if the target already has requestor as subscriber
      */
-    public Account subscribeToUpdates(String requestorEmail, String targetEmail) throws NonExistentAccountException, AlreadySubscribedException {
-        Account requestor = checkIfEmailExistsAndGetAccount(requestorEmail);
-        Account target = checkIfEmailExistsAndGetAccount(targetEmail);
-
-        if (target.getSubscribers() != null && target.getSubscribers().contains(requestor)) {
-            throw new AlreadySubscribedException();
-        }
-
-        target.addSubscriber(requestor);
-        accountRepository.save(target);
-
-        return target;
+    public void subscribeToUpdates(String requestorEmail, String targetEmail) throws NonExistentAccountException, AlreadySubscribedException {
+        long requestorId = checkIfEmailExistsAndGetId(requestorEmail);
+        long targetId = checkIfEmailExistsAndGetId(targetEmail);
+        writeCoordinator.write(requestorId, targetId, () -> {
+            if (edgeIndex.hasSubscription(targetId, requestorId)) throw new AlreadySubscribedException();
+            List<AccountPair> subscription = Collections.singletonList(new AccountPair(targetId, requestorId));
+            if (!writeAheadLog) relationshipRepository.insertSubscriptions(subscription);
+            socialGraph.addSubscription(requestorEmail, targetEmail);
+            edgeIndex.subscriptionsAdded(subscription);
+            relationshipListCache.subscriptionAdded(requestorEmail, targetEmail);
+        });
+        if (writeAheadLog) socialGraph.sync();
     }
 
     /**
@@ -138,23 +223,21 @@ public class AccountService {
      *
      * @param requestorEmail email of the account that will block an account
      * @param targetEmail    email of the account to be blocked
-     * @return the updated requestor Account
      * @throws NonExistentAccountException Thrown if any of the emails do not exist in the database
      * @throws AlreadyBlockedException     Thrown if the requestor already has the target as one of its blocked accounts
      */
-    public Account blockAccount(String requestorEmail, String targetEmail) throws NonExistentAccountException, AlreadyBlockedException {
-        Account requestor = checkIfEmailExistsAndGetAccount(requestorEmail);
-        Account target = checkIfEmailExistsAndGetAccount(targetEmail);
-
-        if (requestor.getBlockedAccounts() != null && requestor.getBlockedAccounts().contains(target)) {
-            throw new AlreadyBlockedException();
-        }
-        requestor.addBlockedAccount(target);
-        target.addBlocker(requestor);
-        accountRepository.save(requestor);
-        accountRepository.save(target);
-
-        return requestor;
+    public void blockAccount(String requestorEmail, String targetEmail) throws NonExistentAccountException, AlreadyBlockedException {
+        long requestorId = checkIfEmailExistsAndGetId(requestorEmail);
+        long targetId = checkIfEmailExistsAndGetId(targetEmail);
+        writeCoordinator.write(requestorId, targetId, () -> {
+            if (edgeIndex.hasBlock(requestorId, targetId)) throw new AlreadyBlockedException();
+            List<AccountPair> block = Collections.singletonList(new AccountPair(requestorId, targetId));
+            if (!writeAheadLog) relationshipRepository.insertBlocks(block);
+            socialGraph.addBlock(requestorEmail, targetEmail);
+            edgeIndex.blocksAdded(block);
+            relationshipListCache.blockAdded(requestorEmail, targetEmail);
+        });
+        if (writeAheadLog) socialGraph.sync();
     }
 
     /**
@@ -170,15 +253,313 @@ public class AccountService {
      * @throws NonExistentAccountException throws when the email doesn't exist in the database
      */
     public List<String> getBroadcastRecipientsOf(String senderEmail) throws NonExistentAccountException {
-        Account sender = checkIfEmailExistsAndGetAccount(senderEmail);
-        Set<String> set = new HashSet<>(accountRepository.findFriendsAndSubscribersOf(senderEmail).orElseGet(ArrayList::new));
+        checkIfEmailExists(senderEmail);
+
+        return relationshipListCache.getBroadcastRecipientsOf(senderEmail, socialGraph::getBroadcastRecipientsOf);
+    }
 
-        return new ArrayList<String>(set);
+    /**
+     * USER STORY # 6 with mentions.
+     * This function retrieves the recipients of an update: the eligible broadcast recipients of the sender plus every
+     * Account mentioned in the text of the update. A mention is only added if its Account exists, has not blocked the
+     * sender, is not the sender and is not already a recipient. All mentions are resolved with a single lookup, so
+     * an update mentioning hundreds of Accounts costs one round trip to the database at most.
+     *
+     * @param senderEmail the broadcaster
+     * @param text        the text of the update, may be null
+     * @return the broadcast recipients followed by the mentioned recipients, in order of mention
+     * @throws NonExistentAccountException throws when the sender doesn't exist in the database
+     */
+    public List<String> getUpdateRecipientsOf(String senderEmail, String text) throws NonExistentAccountException {
+        checkIfEmailExists(senderEmail);
+
+        List<String> broadcastRecipients = relationshipListCache.getBroadcastRecipientsOf(senderEmail,
+                socialGraph::getBroadcastRecipientsOf);
+        Set<String> mentions = new LinkedHashSet<>();
+        EmailScanner.scanMentions(text, mentions::add);
+        mentions.remove(senderEmail);
+        if (mentions.isEmpty()) return broadcastRecipients;
+
+        mentions.retainAll(findIds(mentions).keySet());
+        if (!mentions.isEmpty()) mentions.removeAll(socialGraph.getBlockersAmong(senderEmail, mentions));
+        // the mentions are few, so they are removed from their own set rather than hashing every recipient
+        for (int i = 0; i < broadcastRecipients.size() && !mentions.isEmpty(); i++) {
+            mentions.remove(broadcastRecipients.get(i));
+        }
+        if (mentions.isEmpty()) return broadcastRecipients;
+
+        // the cached list is shared, so the mentions are added to a copy
+        List<String> recipients = new ArrayList<>(broadcastRecipients.size() + mentions.size());
+        recipients.addAll(broadcastRecipients);
+        recipients.addAll(mentions);
+        return recipients;
+    }
+
+    /**
+     * Mutual friends in bulk.
+     * This function will count the friends that an Account has in common with each of the candidates, for a list of
+     * profiles that shows the number next to each of them.
+     *
+     * @param email      The email of the Account.
+     * @param candidates The emails of the candidates. Candidates that do not exist have no mutual friends.
+     * @param withLists  If true, the emails of the mutual friends are returned as well.
+     * @return returns one count per candidate, in the same order.
+     * @throws NonExistentAccountException Thrown if the email of the Account doesn't exist in the database.
+     */
+    public List<MutualFriendCount> getMutualFriendCountsOf(String email, List<String> candidates, boolean withLists)
+            throws NonExistentAccountException {
+        checkIfEmailExists(email);
+
+        return socialGraph.getMutualFriendCountsOf(email, candidates, withLists);
+    }
+
+    /**
+     * People you may know.
+     * This function will return the friends of the friends of an Account that it may know, ranked by the number of
+     * friends they have in common with it. Friends and Accounts blocked in either direction are not suggested.
+     *
+     * @param email The email of the Account to suggest friends to.
+     * @param limit The maximum number of suggestions.
+     * @return returns the suggested emails with their number of mutual friends, most mutual friends first.
+     * @throws NonExistentAccountException Thrown if the email doesn't exist in the database.
+     */
+    public List<FriendSuggestion> getFriendSuggestionsOf(String email, int limit) throws NonExistentAccountException {
+        checkIfEmailExists(email);
+
+        return socialGraph.getFriendSuggestionsOf(email, limit);
+    }
+
+    /**
+     * Degrees of separation.
+     * This function will find a shortest chain of friendships from one Account to another.
+     *
+     * @param fromEmail    The email of the Account the path starts from.
+     * @param toEmail      The email of the Account the path leads to.
+     * @param maxDepth     The maximum number of friendships in the path.
+     * @param nodeBudget   The maximum number of Accounts to visit before giving up.
+     * @param honourBlocks If true, friendships between Accounts where one blocked the other are not followed.
+     * @return returns the emails of the path, both Accounts included, or an empty list if none was found.
+     * @throws NonExistentAccountException Thrown if any of the emails do not exist in the database.
+     */
+    public List<String> getConnectionPath(String fromEmail, String toEmail, int maxDepth, int nodeBudget,
+                                          boolean honourBlocks) throws NonExistentAccountException {
+        checkIfEmailExists(fromEmail);
+        checkIfEmailExists(toEmail);
+
+        return socialGraph.getConnectionPathOf(fromEmail, toEmail, maxDepth, nodeBudget, honourBlocks);
+    }
+
+    /**
+     * USER STORY #1 in bulk.
+     * Befriends every pair of emails. Emails of a chunk of pairs are resolved in one query, existing friendships are
+     * checked in one query and blocks in the EdgeIndex, and the new friendships are written with a single JDBC batch
+     * insert.
+     *
+     * @param pairs the pairs of emails to befriend
+     * @return one result per pair, in the same order. A pair fails if one of its Accounts doesn't exist or if one
+     * Account is blocking the other. Befriending existing friends succeeds without changes.
+     */
+    public List<BatchItemResult> befriendAccounts(List<EmailPair> pairs) {
+        List<BatchItemResult> results = new ArrayList<>(pairs.size());
+        for (List<EmailPair> chunk : chunks(pairs)) {
+            Map<String, Long> ids = findIds(emailsOf(chunk));
+            Set<Long> involvedIds = new HashSet<>(ids.values());
+            writeCoordinator.write(involvedIds, () -> {
+                Set<AccountPair> blocks = edgeIndex.findBlocksBetween(pairsOf(chunk, ids, false));
+                // the graph skips existing friendships by itself
+                Set<AccountPair> friendships = writeAheadLog ? new HashSet<>()
+                        : relationshipRepository.findFriendships(involvedIds, involvedIds);
+
+                List<AccountPair> newFriendships = new ArrayList<>();
+                List<EmailPair> applied = new ArrayList<>();
+                for (EmailPair pair : chunk) {
+                    Long firstId = ids.get(pair.getFirst());
+                    Long secondId = ids.get(pair.getSecond());
+                    if (firstId == null || secondId == null) {
+                        results.add(BatchItemResult.failure(NonExistentAccountException.class));
+                        continue;
+                    }
+                    AccountPair friendship = new AccountPair(firstId, secondId);
+                    if (blocks.contains(friendship) || blocks.contains(friendship.reversed())) {
+                        results.add(BatchItemResult.failure(AccountBlockedException.class));
+                        continue;
+                    }
+                    if (friendships.add(friendship)) newFriendships.add(friendship);
+                    if (friendships.add(friendship.reversed())) newFriendships.add(friendship.reversed());
+                    applied.add(pair);
+                    results.add(BatchItemResult.success());
+                }
+
+                if (!writeAheadLog) relationshipRepository.insertFriendships(newFriendships);
+                for (EmailPair pair : applied) {
+                    socialGraph.addFriendship(pair.getFirst(), pair.getSecond());
+                    relationshipListCache.friendshipAdded(pair.getFirst(), pair.getSecond());
+                }
+            });
+        }
+        if (writeAheadLog) socialGraph.sync();
+        return results;
+    }
+
+    /**
+     * USER STORY #4 in bulk.
+     * Subscribes every requestor (first email of a pair) to the updates of its target (second email of a pair), using
+     * the same chunked lookups and batch inserts as {@link #befriendAccounts(List)}.
+     *
+     * @param pairs pairs of requestor and target emails
+     * @return one result per pair, in the same order. A pair fails if one of its Accounts doesn't exist or if the
+     * requestor is already subscribed to the target.
+     */
+    public List<BatchItemResult> subscribeToUpdates(List<EmailPair> pairs) {
+        List<BatchItemResult> results = new ArrayList<>(pairs.size());
+        for (List<EmailPair> chunk : chunks(pairs)) {
+            Map<String, Long> ids = findIds(emailsOf(chunk));
+            Set<Long> involvedIds = new HashSet<>(ids.values());
+            writeCoordinator.write(involvedIds, () -> {
+                Set<AccountPair> subscriptions = edgeIndex.findSubscriptions(pairsOf(chunk, ids, true));
+
+                List<AccountPair> newSubscriptions = new ArrayList<>();
+                List<EmailPair> applied = new ArrayList<>();
+                for (EmailPair pair : chunk) {
+                    Long requestorId = ids.get(pair.getFirst());
+                    Long targetId = ids.get(pair.getSecond());
+                    if (requestorId == null || targetId == null) {
+                        results.add(BatchItemResult.failure(NonExistentAccountException.class));
+                        continue;
+                    }
+                    AccountPair subscription = new AccountPair(targetId, requestorId);
+                    if (!subscriptions.add(subscription)) {
+                        results.add(BatchItemResult.failure(AlreadySubscribedException.class));
+                        continue;
+                    }
+                    newSubscriptions.add(subscription);
+                    applied.add(pair);
+                    results.add(BatchItemResult.success());
+                }
+
+                if (!writeAheadLog) relationshipRepository.insertSubscriptions(newSubscriptions);
+                for (EmailPair pair : applied) {
+                    socialGraph.addSubscription(pair.getFirst(), pair.getSecond());
+                    relationshipListCache.subscriptionAdded(pair.getFirst(), pair.getSecond());
+                }
+                edgeIndex.subscriptionsAdded(newSubscriptions);
+            });
+        }
+        if (writeAheadLog) socialGraph.sync();
+        return results;
+    }
+
+    /**
+     * USER STORY #5 in bulk.
+     * Every requestor (first email of a pair) blocks its target (second email of a pair), using the same chunked lookups
+     * and batch inserts as {@link #befriendAccounts(List)}.
+     *
+     * @param pairs pairs of requestor and target emails
+     * @return one result per pair, in the same order. A pair fails if one of its Accounts doesn't exist or if the
+     * requestor already blocked the target.
+     */
+    public List<BatchItemResult> blockAccounts(List<EmailPair> pairs) {
+        List<BatchItemResult> results = new ArrayList<>(pairs.size());
+        for (List<EmailPair> chunk : chunks(pairs)) {
+            Map<String, Long> ids = findIds(emailsOf(chunk));
+            Set<Long> involvedIds = new HashSet<>(ids.values());
+            writeCoordinator.write(involvedIds, () -> {
+                Set<AccountPair> blocks = edgeIndex.findBlocksBetween(pairsOf(chunk, ids, false));
+
+                List<AccountPair> newBlocks = new ArrayList<>();
+                List<EmailPair> applied = new ArrayList<>();
+                for (EmailPair pair : chunk) {
+                    Long requestorId = ids.get(pair.getFirst());
+                    Long targetId = ids.get(pair.getSecond());
+                    if (requestorId == null || targetId == null) {
+                        results.add(BatchItemResult.failure(NonExistentAccountException.class));
+                        continue;
+                    }
+                    AccountPair block = new AccountPair(requestorId, targetId);
+                    if (!blocks.add(block)) {
+                        results.add(BatchItemResult.failure(AlreadyBlockedException.class));
+                        continue;
+                    }
+                    newBlocks.add(block);
+                    applied.add(pair);
+                    results.add(BatchItemResult.success());
+                }
+
+                if (!writeAheadLog) relationshipRepository.insertBlocks(newBlocks);
+                for (EmailPair pair : applied) {
+                    socialGraph.addBlock(pair.getFirst(), pair.getSecond());
+                    relationshipListCache.blockAdded(pair.getFirst(), pair.getSecond());
+                }
+                edgeIndex.blocksAdded(newBlocks);
+            });
+        }
+        if (writeAheadLog) socialGraph.sync();
+        return results;
+    }
+
+    /**
+     * @param reversed whether the pairs of ids are (second, first) rather than (first, second)
+     * @return the pairs of ids of the pairs whose Accounts both exist
+     */
+    private static List<AccountPair> pairsOf(List<EmailPair> pairs, Map<String, Long> ids, boolean reversed) {
+        List<AccountPair> idPairs = new ArrayList<>(pairs.size());
+        for (EmailPair pair : pairs) {
+            Long firstId = ids.get(pair.getFirst());
+            Long secondId = ids.get(pair.getSecond());
+            if (firstId == null || secondId == null) continue;
+            idPairs.add(reversed ? new AccountPair(secondId, firstId) : new AccountPair(firstId, secondId));
+        }
+        return idPairs;
+    }
+
+    private static List<List<EmailPair>> chunks(List<EmailPair> pairs) {
+        List<List<EmailPair>> chunks = new ArrayList<>();
+        for (int from = 0; from < pairs.size(); from += BATCH_CHUNK_SIZE) {
+            chunks.add(pairs.subList(from, Math.min(pairs.size(), from + BATCH_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static Set<String> emailsOf(List<EmailPair> pairs) {
+        Set<String> emails = new HashSet<>(pairs.size() * 2);
+        for (EmailPair pair : pairs) {
+            emails.add(pair.getFirst());
+            emails.add(pair.getSecond());
+        }
+        return emails;
+    }
+
+    /**
+     * @param email the email to check
+     * @throws NonExistentAccountException throws when the email doesn't exist in the database
+     */
+    public void checkIfEmailExists(String email) throws NonExistentAccountException {
+        if (findId(email) == null) throw new NonExistentAccountException();
+    }
+
+    /**
+     * @return the id of the Account with the given email, or null if there is none
+     */
+    private Long findId(String email) {
+        long id = emailIndex.idOf(email);
+        if (id != EmailIndex.NOT_FOUND) return id;
+        Optional<Long> storedId = accountRepository.findIdByEmail(email);
+        if (!storedId.isPresent()) return null;
+        emailIndex.put(email, storedId.get());
+        return storedId.get();
+    }
+
+    /**
+     * @return the ids of the given emails. Emails without an Account are absent from the returned map.
+     */
+    private Map<String, Long> findIds(Set<String> emails) {
+        return emailIndex.idsOf(emails, relationshipRepository::findIdsByEmail);
     }
 
-    private Account checkIfEmailExistsAndGetAccount(String email) throws NonExistentAccountException {
-        // check first if account exists
-        return accountRepository.findByEmail(email).orElseThrow(NonExistentAccountException::new);
+    private long checkIfEmailExistsAndGetId(String email) throws NonExistentAccountException {
+        Long id = findId(email);
+        if (id == null) throw new NonExistentAccountException();
+        return id;
     }
 
 }
@@ -0,0 +1,54 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Outcome of one item of a batch operation. A failed item carries the same reason that the single-item API would
+ * have answered with.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class BatchItemResult {
+    private static final BatchItemResult SUCCESS = new BatchItemResult(null, null);
+
+    private final String error;
+    private final Class<? extends Exception> errorType;
+
+    private BatchItemResult(String error, Class<? extends Exception> errorType) {
+        this.error = error;
+        this.errorType = errorType;
+    }
+
+    public static BatchItemResult success() {
+        return SUCCESS;
+    }
+
+    public static BatchItemResult failure(String error) {
+        return new BatchItemResult(error, null);
+    }
+
+    /**
+     * @param exceptionType an exception annotated with {@link ResponseStatus}, whose reason becomes the error
+     */
+    public static BatchItemResult failure(Class<? extends Exception> exceptionType) {
+        ResponseStatus status = AnnotationUtils.findAnnotation(exceptionType, ResponseStatus.class);
+        return new BatchItemResult(status != null ? status.reason() : exceptionType.getSimpleName(), exceptionType);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the exception the single-item API would have thrown, or null
+     */
+    public Class<? extends Exception> getErrorType() {
+        return errorType;
+    }
+}
@@ -0,0 +1,26 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+/**
+ * Two Account emails taking part in one relationship operation, eg. the two friends of a befriend request or the
+ * requestor and target of a subscription or a block.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public final class EmailPair {
+    private final String first;
+    private final String second;
+
+    public EmailPair(String first, String second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public String getFirst() {
+        return first;
+    }
+
+    public String getSecond() {
+        return second;
+    }
+}
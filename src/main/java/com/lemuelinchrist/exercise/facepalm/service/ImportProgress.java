@@ -0,0 +1,96 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a running or finished NDJSON import. Counters are updated chunk by chunk and can be read at any time
+ * from another thread.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class ImportProgress {
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong accounts = new AtomicLong();
+    private final AtomicLong friendships = new AtomicLong();
+    private final AtomicLong subscriptions = new AtomicLong();
+    private final AtomicLong blocks = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+
+    void addLines(long count) {
+        lines.addAndGet(count);
+    }
+
+    void addAccounts(long count) {
+        accounts.addAndGet(count);
+    }
+
+    void addFriendships(long count) {
+        friendships.addAndGet(count);
+    }
+
+    void addSubscriptions(long count) {
+        subscriptions.addAndGet(count);
+    }
+
+    void addBlocks(long count) {
+        blocks.addAndGet(count);
+    }
+
+    void addDuplicates(long count) {
+        duplicates.addAndGet(count);
+    }
+
+    void addRejected(long count) {
+        rejected.addAndGet(count);
+    }
+
+    void finish() {
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public long getLines() {
+        return lines.get();
+    }
+
+    public long getAccounts() {
+        return accounts.get();
+    }
+
+    public long getFriendships() {
+        return friendships.get();
+    }
+
+    public long getSubscriptions() {
+        return subscriptions.get();
+    }
+
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    /**
+     * @return account records whose email already existed, and edge records that were already present
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return lines that could not be parsed or referred to Accounts that don't exist
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import java.util.List;
+
+/**
+ * One line of an NDJSON import. Depending on type, the following fields are used:
+ * <ul>
+ * <li>account: <code>{"type": "account", "email": "andy@example.com"}</code></li>
+ * <li>friend: <code>{"type": "friend", "friends": ["andy@example.com", "john@example.com"]}</code></li>
+ * <li>subscribe: <code>{"type": "subscribe", "requestor": "lisa@example.com", "target": "john@example.com"}</code></li>
+ * <li>block: <code>{"type": "block", "requestor": "andy@example.com", "target": "john@example.com"}</code></li>
+ * </ul>
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class ImportRecord {
+    public static final String ACCOUNT = "account";
+    public static final String FRIEND = "friend";
+    public static final String SUBSCRIBE = "subscribe";
+    public static final String BLOCK = "block";
+
+    private String type;
+    private String email;
+    private List<String> friends;
+    private String requestor;
+    private String target;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public List<String> getFriends() {
+        return friends;
+    }
+
+    public void setFriends(List<String> friends) {
+        this.friends = friends;
+    }
+
+    public String getRequestor() {
+        return requestor;
+    }
+
+    public void setRequestor(String requestor) {
+        this.requestor = requestor;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+}
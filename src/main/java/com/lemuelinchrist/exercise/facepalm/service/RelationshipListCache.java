@@ -0,0 +1,110 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Caches the friend lists and broadcast recipient lists of the Accounts that are read the most, keyed by email.
+ * <p>
+ * Both caches are bounded by the total number of emails they hold, and Caffeine evicts with W-TinyLFU: a list is only
+ * admitted in place of another one if it is read more often, so the lists of a few popular Accounts stay cached while a
+ * scan over many unpopular ones doesn't flush them. Concurrent misses on one email compute the list once, while the
+ * others wait for it.
+ * <p>
+ * The writes invalidate the lists they change after mirroring the edge into the SocialGraph. An invalidation waits for
+ * a computation of the same email in progress, so a list computed from the graph before the write is never left in
+ * the cache.
+ * <p>
+ * The caches are only kept in front of the repository engine. The memory engine already holds every list in the heap
+ * and answers it without a query, so a cached copy would only double the memory it uses: with that engine the lists
+ * are computed by the loader on every call and the invalidations do nothing.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class RelationshipListCache {
+    private final Cache<String, List<String>> friends;
+    private final Cache<String, List<String>> recipients;
+
+    public RelationshipListCache(@Value("${facepalm.cache.friends.max-emails:1000000}") long maxFriendEmails,
+                                 @Value("${facepalm.cache.recipients.max-emails:1000000}") long maxRecipientEmails,
+                                 @Value("${facepalm.graph.engine:memory}") String engine) {
+        boolean enabled = "repository".equals(engine);
+        this.friends = enabled ? build(maxFriendEmails) : null;
+        this.recipients = enabled ? build(maxRecipientEmails) : null;
+    }
+
+    private static Cache<String, List<String>> build(long maxEmails) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxEmails)
+                // an empty list still costs an entry
+                .weigher((String email, List<String> list) -> list.size() + 1)
+                .build();
+    }
+
+    /**
+     * @return the cached friends of the email, or the ones computed by the loader. The list is unmodifiable.
+     */
+    public List<String> getFriendsOf(String email, Function<String, List<String>> loader) {
+        return get(friends, email, loader);
+    }
+
+    /**
+     * @return the cached broadcast recipients of the email, or the ones computed by the loader. The list is
+     * unmodifiable.
+     */
+    public List<String> getBroadcastRecipientsOf(String email, Function<String, List<String>> loader) {
+        return get(recipients, email, loader);
+    }
+
+    /**
+     * Both Accounts have a new friend, which is a new recipient of their updates unless it is blocking them.
+     */
+    public void friendshipAdded(String firstEmail, String secondEmail) {
+        if (friends == null) {
+            return;
+        }
+        friends.invalidate(firstEmail);
+        friends.invalidate(secondEmail);
+        recipients.invalidate(firstEmail);
+        recipients.invalidate(secondEmail);
+    }
+
+    /**
+     * The requestor is a new recipient of the updates of the target.
+     */
+    public void subscriptionAdded(String requestorEmail, String targetEmail) {
+        if (recipients != null) {
+            recipients.invalidate(targetEmail);
+        }
+    }
+
+    /**
+     * The requestor doesn't receive the updates of the target anymore.
+     */
+    public void blockAdded(String requestorEmail, String targetEmail) {
+        if (recipients != null) {
+            recipients.invalidate(targetEmail);
+        }
+    }
+
+    private static List<String> get(Cache<String, List<String>> cache, String email,
+                                    Function<String, List<String>> loader) {
+        if (cache == null) {
+            return unmodifiable(loader.apply(email));
+        }
+        return cache.get(email, key -> unmodifiable(loader.apply(key)));
+    }
+
+    // the SocialGraph returns a new list on every call, so it is wrapped rather than copied
+    private static List<String> unmodifiable(List<String> list) {
+        return Collections.unmodifiableList(list);
+    }
+}
@@ -0,0 +1,211 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import com.lemuelinchrist.exercise.facepalm.graph.GraphChange;
+import com.lemuelinchrist.exercise.facepalm.graph.GraphChangeListener;
+import com.lemuelinchrist.exercise.facepalm.graph.InMemorySocialGraph;
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.index.EmailIndex;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Writes the relationships to the database behind the write-ahead log of the in-memory graph, when
+ * <code>facepalm.write.durability=wal</code>. Relationship writes are acknowledged once their log record is on disk,
+ * and this bean inserts their edges afterwards, up to {@link #BATCH_SIZE} changes of many requests at a time.
+ * <p>
+ * Changes replayed from the log on startup are received again, and so are the ones of a batch that failed, so every
+ * batch first looks up which of its edges are already in the database and only inserts the others. A failed batch is
+ * retried until it succeeds. The graph only truncates its log after {@link #flush(long, TimeUnit)} confirmed that
+ * every change received so far is in the database, so nothing acknowledged is lost while the database is down.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+@ConditionalOnProperty(prefix = "facepalm.write", name = "durability", havingValue = "wal")
+public class RelationshipWriteBehind implements GraphChangeListener {
+    private static final Logger log = LoggerFactory.getLogger(RelationshipWriteBehind.class);
+    // changes written to the database together
+    static final int BATCH_SIZE = 1000;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final long SHUTDOWN_FLUSH_SECONDS = 30;
+
+    private final InMemorySocialGraph socialGraph;
+    private final RelationshipRepository relationshipRepository;
+    private final EmailIndex emailIndex;
+    private final Thread writer = new Thread(this::writeBatches, "relationship-write-behind");
+
+    // guarded by this
+    private final Deque<GraphChange> pending = new ArrayDeque<>();
+    private long received;
+    private long written;
+    private boolean stopped;
+
+    @Autowired
+    public RelationshipWriteBehind(SocialGraph socialGraph, RelationshipRepository relationshipRepository,
+                                   EmailIndex emailIndex) {
+        if (!(socialGraph instanceof InMemorySocialGraph)) {
+            throw new IllegalStateException("facepalm.write.durability=wal needs facepalm.graph.engine=memory");
+        }
+        this.socialGraph = (InMemorySocialGraph) socialGraph;
+        this.relationshipRepository = relationshipRepository;
+        this.emailIndex = emailIndex;
+        writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+        socialGraph.setChangeListener(this);
+    }
+
+    /**
+     * Writes the changes received so far, so the graph can truncate its log into the snapshot it writes on shutdown.
+     * Changes that are logged after this point stay in the log for the next startup.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!flush(SHUTDOWN_FLUSH_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Logged relationships are not all in the database, they are written on the next startup");
+        }
+        socialGraph.setChangeListener(null);
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_FLUSH_SECONDS));
+    }
+
+    @Override
+    public synchronized void changesDurable(List<GraphChange> changes) {
+        pending.addAll(changes);
+        received += changes.size();
+        notifyAll();
+    }
+
+    @Override
+    public synchronized boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = received;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written < target) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || stopped) return false;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    private void writeBatches() {
+        try {
+            while (true) {
+                List<GraphChange> batch = new ArrayList<>();
+                synchronized (this) {
+                    while (pending.isEmpty() && !stopped) {
+                        wait();
+                    }
+                    // whatever is still pending stays in the log
+                    if (stopped) return;
+                    while (batch.size() < BATCH_SIZE && !pending.isEmpty()) {
+                        batch.add(pending.poll());
+                    }
+                }
+                while (!tryWrite(batch)) {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                    synchronized (this) {
+                        if (stopped) return;
+                    }
+                }
+                synchronized (this) {
+                    written += batch.size();
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean tryWrite(List<GraphChange> batch) {
+        try {
+            write(batch);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Could not write {} logged relationship changes to the database, retrying", batch.size(), e);
+            return false;
+        }
+    }
+
+    private void write(List<GraphChange> batch) {
+        Set<String> emails = new HashSet<>();
+        for (GraphChange change : batch) {
+            if (change.getType() == GraphChange.Type.ACCOUNT) continue;
+            emails.add(change.getFirstEmail());
+            emails.add(change.getSecondEmail());
+        }
+        Map<String, Long> ids = findIds(emails);
+
+        // each pair follows the column order of its edge table
+        Set<AccountPair> friendships = new LinkedHashSet<>();
+        Set<AccountPair> subscriptions = new LinkedHashSet<>();
+        Set<AccountPair> blocks = new LinkedHashSet<>();
+        for (GraphChange change : batch) {
+            // Accounts are saved to the database before they reach the graph
+            if (change.getType() == GraphChange.Type.ACCOUNT) continue;
+            Long firstId = ids.get(change.getFirstEmail());
+            Long secondId = ids.get(change.getSecondEmail());
+            if (firstId == null || secondId == null) {
+                log.warn("Skipping logged {} of {} and {}, which are not both in the database", change.getType(),
+                        change.getFirstEmail(), change.getSecondEmail());
+                continue;
+            }
+            switch (change.getType()) {
+                case FRIENDSHIP:
+                    friendships.add(new AccountPair(firstId, secondId));
+                    friendships.add(new AccountPair(secondId, firstId));
+                    break;
+                case SUBSCRIPTION:
+                    subscriptions.add(new AccountPair(secondId, firstId));
+                    break;
+                case BLOCK:
+                    blocks.add(new AccountPair(firstId, secondId));
+                    break;
+                default:
+                    break;
+            }
+        }
+        insertMissing(friendships, relationshipRepository::findFriendships, relationshipRepository::insertFriendships);
+        insertMissing(subscriptions, relationshipRepository::findSubscriptions,
+                relationshipRepository::insertSubscriptions);
+        insertMissing(blocks, relationshipRepository::findBlocks, relationshipRepository::insertBlocks);
+    }
+
+    private static void insertMissing(Set<AccountPair> pairs,
+                                      BiFunction<Collection<Long>, Collection<Long>, Set<AccountPair>> find,
+                                      Consumer<Collection<AccountPair>> insert) {
+        if (pairs.isEmpty()) return;
+        Set<Long> firstIds = new HashSet<>();
+        Set<Long> secondIds = new HashSet<>();
+        for (AccountPair pair : pairs) {
+            firstIds.add(pair.getFirstId());
+            secondIds.add(pair.getSecondId());
+        }
+        pairs.removeAll(find.apply(firstIds, secondIds));
+        insert.accept(pairs);
+    }
+
+    private Map<String, Long> findIds(Set<String> emails) {
+        return emailIndex.idsOf(emails, relationshipRepository::findIdsByEmail);
+    }
+}
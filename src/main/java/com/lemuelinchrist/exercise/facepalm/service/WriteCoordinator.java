@@ -0,0 +1,93 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes the relationship writes that touch the same Accounts, so the check and the insert of an edge happen
+ * atomically and the database and the SocialGraph see the writes of an Account in the same order.
+ * <p>
+ * Accounts are mapped by id to a fixed number of lock stripes. A write locks the stripes of all its Accounts in
+ * ascending stripe order, so two writes never wait for each other in a cycle, and writes on unrelated Accounts check
+ * and insert their edges in the database in parallel. The memory engine of the SocialGraph still mirrors every write
+ * under its single write lock, so that last step is serialized across all stripes.
+ *
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@Component
+public class WriteCoordinator {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public WriteCoordinator(@Value("${facepalm.write.lock-stripes:1024}") int stripeCount) {
+        if (stripeCount < 1) throw new IllegalArgumentException("There should be at least one lock stripe");
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) size <<= 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Runs the write while holding the locks of both Accounts.
+     */
+    public <E extends Exception> void write(long firstId, long secondId, LockedWrite<E> write) throws E {
+        int first = stripeOf(firstId);
+        int second = stripeOf(secondId);
+        if (first == second) {
+            run(new int[]{first}, write);
+        } else {
+            run(new int[]{Math.min(first, second), Math.max(first, second)}, write);
+        }
+    }
+
+    /**
+     * Runs the write while holding the locks of all the given Accounts.
+     */
+    public <E extends Exception> void write(Collection<Long> accountIds, LockedWrite<E> write) throws E {
+        int[] indexes = new int[accountIds.size()];
+        int count = 0;
+        for (Long id : accountIds) {
+            indexes[count++] = stripeOf(id);
+        }
+        Arrays.sort(indexes);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || indexes[distinct - 1] != indexes[i]) indexes[distinct++] = indexes[i];
+        }
+        run(Arrays.copyOf(indexes, distinct), write);
+    }
+
+    int stripeOf(long accountId) {
+        // spreads sequential ids over the stripes
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private <E extends Exception> void run(int[] sortedStripes, LockedWrite<E> write) throws E {
+        int locked = 0;
+        try {
+            for (int stripe : sortedStripes) {
+                stripes[stripe].lock();
+                locked++;
+            }
+            write.run();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[sortedStripes[i]].unlock();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface LockedWrite<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,18 @@
+-- Adds the relationship counters of Account and fills them from the edge tables. Run it once against a database
+-- created by an earlier version, with the application stopped, eg.
+-- java -cp h2.jar org.h2.tools.RunScript -url <jdbc url> -script add-relationship-counters.sql
+-- The columns are the ones Hibernate generates for the counters of Account.
+
+alter table account add column friend_count integer default 0 not null;
+alter table account add column subscriber_count integer default 0 not null;
+alter table account add column subscription_count integer default 0 not null;
+alter table account add column blocked_count integer default 0 not null;
+alter table account add column blocker_count integer default 0 not null;
+
+-- each count is a range scan of the primary key or of the reverse index of its edge table
+update account set
+    friend_count = (select count(*) from friendship e where e.account_id = account.id),
+    subscriber_count = (select count(*) from subscription e where e.target_id = account.id),
+    subscription_count = (select count(*) from subscription e where e.subscriber_id = account.id),
+    blocked_count = (select count(*) from account_block e where e.blocker_id = account.id),
+    blocker_count = (select count(*) from account_block e where e.blocked_id = account.id);
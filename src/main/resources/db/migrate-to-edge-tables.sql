@@ -0,0 +1,30 @@
+-- Moves the relationships from the join tables that the former @ManyToMany sets of Account generated to the edge
+-- tables of Friendship, Subscription and Block. Run it once against a database created by an earlier version, with
+-- the application stopped, eg. java -cp h2.jar org.h2.tools.RunScript -url <jdbc url> -script migrate-to-edge-tables.sql
+-- The new tables, keys and indexes are the ones Hibernate generates for the edge entities.
+
+create table friendship (account_id bigint not null, friend_id bigint not null, primary key (account_id, friend_id));
+create table subscription (target_id bigint not null, subscriber_id bigint not null,
+    primary key (target_id, subscriber_id));
+create table account_block (blocker_id bigint not null, blocked_id bigint not null,
+    primary key (blocker_id, blocked_id));
+
+-- the old tables have the same primary keys, so their rows can be copied as they are
+insert into friendship (account_id, friend_id) select account_id, friends_id from account_friends;
+insert into subscription (target_id, subscriber_id) select account_id, subscribers_id from account_subscribers;
+insert into account_block (blocker_id, blocked_id) select blockers_id, blocked_accounts_id from account_blocked_accounts;
+
+-- the reverse indexes and the foreign keys are added after the copy, which is cheaper than maintaining them row by row
+create index friendship_friend_idx on friendship (friend_id, account_id);
+create index subscription_subscriber_idx on subscription (subscriber_id, target_id);
+create index account_block_blocked_idx on account_block (blocked_id, blocker_id);
+alter table friendship add constraint friendship_account_fk foreign key (account_id) references account;
+alter table friendship add constraint friendship_friend_fk foreign key (friend_id) references account;
+alter table subscription add constraint subscription_target_fk foreign key (target_id) references account;
+alter table subscription add constraint subscription_subscriber_fk foreign key (subscriber_id) references account;
+alter table account_block add constraint account_block_blocker_fk foreign key (blocker_id) references account;
+alter table account_block add constraint account_block_blocked_fk foreign key (blocked_id) references account;
+
+drop table account_friends;
+drop table account_subscribers;
+drop table account_blocked_accounts;
@@ -1,7 +1,15 @@
 package com.lemuelinchrist.exercise.facepalm;
 
 import com.lemuelinchrist.exercise.facepalm.controllers.dto.*;
+import com.lemuelinchrist.exercise.facepalm.exception.AccountBlockedException;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
+import com.lemuelinchrist.exercise.facepalm.index.EmailIndex;
+import com.lemuelinchrist.exercise.facepalm.metrics.QueryCounters;
+import com.lemuelinchrist.exercise.facepalm.metrics.SecondLevelCacheMetrics;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
+import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import com.lemuelinchrist.exercise.facepalm.service.AccountService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +21,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -24,12 +36,28 @@ import static org.junit.Assert.assertEquals;
  * @since 29/7/2017
  */
 @RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "endpoints.latency.sensitive=false")
 public class IntegrationTest {
 
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private SecondLevelCacheMetrics secondLevelCacheMetrics;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private EmailIndex emailIndex;
+
     @Test
     public void accountShouldBeCreated() throws Exception {
 
@@ -113,9 +141,11 @@ public class IntegrationTest {
 
         // ***************** USER STORY 6
         // subscribe to a few accounts
-        String emailInText1 = "lemuel@cantos.com";
+        // only existing mentions that didn't block the sender are added, and only once
+        String emailInText1 = createAccount("lemuel@cantos.com").getEmail();
         String emailInText2 = "cantos@lemuel.com";
-        SenderDTO senderDTO = new SenderDTO(firstEmail, "This is a test message with " + emailInText1 + " and " + emailInText2 + " email in the middle");
+        SenderDTO senderDTO = new SenderDTO(firstEmail, "This is a test message with " + emailInText1 + " and " + emailInText2
+                + " email in the middle, cc " + secondEmail + ", " + fifthAccount.getEmail() + " and " + emailInText1);
 
         HttpEntity<SenderDTO> emailRecipientListRequestEntity = new HttpEntity<>(senderDTO);
         ResponseEntity<FriendResponseDTO> emailRecipientDTOResponseEntity = restTemplate
@@ -124,12 +154,227 @@ public class IntegrationTest {
                 .getBody();
 
         assertThat(emailRecipientResponseDTO.getSuccess()).isEqualToIgnoringCase("true");
-        assertThat(emailRecipientResponseDTO.getFriends()).contains(secondAccount.getEmail(), thirdAccount.getEmail()
-                , fourthAccount.getEmail(), seventhAccount.getEmail(), emailInText1, emailInText2);
-        assertThat(emailRecipientResponseDTO.getFriends()).doesNotContain(sixthAccount.getEmail(), fifthAccount.getEmail());
-        assertThat(emailRecipientResponseDTO.getCount()).isEqualTo(6);
+        assertThat(emailRecipientResponseDTO.getFriends()).containsOnlyOnce(secondAccount.getEmail(), thirdAccount.getEmail()
+                , fourthAccount.getEmail(), seventhAccount.getEmail(), emailInText1);
+        assertThat(emailRecipientResponseDTO.getFriends()).doesNotContain(sixthAccount.getEmail(), fifthAccount.getEmail(),
+                emailInText2);
+        assertThat(emailRecipientResponseDTO.getCount()).isEqualTo(5);
+
+
+    }
+
+    /**
+     * USER STORY #1, #4 and #5 in bulk
+     *
+     * @throws Exception
+     */
+    @Test
+    public void batchRequestsShouldApplyEveryValidItem() throws Exception {
+        String andy = createAccount("andy@batch.com").getEmail();
+        String john = createAccount("john@batch.com").getEmail();
+        String lisa = createAccount("lisa@batch.com").getEmail();
+
+        FriendPairBatchRequestDTO befriendBatch = new FriendPairBatchRequestDTO(Arrays.asList(
+                new FriendPairRequestDTO(andy, john),
+                new FriendPairRequestDTO(andy, lisa),
+                new FriendPairRequestDTO(andy, "nobody@batch.com")));
+        BatchResponseDTO befriendResponse = restTemplate
+                .postForEntity("/account-management/befriend-batch", new HttpEntity<>(befriendBatch), BatchResponseDTO.class)
+                .getBody();
+        assertThat(befriendResponse.getCount()).isEqualTo(2);
+        assertThat(befriendResponse.getResults()).extracting(BatchItemResultDTO::getSuccess).containsExactly("true", "true", "false");
+
+        RequestorTargetBatchRequestDTO subscribeBatch = new RequestorTargetBatchRequestDTO(Arrays.asList(
+                new RequestorTargetDTO(lisa, john), new RequestorTargetDTO(lisa, john)));
+        BatchResponseDTO subscribeResponse = restTemplate
+                .postForEntity("/account-management/subscribe-updates-batch", new HttpEntity<>(subscribeBatch), BatchResponseDTO.class)
+                .getBody();
+        assertThat(subscribeResponse.getResults()).extracting(BatchItemResultDTO::getSuccess).containsExactly("true", "false");
+
+        RequestorTargetBatchRequestDTO blockBatch = new RequestorTargetBatchRequestDTO(Arrays.asList(
+                new RequestorTargetDTO(john, andy)));
+        BatchResponseDTO blockResponse = restTemplate
+                .postForEntity("/account-management/block-account-batch", new HttpEntity<>(blockBatch), BatchResponseDTO.class)
+                .getBody();
+        assertThat(blockResponse.getCount()).isEqualTo(1);
+
+        ResponseEntity<FriendResponseDTO> friends = restTemplate.postForEntity("/account-management/get-friends",
+                new HttpEntity<>(createAccountRequest(andy)), FriendResponseDTO.class);
+        assertThat(friends.getBody().getFriends()).containsOnly(john, lisa);
+
+        SenderDTO senderDTO = new SenderDTO(andy, "no mentions");
+        ResponseEntity<FriendResponseDTO> recipients = restTemplate.postForEntity("/account-management/get-update-recipients",
+                new HttpEntity<>(senderDTO), FriendResponseDTO.class);
+        assertThat(recipients.getBody().getFriends()).containsOnly(lisa);
+    }
+
+    @Test
+    public void ndjsonImportShouldCreateAccountsAndEdges() throws Exception {
+        String ndjson = "{\"type\": \"account\", \"email\": \"andy@import.com\"}\n"
+                + "{\"type\": \"account\", \"email\": \"john@import.com\"}\n"
+                + "{\"type\": \"account\", \"email\": \"john@import.com\"}\n"
+                + "{\"type\": \"account\", \"email\": \"lisa@import.com\"}\n"
+                + "{\"type\": \"account\", \"email\": \"mary@import.com\"}\n"
+                + "{\"type\": \"account\", \"email\": \"not an email@import\"}\n"
+                + "this is not json\n"
+                + "{\"type\": \"friend\", \"friends\": [\"andy@import.com\", \"john@import.com\"]}\n"
+                + "{\"type\": \"subscribe\", \"requestor\": \"lisa@import.com\", \"target\": \"andy@import.com\"}\n"
+                + "{\"type\": \"block\", \"requestor\": \"lisa@import.com\", \"target\": \"nobody@import.com\"}\n";
+
+        ResponseEntity<Map> response = restTemplate.postForEntity("/accounts/import", ndjson, Map.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("lines")).isEqualTo(10);
+        assertThat(response.getBody().get("accounts")).isEqualTo(4);
+        assertThat(response.getBody().get("friendships")).isEqualTo(1);
+        assertThat(response.getBody().get("subscriptions")).isEqualTo(1);
+        assertThat(response.getBody().get("duplicates")).isEqualTo(1);
+        assertThat(response.getBody().get("rejected")).isEqualTo(3);
+
+        SenderDTO senderDTO = new SenderDTO("andy@import.com", "no mentions");
+        ResponseEntity<FriendResponseDTO> recipients = restTemplate.postForEntity("/account-management/get-update-recipients",
+                new HttpEntity<>(senderDTO), FriendResponseDTO.class);
+        assertThat(recipients.getBody().getFriends()).containsOnly("john@import.com", "lisa@import.com");
+        // indexed by the import itself, not by a lookup of its edges
+        assertThat(emailIndex.idOf("mary@import.com")).isNotEqualTo(EmailIndex.NOT_FOUND);
+    }
+
+    /**
+     * USER STORY #2 paginated and streamed
+     *
+     * @throws Exception
+     */
+    @Test
+    public void friendListShouldBePaginatedAndStreamed() throws Exception {
+        String celebrity = createAccount("celebrity@paging.com").getEmail();
+        String[] fans = {"fan1@paging.com", "fan2@paging.com", "fan3@paging.com"};
+        for (String fan : fans) {
+            createAccount(fan);
+            befriendAccounts(celebrity, fan);
+        }
+        HttpEntity<Account> request = new HttpEntity<>(createAccountRequest(celebrity));
+
+        FriendResponseDTO firstPage = restTemplate
+                .postForEntity("/account-management/get-friends?limit=2", request, FriendResponseDTO.class).getBody();
+        assertThat(firstPage.getFriends()).containsExactly(fans[0], fans[1]);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        FriendResponseDTO secondPage = restTemplate
+                .postForEntity("/account-management/get-friends?limit=2&cursor=" + firstPage.getNextCursor(), request,
+                        FriendResponseDTO.class).getBody();
+        assertThat(secondPage.getFriends()).containsExactly(fans[2]);
+        assertThat(secondPage.getNextCursor()).isNull();
+
+        FriendResponseDTO streamed = restTemplate
+                .postForEntity("/account-management/get-friends?stream=true", request, FriendResponseDTO.class).getBody();
+        assertThat(streamed.getFriends()).containsExactly(fans);
+        assertThat(streamed.getCount()).isEqualTo(3);
+    }
+
+    /**
+     * USER STORY #6 delivered to inboxes
+     *
+     * @throws Exception
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void postedUpdatesShouldBeDeliveredToInboxes() throws Exception {
+        String sender = createAccount("sender@inbox.com").getEmail();
+        String friend = createAccount("friend@inbox.com").getEmail();
+        String mentioned = createAccount("mentioned@inbox.com").getEmail();
+        befriendAccounts(sender, friend);
+
+        ResponseEntity<Map> posted = restTemplate.postForEntity("/account-management/post-update",
+                new HttpEntity<>(new SenderDTO(sender, "Hello " + mentioned)), Map.class);
+        assertThat(posted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(posted.getHeaders().getLocation()).isNotNull();
+
+        Map<String, Object> progress = posted.getBody();
+        for (int i = 0; i < 200 && !"DONE".equals(progress.get("state")); i++) {
+            Thread.sleep(10);
+            progress = restTemplate.getForEntity(posted.getHeaders().getLocation(), Map.class).getBody();
+        }
+        assertThat(progress.get("state")).isEqualTo("DONE");
+        assertThat(progress.get("recipients")).isEqualTo(2);
+        assertThat(progress.get("delivered")).isEqualTo(2);
+
+        for (String recipient : Arrays.asList(friend, mentioned)) {
+            Map<String, Object> inbox = restTemplate.postForEntity("/account-management/get-inbox",
+                    new HttpEntity<>(createAccountRequest(recipient)), Map.class).getBody();
+            assertThat(inbox.get("count")).isEqualTo(1);
+            Map<String, Object> update = ((List<Map<String, Object>>) inbox.get("updates")).get(0);
+            assertThat(update.get("sender")).isEqualTo(sender);
+            assertThat(update.get("text")).isEqualTo("Hello " + mentioned);
+        }
+        ResponseEntity<Map> senderInbox = restTemplate.postForEntity("/account-management/get-inbox",
+                new HttpEntity<>(createAccountRequest(sender)), Map.class);
+        assertThat(senderInbox.getBody().get("count")).isEqualTo(0);
+        assertThat(restTemplate.getForEntity("/account-management/post-update/0", Map.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void latencyEndpointShouldReportEndpointsAndRepositories() throws Exception {
+        String email = createAccount("metrics@latency.com").getEmail();
+        restTemplate.postForEntity("/account-management/get-friends",
+                new HttpEntity<>(createAccountRequest(email)), FriendResponseDTO.class);
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("/latency", Map.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Map<String, Map<String, Object>> histograms = response.getBody();
+        assertThat(histograms).containsKeys("endpoint.AccountManagementController.getFriends",
+                "endpoint.AccountManagementController.getFriends.statements",
+                "endpoint.AccountManagementController.getFriends.entity-loads",
+                "endpoint.AccountCRUDController.create",
+                "repository.AccountRepository.save");
+        assertThat((Integer) histograms.get("endpoint.AccountManagementController.getFriends").get("count"))
+                .isGreaterThanOrEqualTo(1);
+        assertThat((Integer) histograms.get("endpoint.AccountCRUDController.create.statements").get("max"))
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void lookupsShouldBeCachedUntilTheirTablesAreWritten() throws Exception {
+        // a missing email is cached as missing, until an import inserts it with JDBC
+        assertThat(accountRepository.findIdByEmail("cached@cache.com").isPresent()).isFalse();
+        long statements = QueryCounters.current().getStatements();
+        assertThat(accountRepository.findIdByEmail("cached@cache.com").isPresent()).isFalse();
+        assertThat(QueryCounters.current().getStatements()).isEqualTo(statements);
+        relationshipRepository.insertAccounts(Collections.singletonList("cached@cache.com"));
+        assertThat(accountRepository.findIdByEmail("cached@cache.com").isPresent()).isTrue();
+
+        createAccount("friend@cache.com");
+        assertThat(accountRepository.findFriendListByEmail("cached@cache.com").get()).isEmpty();
+        befriendAccounts("cached@cache.com", "friend@cache.com");
+        assertThat(accountRepository.findFriendListByEmail("cached@cache.com").get()).containsOnly("friend@cache.com");
+
+        Map<String, Object> metrics = new HashMap<>();
+        secondLevelCacheMetrics.metrics().forEach(metric -> metrics.put(metric.getName(), metric.getValue()));
+        assertThat(metrics).containsKeys("hibernate.cache.account.hits", "hibernate.cache.friend-queries.misses",
+                "hibernate.cache.recipient-queries.evictions", "hibernate.cache.block-queries.size");
+        assertThat((Long) metrics.get("hibernate.cache.account-queries.hits")).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    public void blocksAndSubscriptionsShouldBeCheckedInTheEdgeIndex() throws Exception {
+        createAccount("blocker@checks.com");
+        createAccount("blocked@checks.com");
+        blockAccount("blocker@checks.com", "blocked@checks.com");
+        subscribeToAccount("blocked@checks.com", "blocker@checks.com");
+
+        long statements = QueryCounters.current().getStatements();
+        assertThatThrownBy(() -> accountService.befriendAccounts("blocked@checks.com", "blocker@checks.com"))
+                .isInstanceOf(AccountBlockedException.class);
+        assertThatThrownBy(() -> accountService.subscribeToUpdates("blocked@checks.com", "blocker@checks.com"))
+                .isInstanceOf(AlreadySubscribedException.class);
+        // the emails are resolved by the email index and the edges by the edge index
+        assertThat(QueryCounters.current().getStatements()).isEqualTo(statements);
+    }
 
+    private Account createAccountRequest(String email) {
+        Account account = new Account();
+        account.setEmail(email);
+        return account;
     }
 
     private void blockAccount(String requestorEmail, String targetEmail) {
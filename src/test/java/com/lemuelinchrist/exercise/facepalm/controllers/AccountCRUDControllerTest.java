@@ -3,6 +3,7 @@ package com.lemuelinchrist.exercise.facepalm.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lemuelinchrist.exercise.facepalm.exception.ExistingEmailException;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
+import com.lemuelinchrist.exercise.facepalm.service.AccountImportService;
 import com.lemuelinchrist.exercise.facepalm.service.AccountService;
 import org.junit.Assert;
 import org.junit.Test;
@@ -36,6 +37,9 @@ public class AccountCRUDControllerTest {
     @MockBean
     AccountService accountService;
 
+    @MockBean
+    AccountImportService accountImportService;
+
     @Test
     public void shouldBeCreated() throws Exception {
         Account newAccount = new Account();
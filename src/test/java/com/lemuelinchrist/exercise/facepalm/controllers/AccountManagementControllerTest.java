@@ -1,15 +1,23 @@
 package com.lemuelinchrist.exercise.facepalm.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lemuelinchrist.exercise.facepalm.controllers.dto.FriendPairBatchRequestDTO;
 import com.lemuelinchrist.exercise.facepalm.controllers.dto.FriendPairRequestDTO;
+import com.lemuelinchrist.exercise.facepalm.controllers.dto.MutualFriendsRequestDTO;
 import com.lemuelinchrist.exercise.facepalm.controllers.dto.RequestorTargetDTO;
 import com.lemuelinchrist.exercise.facepalm.controllers.dto.SenderDTO;
+import com.lemuelinchrist.exercise.facepalm.exception.AccountBlockedException;
 import com.lemuelinchrist.exercise.facepalm.exception.AlreadyBlockedException;
 import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
+import com.lemuelinchrist.exercise.facepalm.graph.FriendSuggestion;
+import com.lemuelinchrist.exercise.facepalm.graph.MutualFriendCount;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
 import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import com.lemuelinchrist.exercise.facepalm.service.BatchItemResult;
+import com.lemuelinchrist.exercise.facepalm.service.EmailPair;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -21,7 +29,9 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -105,6 +115,44 @@ public class AccountManagementControllerTest {
                 .andReturn();
     }
 
+    // USER STORY 2
+    @Test
+    public void countsShouldBeServedFromCounters() throws Exception {
+        Account account = new Account();
+        account.setEmail("andy@example.com");
+        Account counted = Mockito.mock(Account.class);
+        Mockito.when(counted.getFriendCount()).thenReturn(2);
+        Mockito.when(counted.getSubscriberCount()).thenReturn(1);
+        Mockito.when(counted.getBlockerCount()).thenReturn(3);
+        Mockito.when(accountService.getRelationshipCountsOf("andy@example.com")).thenReturn(counted);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-friends").param("countOnly", "true")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(account))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(2)))
+                .andExpect(jsonPath("$.friends").doesNotExist());
+        // counting takes precedence over streaming rather than making the mappings ambiguous
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-friends").param("countOnly", "true").param("stream", "true")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(account))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(2)))
+                .andExpect(jsonPath("$.friends").doesNotExist());
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-relationship-counts")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(account))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends", is(2)))
+                .andExpect(jsonPath("$.subscribers", is(1)))
+                .andExpect(jsonPath("$.subscriptions", is(0)))
+                .andExpect(jsonPath("$.blockers", is(3)));
+        Mockito.verify(accountService, Mockito.never()).getFriendListByEmail(Mockito.anyString());
+    }
+
     // USER STORY 3
     @Test
     public void commonFriendListRequestShouldShowExactEmails() throws Exception {
@@ -147,7 +195,6 @@ public class AccountManagementControllerTest {
 
 
         RequestorTargetDTO requestorTargetDTO = new RequestorTargetDTO(account.getEmail(), account2.getEmail());
-        Mockito.when(accountService.subscribeToUpdates(account.getEmail(), account2.getEmail())).thenReturn(account2);
 
         RequestBuilder requestBuilder = MockMvcRequestBuilders
                 .post("/account-management/subscribe-updates")
@@ -169,11 +216,10 @@ public class AccountManagementControllerTest {
         Account account2 = new Account();
         String email2 = "testEmail2@gmadil.com";
         account2.setEmail(email2);
-        account2.addSubscriber(account);
 
 
         RequestorTargetDTO requestorTargetDTO = new RequestorTargetDTO(account.getEmail(), account2.getEmail());
-        Mockito.when(accountService.subscribeToUpdates(account.getEmail(), account2.getEmail())).thenThrow(AlreadySubscribedException.class);
+        Mockito.doThrow(AlreadySubscribedException.class).when(accountService).subscribeToUpdates(account.getEmail(), account2.getEmail());
 
         RequestBuilder requestBuilder = MockMvcRequestBuilders
                 .post("/account-management/subscribe-updates")
@@ -199,7 +245,6 @@ public class AccountManagementControllerTest {
 
 
         RequestorTargetDTO requestorTargetDTO = new RequestorTargetDTO(account.getEmail(), account2.getEmail());
-        Mockito.when(accountService.blockAccount(account.getEmail(), account2.getEmail())).thenReturn(account2);
 
         RequestBuilder requestBuilder = MockMvcRequestBuilders
                 .post("/account-management/block-account")
@@ -221,11 +266,10 @@ public class AccountManagementControllerTest {
         Account account2 = new Account();
         String email2 = "testEmail2@gmadil.com";
         account2.setEmail(email2);
-        account2.addSubscriber(account);
 
 
         RequestorTargetDTO requestorTargetDTO = new RequestorTargetDTO(account.getEmail(), account2.getEmail());
-        Mockito.when(accountService.subscribeToUpdates(account.getEmail(), account2.getEmail())).thenThrow(AlreadyBlockedException.class);
+        Mockito.doThrow(AlreadyBlockedException.class).when(accountService).subscribeToUpdates(account.getEmail(), account2.getEmail());
 
         RequestBuilder requestBuilder = MockMvcRequestBuilders
                 .post("/account-management/subscribe-updates")
@@ -252,7 +296,10 @@ public class AccountManagementControllerTest {
         String emailInText1 = "lemuel@cantos.com";
         String emailInText2 = "cantos@lemuel.com";
         SenderDTO senderDTO = new SenderDTO(account.getEmail(), "This is a test message with " + emailInText1 + " and " + emailInText2 + " email in the middle");
-        Mockito.when(accountService.getBroadcastRecipientsOf(account.getEmail())).thenReturn(friendsAndSubscribersList);
+        List<String> recipients = new ArrayList<>(friendsAndSubscribersList);
+        recipients.add(emailInText1);
+        recipients.add(emailInText2);
+        Mockito.when(accountService.getUpdateRecipientsOf(account.getEmail(), senderDTO.getText())).thenReturn(recipients);
 
         RequestBuilder requestBuilder = MockMvcRequestBuilders
                 .post("/account-management/get-update-recipients")
@@ -271,6 +318,120 @@ public class AccountManagementControllerTest {
                 .andReturn();
     }
 
+    @Test
+    public void negativeFriendCursorShouldBeRejected() throws Exception {
+        Account account = new Account();
+        account.setEmail("andy@example.com");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-friends").param("limit", "2").param("cursor", "-1")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(account))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(accountService, Mockito.never()).getFriendPageByEmail(Mockito.anyString(), Mockito.anyLong(),
+                Mockito.anyInt());
+    }
+
+    // PEOPLE YOU MAY KNOW
+    @Test
+    public void friendSuggestionsShouldBeRankedAndLimited() throws Exception {
+        Account account = new Account();
+        account.setEmail("andy@example.com");
+        Mockito.when(accountService.getFriendSuggestionsOf("andy@example.com", 2)).thenReturn(Arrays.asList(
+                new FriendSuggestion("kate@example.com", 3), new FriendSuggestion("mike@example.com", 1)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-friend-suggestions").param("limit", "2")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(account))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is("true")))
+                .andExpect(jsonPath("$.suggestions[0].email", is("kate@example.com")))
+                .andExpect(jsonPath("$.suggestions[0].mutualFriends", is(3)))
+                .andExpect(jsonPath("$.suggestions[1].email", is("mike@example.com")))
+                .andExpect(jsonPath("$.count", is(2)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-friend-suggestions").param("limit", "0")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(account))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void mutualFriendCountsShouldFollowCandidates() throws Exception {
+        MutualFriendsRequestDTO requestDTO = new MutualFriendsRequestDTO("andy@example.com",
+                Arrays.asList("kate@example.com", "mike@example.com"));
+        Mockito.when(accountService.getMutualFriendCountsOf("andy@example.com", requestDTO.getCandidates(), true))
+                .thenReturn(Arrays.asList(
+                        new MutualFriendCount("kate@example.com", 1, Collections.singletonList("john@example.com")),
+                        new MutualFriendCount("mike@example.com", 0, Collections.emptyList())));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-mutual-friend-counts").param("withLists", "true")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(requestDTO))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.candidates[0].mutualFriends", is(1)))
+                .andExpect(jsonPath("$.candidates[0].friends[0]", is("john@example.com")))
+                .andExpect(jsonPath("$.candidates[1].email", is("mike@example.com")))
+                .andExpect(jsonPath("$.count", is(2)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/get-mutual-friend-counts")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(convertToJson(new MutualFriendsRequestDTO("andy@example.com", Collections.emptyList())))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void connectionPathShouldReportDegrees() throws Exception {
+        FriendPairRequestDTO friendPairRequestDTO = new FriendPairRequestDTO("andy@example.com", "kate@example.com");
+        Mockito.when(accountService.getConnectionPath("andy@example.com", "kate@example.com", 3, 100_000, true))
+                .thenReturn(Arrays.asList("andy@example.com", "john@example.com", "kate@example.com"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/connection-path").param("maxDepth", "3").param("honourBlocks", "true")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(friendPairRequestDTO))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is("true")))
+                .andExpect(jsonPath("$.path[1]", is("john@example.com")))
+                .andExpect(jsonPath("$.degrees", is(2)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/account-management/connection-path").param("maxDepth", "13")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(friendPairRequestDTO))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    // USER STORY 1 in bulk
+    @Test
+    public void befriendBatchShouldReportEveryItem() throws Exception {
+        FriendPairBatchRequestDTO batchRequestDTO = new FriendPairBatchRequestDTO(Arrays.asList(
+                new FriendPairRequestDTO("good@email.com", "secondGood@email.com"),
+                new FriendPairRequestDTO("bad", "secondGood@email.com"),
+                new FriendPairRequestDTO("good@email.com", "blocked@email.com")));
+        Mockito.when(accountService.befriendAccounts(Matchers.anyListOf(EmailPair.class)))
+                .thenReturn(Arrays.asList(BatchItemResult.success(), BatchItemResult.failure(AccountBlockedException.class)));
+
+        RequestBuilder requestBuilder = MockMvcRequestBuilders
+                .post("/account-management/befriend-batch")
+                .accept(MediaType.APPLICATION_JSON).content(convertToJson(batchRequestDTO))
+                .contentType(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is("true")))
+                .andExpect(jsonPath("$.count", is(1)))
+                .andExpect(jsonPath("$.results[0].success", is("true")))
+                .andExpect(jsonPath("$.results[1].success", is("false")))
+                .andExpect(jsonPath("$.results[2].index", is(2)))
+                .andExpect(jsonPath("$.results[2].error", is("Cannot befriend. One Account blocked the other")));
+    }
+
     private RequestBuilder sendBefriendRequest(String firstEmail, String secondEmail) throws Exception {
         FriendPairRequestDTO friendPairRequestDTO = new FriendPairRequestDTO();
         friendPairRequestDTO.setFriends(Arrays.asList(firstEmail, secondEmail));
@@ -0,0 +1,70 @@
+package com.lemuelinchrist.exercise.facepalm.email;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class EmailScannerTest {
+    private static final Pattern REQUEST_EMAIL = Pattern.compile("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,4}");
+    private static final Pattern MENTION = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+");
+    // skewed towards the characters that matter to both grammars
+    private static final String ALPHABET = "ab1Z@@..-_+% é";
+
+    @Test
+    public void emailsShouldBeValidated() {
+        assertThat(EmailScanner.isValidEmail("andy@example.com")).isTrue();
+        assertThat(EmailScanner.isValidEmail("first.last+tag%1@sub.example-mail.info")).isTrue();
+        assertThat(EmailScanner.isValidEmail("andy@example.c")).isFalse();
+        assertThat(EmailScanner.isValidEmail("andy@example.museum")).isFalse();
+        assertThat(EmailScanner.isValidEmail("andy@.com")).isFalse();
+        assertThat(EmailScanner.isValidEmail("andy@@example.com")).isFalse();
+        assertThat(EmailScanner.isValidEmail("@example.com")).isFalse();
+        assertThat(EmailScanner.isValidEmail("")).isFalse();
+        assertThat(EmailScanner.isValidEmail(null)).isFalse();
+    }
+
+    @Test
+    public void mentionsShouldBeFoundInOrder() {
+        assertThat(EmailScanner.findMentions("Hello World! kate@example.com, (lisa@example.com) and x@y"))
+                .containsExactly("kate@example.com", "lisa@example.com");
+        assertThat(EmailScanner.findMentions("a@b@c.com x@a.b.c@d.com")).containsExactly("b@c.com", "x@a.b.c");
+        assertThat(EmailScanner.findMentions(null)).isEmpty();
+    }
+
+    @Test
+    public void scannerShouldAgreeWithTheRegularExpressions() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String text = randomText(random, 1 + random.nextInt(24));
+            assertThat(EmailScanner.isValidEmail(text)).as(text).isEqualTo(REQUEST_EMAIL.matcher(text).matches());
+            assertThat(EmailScanner.findMentions(text)).as(text).isEqualTo(regexMentions(text));
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    private static List<String> regexMentions(String text) {
+        List<String> mentions = new ArrayList<>();
+        Matcher matcher = MENTION.matcher(text);
+        while (matcher.find()) {
+            mentions.add(matcher.group());
+        }
+        return mentions;
+    }
+}
@@ -0,0 +1,116 @@
+package com.lemuelinchrist.exercise.facepalm.fanout;
+
+import com.lemuelinchrist.exercise.facepalm.exception.FanOutRejectedException;
+import com.lemuelinchrist.exercise.facepalm.metrics.LatencyHistograms;
+import com.lemuelinchrist.exercise.facepalm.service.AccountService;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class FanOutServiceTest {
+    private final AccountService accountService = Mockito.mock(AccountService.class);
+    private final LatencyHistograms latencyHistograms = new LatencyHistograms();
+    private FanOutService fanOutService;
+
+    @After
+    public void tearDown() throws Exception {
+        if (fanOutService != null) fanOutService.shutdown();
+    }
+
+    @Test
+    public void updatesShouldBeDeliveredToEveryRecipientInBatches() throws Exception {
+        List<String> recipients = recipients(10_005);
+        Mockito.when(accountService.getUpdateRecipientsOf("star@fanout.com", "Hello World!")).thenReturn(recipients);
+        MemoryInboxStore inboxStore = new MemoryInboxStore(2);
+        fanOutService = new FanOutService(accountService, inboxStore, latencyHistograms, 4, 100, 8, 10);
+
+        FanOutJob first = fanOutService.post("star@fanout.com", "Hello World!");
+        FanOutJob second = fanOutService.post("star@fanout.com", "Hello World!");
+        FanOutJob third = fanOutService.post("star@fanout.com", "Hello World!");
+        awaitFinished(first, second, third);
+
+        assertThat(third.getState()).isEqualTo(FanOutJob.State.DONE);
+        assertThat(third.getRecipients()).isEqualTo(10_005);
+        assertThat(third.getDelivered()).isEqualTo(10_005);
+        assertThat(third.getFailed()).isZero();
+        assertThat(fanOutService.getJob(second.getId()).get()).isSameAs(second);
+        // inboxes keep the newest updates only
+        assertThat(inboxStore.getInbox("fan10004@fanout.com")).extracting(Update::getId)
+                .containsExactly(third.getId(), second.getId());
+        assertThat(inboxStore.getInbox("nobody@fanout.com")).isEmpty();
+        assertThat(latencyHistograms.snapshot().get("fanout.batch").get("count")).isEqualTo(303L);
+        assertThat(latencyHistograms.snapshot().get("fanout.update").get("count")).isEqualTo(3L);
+    }
+
+    @Test
+    public void dispatcherShouldWaitForWorkersBeyondThePendingBatches() throws Exception {
+        Mockito.when(accountService.getUpdateRecipientsOf(anyString(), anyString())).thenReturn(recipients(100));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        InboxStore blockedStore = new InboxStore() {
+            @Override
+            public void deliver(Update update, List<String> batch) {
+                started.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public List<Update> getInbox(String email) {
+                return new ArrayList<>();
+            }
+        };
+        fanOutService = new FanOutService(accountService, blockedStore, latencyHistograms, 8, 10, 2, 1);
+
+        FanOutJob job = fanOutService.post("star@fanout.com", "Hello");
+        while (started.get() < 2) Thread.sleep(5);
+        // the dispatcher holds the third batch back, and the single queued update fills the queue
+        fanOutService.post("star@fanout.com", "Queued");
+        Thread.sleep(50);
+        assertThat(started.get()).isEqualTo(2);
+        try {
+            fanOutService.post("star@fanout.com", "Rejected");
+            throw new AssertionError("The full queue should reject the update");
+        } catch (FanOutRejectedException expected) {
+            // back-pressure reaches the caller
+        }
+
+        release.countDown();
+        awaitFinished(job);
+        assertThat(job.getDelivered()).isEqualTo(100);
+    }
+
+    private static List<String> recipients(int count) {
+        List<String> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add("fan" + i + "@fanout.com");
+        }
+        return recipients;
+    }
+
+    private static void awaitFinished(FanOutJob... jobs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (FanOutJob job : jobs) {
+            while (job.getFinishedAt() == 0) {
+                if (System.nanoTime() > deadline) throw new AssertionError("Job " + job.getId() + " did not finish");
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class GraphJournalTest {
+    private static final String ANDY = "andy@example.com";
+    private static final String JOHN = "john@example.com";
+    private static final String LISA = "lisa@example.com";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recoveryShouldStopAtTornOrCorruptRecord() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("graph.journal");
+        try (GraphJournal journal = new GraphJournal(path, true, 0, changes -> { })) {
+            journal.recover();
+            journal.append(new GraphChange(GraphChange.Type.ACCOUNT, ANDY, null));
+            journal.append(new GraphChange(GraphChange.Type.FRIENDSHIP, ANDY, JOHN));
+            journal.awaitDurable(journal.append(new GraphChange(GraphChange.Type.BLOCK, LISA, ANDY)));
+        }
+        long length;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            length = file.length();
+            // flips a byte of the last email, as a torn write would
+            file.seek(length - 1);
+            int last = file.read();
+            file.seek(length - 1);
+            file.write(last ^ 0xff);
+            // and leaves half a frame behind it
+            file.seek(length);
+            file.write(new byte[]{0, 0, 0});
+        }
+
+        try (GraphJournal journal = new GraphJournal(path, true, 0, changes -> { })) {
+            List<GraphChange> recovered = journal.recover();
+
+            assertThat(recovered).extracting("type")
+                    .containsExactly(GraphChange.Type.ACCOUNT, GraphChange.Type.FRIENDSHIP);
+            assertThat(recovered).extracting("secondEmail").containsExactly(null, JOHN);
+            assertThat(journal.records()).isEqualTo(2);
+            // new records follow the last valid one
+            journal.awaitDurable(journal.append(new GraphChange(GraphChange.Type.SUBSCRIPTION, JOHN, LISA)));
+        }
+        try (GraphJournal journal = new GraphJournal(path, true, 0, changes -> { })) {
+            assertThat(journal.recover()).extracting("type").containsExactly(GraphChange.Type.ACCOUNT,
+                    GraphChange.Type.FRIENDSHIP, GraphChange.Type.SUBSCRIPTION);
+        }
+    }
+
+    @Test
+    public void truncateToMarkShouldKeepRecordsAppendedAfterTheMark() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("graph.journal");
+        try (GraphJournal journal = new GraphJournal(path, true, 0, changes -> { })) {
+            journal.recover();
+            journal.append(new GraphChange(GraphChange.Type.ACCOUNT, ANDY, null));
+            journal.append(new GraphChange(GraphChange.Type.FRIENDSHIP, ANDY, JOHN));
+            journal.mark();
+            journal.append(new GraphChange(GraphChange.Type.BLOCK, LISA, ANDY));
+
+            journal.truncateToMark();
+            assertThat(journal.records()).isEqualTo(1);
+            // commits after the cut go to the new file
+            journal.awaitDurable(journal.append(new GraphChange(GraphChange.Type.SUBSCRIPTION, JOHN, LISA)));
+        }
+        try (GraphJournal journal = new GraphJournal(path, true, 0, changes -> { })) {
+            assertThat(journal.recover()).extracting("type")
+                    .containsExactly(GraphChange.Type.BLOCK, GraphChange.Type.SUBSCRIPTION);
+        }
+    }
+
+    @Test
+    public void concurrentAppendsShouldShareCommits() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("graph.journal");
+        int writers = 8;
+        int appendsPerWriter = 200;
+        List<GraphChange> durable = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try (GraphJournal journal = new GraphJournal(path, true, TimeUnit.MILLISECONDS.toNanos(1), durable::addAll)) {
+            journal.recover();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                String email = "writer" + writer + "@example.com";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < appendsPerWriter; i++) {
+                        long sequence = journal.append(new GraphChange(GraphChange.Type.FRIENDSHIP, email, ANDY));
+                        journal.awaitDurable(sequence);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertThat(durable).hasSize(writers * appendsPerWriter);
+            assertThat(journal.commits()).isLessThan(writers * appendsPerWriter);
+        } finally {
+            executor.shutdown();
+        }
+        try (GraphJournal journal = new GraphJournal(path, true, 0, changes -> { })) {
+            assertThat(journal.recover()).hasSize(writers * appendsPerWriter);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class InMemorySocialGraphTest {
+    private static final String ANDY = "andy@example.com";
+    private static final String JOHN = "john@example.com";
+    private static final String LISA = "lisa@example.com";
+    private static final String KATE = "kate@example.com";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AccountRepository accountRepository;
+    private RelationshipRepository relationshipRepository;
+    private InMemorySocialGraph graph;
+
+    @Before
+    public void createGraph() {
+        accountRepository = Mockito.mock(AccountRepository.class);
+        relationshipRepository = Mockito.mock(RelationshipRepository.class);
+        graph = createGraph(1000, null, "database");
+        addAccounts(graph, ANDY, JOHN, LISA, KATE);
+    }
+
+    @Test
+    public void graphShouldBeLoadedFromRepository() {
+        Mockito.doAnswer(accounts(ANDY, JOHN, LISA)).when(relationshipRepository).forEachAccount(Mockito.any());
+        Mockito.doAnswer(pairs(1, 2, 2, 1)).when(relationshipRepository).forEachFriendship(Mockito.any());
+        Mockito.doAnswer(pairs(1, 3)).when(relationshipRepository).forEachSubscription(Mockito.any());
+        Mockito.doAnswer(pairs(2, 1)).when(relationshipRepository).forEachBlock(Mockito.any());
+
+        InMemorySocialGraph loaded = createGraph(1000, null, "database");
+
+        assertThat(loaded.accountIdOf(LISA)).isEqualTo(3);
+        assertThat(loaded.accountIdOf(KATE)).isEqualTo(-1);
+        assertThat(loaded.getFriendsOf(ANDY)).containsExactly(JOHN);
+        assertThat(loaded.getBroadcastRecipientsOf(ANDY)).containsExactly(LISA);
+    }
+
+    // USER STORY 1 and 2
+    @Test
+    public void friendshipShouldBeMutual() {
+        graph.addFriendship(ANDY, JOHN);
+        graph.addFriendship(ANDY, LISA);
+        graph.addFriendship(JOHN, ANDY);
+
+        assertThat(graph.getFriendsOf(ANDY)).containsExactly(JOHN, LISA);
+        assertThat(graph.getFriendsOf(JOHN)).containsExactly(ANDY);
+        assertThat(graph.getFriendsOf(KATE)).isEmpty();
+    }
+
+    // USER STORY 2, paginated
+    @Test
+    public void friendPagesShouldFollowDatabaseIds() {
+        InMemorySocialGraph paged = createGraph(1000, null, "database");
+        paged.addAccount(ANDY, 10);
+        paged.addAccount(JOHN, 20);
+        paged.addAccount(LISA, 30);
+        paged.addAccount(KATE, 40);
+        paged.addFriendship(ANDY, KATE);
+        paged.addFriendship(ANDY, JOHN);
+        paged.addFriendship(ANDY, LISA);
+
+        FriendPage first = paged.getFriendsOf(ANDY, null, 2);
+        assertThat(first.getEmails()).containsExactly(JOHN, LISA);
+        assertThat(first.getNextCursor()).isEqualTo(30L);
+        FriendPage last = paged.getFriendsOf(ANDY, first.getNextCursor(), 2);
+        assertThat(last.getEmails()).containsExactly(KATE);
+        assertThat(last.getNextCursor()).isNull();
+
+        // an Account added out of id order leaves the int ids out of database id order
+        paged.addAccount("mike@example.com", 25);
+        paged.addFriendship(ANDY, "mike@example.com");
+        assertThat(paged.getFriendsOf(ANDY, null, 2).getEmails()).containsExactly(JOHN, "mike@example.com");
+        assertThat(paged.getFriendsOf(ANDY, 25L, 2).getEmails()).containsExactly(LISA, KATE);
+        assertThat(paged.getFriendsOf(ANDY, 25L, 2).getNextCursor()).isNull();
+    }
+
+    // USER STORY 3
+    @Test
+    public void commonFriendsShouldBeIntersected() {
+        graph.addFriendship(ANDY, LISA);
+        graph.addFriendship(ANDY, KATE);
+        graph.addFriendship(JOHN, KATE);
+
+        assertThat(graph.getCommonFriendsOf(ANDY, JOHN)).containsExactly(KATE);
+        assertThat(graph.getCommonFriendsOf(ANDY, "unknown@example.com")).isEmpty();
+    }
+
+    // USER STORY 4, 5 and 6
+    @Test
+    public void broadcastRecipientsShouldExcludeBlockers() {
+        graph.addFriendship(ANDY, JOHN);
+        graph.addFriendship(ANDY, LISA);
+        graph.addSubscription(LISA, ANDY);
+        graph.addSubscription(KATE, ANDY);
+        graph.addBlock(JOHN, ANDY);
+
+        assertThat(graph.getBroadcastRecipientsOf(ANDY)).containsExactly(LISA, KATE);
+        assertThat(graph.getBroadcastRecipientsOf(KATE)).isEmpty();
+        assertThat(graph.getBlockersAmong(ANDY, Arrays.asList(JOHN, LISA, "unknown@example.com"))).containsExactly(JOHN);
+    }
+
+    // USER STORY 6
+    @Test
+    public void materializedRecipientsShouldBeMaintainedIncrementally() {
+        InMemorySocialGraph heavyGraph = createGraph(2, null, "database");
+        heavyGraph.addFriendship(ANDY, JOHN);
+        heavyGraph.addSubscription(LISA, ANDY);
+        // ANDY reached the threshold and is now materialized
+        assertThat(heavyGraph.getBroadcastRecipientsOf(ANDY)).containsExactly(JOHN, LISA);
+
+        heavyGraph.addBlock(KATE, ANDY);
+        heavyGraph.addSubscription(KATE, ANDY);
+        heavyGraph.addBlock(JOHN, ANDY);
+        assertThat(heavyGraph.getBroadcastRecipientsOf(ANDY)).containsExactly(LISA);
+
+        heavyGraph.addFriendship(ANDY, "mike@example.com");
+        assertThat(heavyGraph.getBroadcastRecipientsOf(ANDY)).containsExactly(LISA, "mike@example.com");
+    }
+
+    @Test
+    public void friendSuggestionsShouldBeRankedByMutualFriends() {
+        String mike = "mike@example.com";
+        String nina = "nina@example.com";
+        graph.addFriendship(ANDY, JOHN);
+        graph.addFriendship(ANDY, LISA);
+        graph.addFriendship(JOHN, KATE);
+        graph.addFriendship(LISA, KATE);
+        graph.addFriendship(JOHN, mike);
+        graph.addFriendship(LISA, nina);
+        // friends of friends that are friends already, or blocked either way, are not suggested
+        graph.addFriendship(JOHN, LISA);
+        graph.addBlock(nina, ANDY);
+
+        List<FriendSuggestion> suggestions = graph.getFriendSuggestionsOf(ANDY, 10);
+
+        assertThat(suggestions).extracting("email").containsExactly(KATE, mike);
+        assertThat(suggestions).extracting("mutualFriends").containsExactly(2, 1);
+        assertThat(graph.getFriendSuggestionsOf(ANDY, 1)).extracting("email").containsExactly(KATE);
+        assertThat(graph.getFriendSuggestionsOf("nobody@example.com", 10)).isEmpty();
+    }
+
+    @Test
+    public void mutualFriendsShouldBeCountedForEveryCandidate() {
+        String mike = "mike@example.com";
+        graph.addAccount(mike, 5);
+        graph.addFriendship(ANDY, JOHN);
+        graph.addFriendship(ANDY, LISA);
+        graph.addFriendship(KATE, JOHN);
+        graph.addFriendship(KATE, LISA);
+        graph.addFriendship(mike, LISA);
+        List<String> candidates = Arrays.asList(KATE, mike, JOHN, "nobody@example.com");
+
+        assertThat(graph.getMutualFriendCountsOf(ANDY, candidates, false)).extracting("mutualFriends")
+                .containsExactly(2, 1, 0, 0);
+        List<MutualFriendCount> lists = graph.getMutualFriendCountsOf(ANDY, candidates, true);
+        assertThat(lists).extracting("email").containsExactlyElementsOf(candidates);
+        assertThat(lists.get(0).getFriends()).containsExactly(JOHN, LISA);
+        assertThat(lists.get(1).getFriends()).containsExactly(LISA);
+        assertThat(lists.get(3).getFriends()).isEmpty();
+        assertThat(graph.getMutualFriendCountsOf("nobody@example.com", candidates, false)).extracting("mutualFriends")
+                .containsExactly(0, 0, 0, 0);
+    }
+
+    @Test
+    public void connectionPathShouldBeShortestWithinLimits() {
+        String mike = "mike@example.com";
+        String nina = "nina@example.com";
+        graph.addAccount(nina, 5);
+        graph.addFriendship(ANDY, JOHN);
+        graph.addFriendship(JOHN, KATE);
+        graph.addFriendship(ANDY, LISA);
+        graph.addFriendship(LISA, mike);
+        graph.addFriendship(mike, KATE);
+        graph.addBlock(KATE, JOHN);
+
+        assertThat(graph.getConnectionPathOf(ANDY, KATE, 6, 1000, false)).containsExactly(ANDY, JOHN, KATE);
+        assertThat(graph.getConnectionPathOf(KATE, ANDY, 6, 1000, false)).containsExactly(KATE, JOHN, ANDY);
+        // the friendship of KATE and JOHN is not followed once KATE blocked JOHN
+        assertThat(graph.getConnectionPathOf(ANDY, KATE, 6, 1000, true)).containsExactly(ANDY, LISA, mike, KATE);
+        assertThat(graph.getConnectionPathOf(ANDY, KATE, 2, 1000, true)).isEmpty();
+        assertThat(graph.getConnectionPathOf(ANDY, KATE, 6, 1, false)).isEmpty();
+        assertThat(graph.getConnectionPathOf(ANDY, nina, 6, 1000, false)).isEmpty();
+        assertThat(graph.getConnectionPathOf(ANDY, ANDY, 6, 1000, false)).containsExactly(ANDY);
+    }
+
+    @Test
+    public void graphShouldBeRestoredFromSnapshotAndJournal() throws Exception {
+        String snapshot = new File(folder.getRoot(), "graph.snapshot").getPath();
+        InMemorySocialGraph saved = createGraph(2, snapshot, "database");
+        addAccounts(saved, ANDY, JOHN, LISA, KATE);
+        saved.addFriendship(ANDY, JOHN);
+        saved.addFriendship(ANDY, LISA);
+        saved.addFriendship(JOHN, LISA);
+        saved.addSubscription(KATE, ANDY);
+        saved.addBlock(LISA, KATE);
+        saved.writeSnapshot();
+        // journaled after the snapshot
+        saved.addAccount("mike@example.com", 5);
+        saved.addFriendship(LISA, "mike@example.com");
+        saved.addBlock(JOHN, ANDY);
+        // the journal thread writes the records behind the graph
+        saved.sync();
+
+        Mockito.reset(accountRepository, relationshipRepository);
+        Mockito.when(accountRepository.count()).thenReturn(5L);
+        Mockito.when(accountRepository.countFriendships()).thenReturn(8L);
+        Mockito.when(accountRepository.countSubscriptions()).thenReturn(1L);
+        Mockito.when(accountRepository.countBlocks()).thenReturn(2L);
+        InMemorySocialGraph restored = createGraph(2, snapshot, "database");
+
+        Mockito.verify(relationshipRepository, Mockito.never()).forEachFriendship(Mockito.any());
+        assertThat(restored.getFriendsOf(LISA)).containsExactly(ANDY, JOHN, "mike@example.com");
+        // the database ids come from the snapshot and the journal
+        assertThat(restored.accountIdOf(KATE)).isEqualTo(4);
+        assertThat(restored.accountIdOf("mike@example.com")).isEqualTo(5);
+        assertThat(restored.getCommonFriendsOf(ANDY, JOHN)).containsExactly(LISA);
+        assertThat(restored.getBroadcastRecipientsOf(ANDY)).containsExactly(LISA, KATE);
+        assertThat(restored.getBlockersAmong(KATE, Arrays.asList(ANDY, LISA))).containsExactly(LISA);
+
+        // a list of the snapshot is copied before it changes
+        restored.addFriendship(JOHN, KATE);
+        assertThat(restored.getFriendsOf(JOHN)).containsExactly(ANDY, LISA, KATE);
+        assertThat(restored.getFriendsOf(ANDY)).containsExactly(JOHN, LISA);
+    }
+
+    @Test
+    public void snapshotShouldBeIgnoredWhenDatabaseDiffers() throws Exception {
+        String snapshot = new File(folder.getRoot(), "graph.snapshot").getPath();
+        InMemorySocialGraph saved = createGraph(1000, snapshot, "database");
+        addAccounts(saved, ANDY, JOHN);
+        saved.addFriendship(ANDY, JOHN);
+        saved.shutdown();
+
+        // the database lost the friendship
+        Mockito.when(accountRepository.count()).thenReturn(2L);
+        Mockito.doAnswer(accounts(ANDY, JOHN)).when(relationshipRepository).forEachAccount(Mockito.any());
+        InMemorySocialGraph loaded = createGraph(1000, snapshot, "database");
+
+        assertThat(loaded.accountIdOf(JOHN)).isEqualTo(2);
+        assertThat(loaded.getFriendsOf(ANDY)).isEmpty();
+    }
+
+    @Test
+    public void writeAheadLogShouldBeReplayedAndHandedToListener() throws Exception {
+        String snapshot = new File(folder.getRoot(), "graph.snapshot").getPath();
+        InMemorySocialGraph crashed = createGraph(1000, snapshot, "wal");
+        addAccounts(crashed, ANDY, JOHN);
+        crashed.addFriendship(ANDY, JOHN);
+        crashed.addSubscription(JOHN, ANDY);
+        crashed.sync();
+        // no listener wrote the relationships before the crash
+
+        Mockito.when(accountRepository.count()).thenReturn(2L);
+        InMemorySocialGraph recovered = createGraph(1000, snapshot, "wal");
+        List<GraphChange> received = new ArrayList<>();
+        recovered.setChangeListener(new GraphChangeListener() {
+            @Override
+            public void changesDurable(List<GraphChange> changes) {
+                received.addAll(changes);
+            }
+
+            @Override
+            public boolean flush(long timeout, TimeUnit unit) {
+                return true;
+            }
+        });
+
+        List<AccountPair> subscriptions = new ArrayList<>();
+        recovered.forEachSubscription(
+                (targetId, subscriberId) -> subscriptions.add(new AccountPair(targetId, subscriberId)));
+        assertThat(recovered.getFriendsOf(ANDY)).containsExactly(JOHN);
+        // the replayed subscription of John to Andy is handed to the edge index with their database ids
+        assertThat(subscriptions).containsExactly(new AccountPair(1, 2));
+        assertThat(received).extracting("type").containsExactly(GraphChange.Type.ACCOUNT, GraphChange.Type.ACCOUNT,
+                GraphChange.Type.FRIENDSHIP, GraphChange.Type.SUBSCRIPTION);
+    }
+
+    private InMemorySocialGraph createGraph(int broadcasterThreshold, String snapshot, String durability) {
+        InMemorySocialGraph created = new InMemorySocialGraph(accountRepository, relationshipRepository,
+                broadcasterThreshold, snapshot, 600, durability, 0);
+        created.load();
+        return created;
+    }
+
+    // the Accounts get the database ids 1, 2, 3...
+    private static void addAccounts(InMemorySocialGraph graph, String... emails) {
+        for (int i = 0; i < emails.length; i++) {
+            graph.addAccount(emails[i], i + 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Answer<Void> accounts(String... emails) {
+        return invocation -> {
+            ObjLongConsumer<String> consumer = (ObjLongConsumer<String>) invocation.getArguments()[0];
+            for (int i = 0; i < emails.length; i++) {
+                consumer.accept(emails[i], i + 1);
+            }
+            return null;
+        };
+    }
+
+    private static Answer<Void> pairs(long... ids) {
+        return invocation -> {
+            RelationshipRepository.PairConsumer consumer =
+                    (RelationshipRepository.PairConsumer) invocation.getArguments()[0];
+            for (int i = 0; i < ids.length; i += 2) {
+                consumer.accept(ids[i], ids[i + 1]);
+            }
+            return null;
+        };
+    }
+}
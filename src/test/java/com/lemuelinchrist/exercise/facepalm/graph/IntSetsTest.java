@@ -0,0 +1,102 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class IntSetsTest {
+
+    @Test
+    public void allIntersectionStrategiesShouldAgree() {
+        Random random = new Random(42);
+        int[] small = randomSortedSet(random, 50, 200_000);
+        int[] large = randomSortedSet(random, 20_000, 200_000);
+        int[] expected = IntStream.of(small).filter(value -> Arrays.binarySearch(large, value) >= 0).toArray();
+
+        assertThat(IntSets.intersect(small, small.length, large, large.length)).containsExactly(expected);
+        assertThat(IntSets.intersectGalloping(small, small.length, large, large.length)).containsExactly(expected);
+        assertThat(IntSets.intersect(small, small.length, IntBitmap.of(large, large.length))).containsExactly(expected);
+        assertThat(IntBitmap.of(small, small.length).and(IntBitmap.of(large, large.length))).containsExactly(expected);
+    }
+
+    @Test
+    public void adjacencyShouldIntersectHubsAndSkewedLists() {
+        IntAdjacency adjacency = new IntAdjacency(4, 100);
+        // 0 and 1 are hubs, 2 is a small list, 3 is skewed against the hubs
+        for (int i = 0; i < 300; i++) {
+            adjacency.add(0, i * 2);
+            adjacency.add(1, i * 3);
+        }
+        adjacency.add(2, 6);
+        adjacency.add(2, 7);
+        adjacency.add(3, 12);
+
+        assertThat(adjacency.intersect(0, 1)).hasSize(100).startsWith(0, 6, 12);
+        assertThat(adjacency.intersect(2, 0)).containsExactly(6);
+        assertThat(adjacency.intersect(1, 3)).containsExactly(12);
+        assertThat(adjacency.contains(0, 598)).isTrue();
+        assertThat(adjacency.contains(0, 599)).isFalse();
+    }
+
+    @Test
+    public void mappedListsShouldBeCopiedOnce() {
+        IntAdjacency adjacency = new IntAdjacency(3);
+        // CSR lists: 0 -> {1, 2}, 1 -> {}, 2 -> {0}
+        adjacency.map(3, IntBuffer.wrap(new int[]{0, 2, 2, 3}), IntBuffer.wrap(new int[]{1, 2, 0}));
+
+        int[] first = adjacency.neighbours(0);
+        assertThat(adjacency.neighbours(0)).isSameAs(first);
+        assertThat(Arrays.copyOf(first, adjacency.degree(0))).containsExactly(1, 2);
+        assertThat(adjacency.contains(2, 0)).isTrue();
+        assertThat(adjacency.neighbours(1)).isEmpty();
+
+        adjacency.add(0, 0);
+        assertThat(Arrays.copyOf(adjacency.neighbours(0), adjacency.degree(0))).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void viewShouldKeepListsAsTheyWereWhenOpened() {
+        IntAdjacency adjacency = new IntAdjacency(3);
+        // CSR lists: 0 -> {1, 2}, 1 -> {}, 2 -> {0}
+        adjacency.map(3, IntBuffer.wrap(new int[]{0, 2, 2, 3}), IntBuffer.wrap(new int[]{1, 2, 0}));
+        adjacency.add(2, 1);
+
+        IntAdjacency.View view = adjacency.openView(3);
+        adjacency.add(0, 0);
+        adjacency.add(2, 2);
+        adjacency.remove(2, 0);
+        adjacency.add(3, 1);
+
+        assertThat(view.ids()).isEqualTo(3);
+        assertThat(Arrays.copyOf(view.neighbours(0), view.degree(0))).containsExactly(1, 2);
+        assertThat(Arrays.copyOf(view.neighbours(2), view.degree(2))).containsExactly(0, 1);
+        assertThat(Arrays.copyOf(adjacency.neighbours(2), adjacency.degree(2))).containsExactly(1, 2);
+
+        adjacency.closeViews();
+        adjacency.add(2, 0);
+        assertThat(Arrays.copyOf(view.neighbours(2), view.degree(2))).containsExactly(0, 1);
+    }
+
+    @Test
+    public void unionExceptShouldSkipDuplicatesAndExcludedValues() {
+        int[] friends = {1, 3, 5, 7};
+        int[] subscribers = {2, 3, 8};
+        int[] blockers = {5, 8, 9};
+
+        assertThat(IntSets.unionExcept(friends, friends.length, subscribers, subscribers.length, blockers, blockers.length))
+                .containsExactly(1, 2, 3, 7);
+    }
+
+    private int[] randomSortedSet(Random random, int size, int bound) {
+        return random.ints(0, bound).distinct().limit(size).sorted().toArray();
+    }
+}
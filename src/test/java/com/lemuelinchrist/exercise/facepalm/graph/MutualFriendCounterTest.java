@@ -0,0 +1,71 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class MutualFriendCounterTest {
+
+    @Test
+    public void rangeCountShouldMatchHashMapCount() {
+        int accounts = 5000;
+        Random random = new Random(7);
+        IntAdjacency friends = new IntAdjacency(accounts);
+        IntAdjacency blocked = new IntAdjacency(accounts);
+        IntAdjacency blockers = new IntAdjacency(accounts);
+        for (int friend = 1; friend <= 1000; friend++) {
+            friends.add(0, friend);
+            friends.add(friend, 0);
+        }
+        for (int edge = 0; edge < 100_000; edge++) {
+            int first = 1 + random.nextInt(accounts - 1);
+            int second = 1 + random.nextInt(accounts - 1);
+            friends.add(first, second);
+            friends.add(second, first);
+        }
+        blocked.add(0, 2000);
+        blockers.add(2000, 0);
+        blocked.add(3000, 0);
+        blockers.add(0, 3000);
+
+        int[] expected = new int[accounts];
+        for (int friend = 1; friend <= 1000; friend++) {
+            int[] list = friends.neighbours(friend);
+            for (int i = 0; i < friends.degree(friend); i++) {
+                expected[list[i]]++;
+            }
+        }
+        MutualFriendCounter counter = new MutualFriendCounter(friends, blocked, blockers);
+        MutualFriendCounter.SecondDegree secondDegree = counter.new SecondDegree(0);
+        IntCountMap counts = MutualFriendCounter.count(secondDegree.lists, secondDegree.degrees);
+        for (int account = 0; account < accounts; account++) {
+            assertThat(counts.get(account)).as("account %d", account).isEqualTo(expected[account]);
+        }
+
+        long[] suggestions = counter.suggestByMap(secondDegree, 0, 50);
+        // narrow ranges fork many tasks, the last of them partial
+        assertThat(counter.suggestByRanges(secondDegree, 0, 50, accounts, 64)).containsExactly(suggestions);
+        assertThat(suggestions).hasSize(50);
+        boolean[] suggested = new boolean[accounts];
+        for (int i = 0; i < suggestions.length; i++) {
+            int candidate = MutualFriendCounter.candidateOf(suggestions[i]);
+            suggested[candidate] = true;
+            assertThat(candidate).isGreaterThan(1000).isNotIn(2000, 3000);
+            assertThat(MutualFriendCounter.mutualFriendsOf(suggestions[i])).isEqualTo(expected[candidate]);
+            if (i > 0) assertThat(suggestions[i]).isLessThan(suggestions[i - 1]);
+        }
+        // no candidate left out scores better than the last suggestion
+        int last = MutualFriendCounter.mutualFriendsOf(suggestions[suggestions.length - 1]);
+        for (int candidate = 1001; candidate < accounts; candidate++) {
+            if (!suggested[candidate] && candidate != 2000 && candidate != 3000) {
+                assertThat(expected[candidate]).isLessThanOrEqualTo(last);
+            }
+        }
+    }
+}
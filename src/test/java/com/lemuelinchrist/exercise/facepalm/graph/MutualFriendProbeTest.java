@@ -0,0 +1,51 @@
+package com.lemuelinchrist.exercise.facepalm.graph;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class MutualFriendProbeTest {
+
+    @Test
+    public void probedCountsShouldMatchIntersections() {
+        int accounts = 3000;
+        Random random = new Random(11);
+        // a low hub threshold gives some of the lists a bitmap
+        IntAdjacency friends = new IntAdjacency(accounts, 200);
+        for (int edge = 0; edge < 200_000; edge++) {
+            int first = random.nextInt(accounts);
+            int second = random.nextInt(accounts);
+            if (first == second) continue;
+            friends.add(first, second);
+            friends.add(second, first);
+        }
+        // a celebrity with more friends than the Account is probed the other way around
+        for (int fan = 2; fan < accounts; fan++) {
+            friends.add(1, fan);
+            friends.add(fan, 1);
+        }
+        int[] candidates = new int[accounts];
+        for (int candidate = 0; candidate < accounts; candidate++) {
+            candidates[candidate] = candidate;
+        }
+        candidates[7] = MutualFriendProbe.UNKNOWN;
+
+        MutualFriendProbe probe = new MutualFriendProbe(friends, 0);
+        int[] counts = probe.counts(candidates);
+        int[][] lists = probe.lists(candidates);
+
+        assertThat(friends.degree(1)).isGreaterThan(friends.degree(0));
+        for (int candidate = 0; candidate < accounts; candidate++) {
+            int[] expected = candidates[candidate] == MutualFriendProbe.UNKNOWN
+                    ? new int[0] : friends.intersect(0, candidate);
+            assertThat(lists[candidate]).as("account %d", candidate).containsExactly(expected);
+            assertThat(counts[candidate]).as("account %d", candidate).isEqualTo(expected.length);
+        }
+    }
+}
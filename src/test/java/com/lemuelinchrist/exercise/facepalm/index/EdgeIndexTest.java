@@ -0,0 +1,60 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import com.lemuelinchrist.exercise.facepalm.graph.SocialGraph;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class EdgeIndexTest {
+    private final SocialGraph socialGraph = Mockito.mock(SocialGraph.class);
+    private final RelationshipRepository relationshipRepository = Mockito.mock(RelationshipRepository.class);
+
+    @Test
+    public void checksShouldBeAnsweredFromTheEdgesOfTheGraph() {
+        Mockito.doAnswer(invocation -> {
+            ((RelationshipRepository.PairConsumer) invocation.getArguments()[0]).accept(1, 2);
+            return null;
+        }).when(socialGraph).forEachSubscription(Mockito.any());
+        Mockito.doAnswer(invocation -> {
+            ((RelationshipRepository.PairConsumer) invocation.getArguments()[0]).accept(3, 1);
+            return null;
+        }).when(socialGraph).forEachBlock(Mockito.any());
+        EdgeIndex edgeIndex = new EdgeIndex(socialGraph, relationshipRepository, true, 16, "database");
+        edgeIndex.load();
+        edgeIndex.blocksAdded(Collections.singletonList(new AccountPair(2, 4)));
+
+        assertThat(edgeIndex.hasSubscription(1, 2)).isTrue();
+        assertThat(edgeIndex.hasSubscription(2, 1)).isFalse();
+        assertThat(edgeIndex.hasBlock(3, 1)).isTrue();
+        assertThat(edgeIndex.hasBlockBetween(1, 3)).isTrue();
+        assertThat(edgeIndex.findBlocksBetween(Arrays.asList(new AccountPair(4, 2), new AccountPair(1, 2))))
+                .containsOnly(new AccountPair(2, 4));
+        Mockito.verifyZeroInteractions(relationshipRepository);
+    }
+
+    @Test
+    public void disabledIndexShouldQueryTheDatabase() {
+        EdgeIndex edgeIndex = new EdgeIndex(socialGraph, relationshipRepository, false, 16, "database");
+        edgeIndex.load();
+        edgeIndex.subscriptionsAdded(Collections.singletonList(new AccountPair(1, 2)));
+        Mockito.when(relationshipRepository.hasSubscription(1, 2)).thenReturn(true);
+
+        assertThat(edgeIndex.hasSubscription(1, 2)).isTrue();
+        assertThat(edgeIndex.hasBlockBetween(1, 2)).isFalse();
+        Mockito.verify(relationshipRepository).hasBlockBetween(1, 2);
+        Mockito.verifyZeroInteractions(socialGraph);
+        assertThatThrownBy(() -> new EdgeIndex(socialGraph, relationshipRepository, false, 16, "wal"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
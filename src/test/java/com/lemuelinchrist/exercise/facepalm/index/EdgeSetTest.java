@@ -0,0 +1,48 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class EdgeSetTest {
+
+    @Test
+    public void edgeSetShouldMatchHashSetAsItGrows() {
+        // sized for far fewer pairs, so the table and the filter are rebuilt many times
+        EdgeSet edges = new EdgeSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(25);
+        for (int i = 0; i < 20_000; i++) {
+            long firstId = 1 + random.nextInt(500);
+            long secondId = 1 + random.nextInt(500);
+            assertThat(edges.add(firstId, secondId)).isEqualTo(expected.add(EdgeSet.pack(firstId, secondId)));
+        }
+        assertThat(edges.size()).isEqualTo(expected.size());
+        for (long firstId = 1; firstId <= 500; firstId++) {
+            for (long secondId = 1; secondId <= 500; secondId++) {
+                assertThat(edges.contains(firstId, secondId))
+                        .isEqualTo(expected.contains(EdgeSet.pack(firstId, secondId)));
+            }
+        }
+    }
+
+    @Test
+    public void pairsShouldBeDirected() {
+        EdgeSet edges = new EdgeSet(16);
+        edges.add(1, 0xfffffffeL);
+
+        assertThat(edges.contains(1, 0xfffffffeL)).isTrue();
+        assertThat(edges.contains(0xfffffffeL, 1)).isFalse();
+        assertThat(EdgeSet.fits(1, 0xfffffffeL)).isTrue();
+        assertThat(EdgeSet.fits(0, 1)).isFalse();
+        assertThat(EdgeSet.fits(1, 0xffffffffL)).isFalse();
+    }
+}
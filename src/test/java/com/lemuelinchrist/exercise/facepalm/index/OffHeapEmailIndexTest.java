@@ -0,0 +1,64 @@
+package com.lemuelinchrist.exercise.facepalm.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class OffHeapEmailIndexTest {
+
+    @Test
+    public void emailsShouldBeResolvedAcrossResizes() {
+        // starts with the smallest segments, so every segment is resized several times
+        OffHeapEmailIndex emailIndex = new OffHeapEmailIndex(1);
+        for (int i = 0; i < 50_000; i++) {
+            emailIndex.put("user" + i + "@index.com", i);
+        }
+        emailIndex.put("user7@index.com", 700);
+        emailIndex.put("josé@index.com", 123_456_789_000L);
+
+        assertThat(emailIndex.size()).isEqualTo(50_001);
+        assertThat(emailIndex.idOf("user0@index.com")).isEqualTo(0);
+        assertThat(emailIndex.idOf("user7@index.com")).isEqualTo(700);
+        assertThat(emailIndex.idOf("user49999@index.com")).isEqualTo(49_999);
+        assertThat(emailIndex.idOf("josé@index.com")).isEqualTo(123_456_789_000L);
+        assertThat(emailIndex.idOf("user50000@index.com")).isEqualTo(EmailIndex.NOT_FOUND);
+        assertThat(emailIndex.idOf("")).isEqualTo(EmailIndex.NOT_FOUND);
+    }
+
+    @Test
+    public void concurrentWritersAndReadersShouldSeeEveryEmail() throws Exception {
+        OffHeapEmailIndex emailIndex = new OffHeapEmailIndex(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int offset = writer * 10_000;
+                writers.add(executor.submit(() -> {
+                    long misses = 0;
+                    for (int i = offset; i < offset + 10_000; i++) {
+                        emailIndex.put("user" + i + "@index.com", i);
+                        if (emailIndex.idOf("user" + i + "@index.com") != i) misses++;
+                    }
+                    return misses;
+                }));
+            }
+            for (Future<Long> writer : writers) {
+                assertThat(writer.get()).isZero();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(emailIndex.size()).isEqualTo(40_000);
+        assertThat(emailIndex.idOf("user39999@index.com")).isEqualTo(39_999);
+    }
+}
@@ -0,0 +1,32 @@
+package com.lemuelinchrist.exercise.facepalm.metrics;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class LatencyHistogramsTest {
+
+    @Test
+    public void snapshotShouldAccumulatePercentilesAcrossSnapshots() {
+        LatencyHistograms latencyHistograms = new LatencyHistograms();
+        for (int i = 1; i <= 100; i++) {
+            latencyHistograms.record("endpoint.test", i);
+        }
+        assertThat(latencyHistograms.snapshot().get("endpoint.test").get("count")).isEqualTo(100L);
+
+        latencyHistograms.record("endpoint.test", 1000);
+        Map<String, Object> summary = latencyHistograms.snapshot().get("endpoint.test");
+        assertThat(summary.get("count")).isEqualTo(101L);
+        assertThat(summary.get("p50")).isEqualTo(51L);
+        assertThat((Long) summary.get("max")).isBetween(1000L, 1001L);
+
+        latencyHistograms.reset();
+        assertThat(latencyHistograms.snapshot().get("endpoint.test").get("count")).isEqualTo(0L);
+    }
+}
@@ -5,8 +5,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -19,6 +24,8 @@ public class AccountTest {
 
     @Autowired
     AccountRepository accountRepository;
+    @Autowired
+    TestEntityManager entityManager;
     private String FIRST_EMAIL;
     private String SECOND_EMAIL;
     private String THIRD_EMAIL;
@@ -46,25 +53,23 @@ public class AccountTest {
         Account firstAccount = accountRepository.findByEmail(FIRST_EMAIL).orElseThrow(Exception::new);
         Account secondAccount = accountRepository.findByEmail(SECOND_EMAIL).orElseThrow(Exception::new);
         Account thirdAccount = accountRepository.findByEmail(THIRD_EMAIL).orElseThrow(Exception::new);
-        firstAccount.addFriend(secondAccount);
-        secondAccount.addFriend(firstAccount);
-        firstAccount = accountRepository.save(firstAccount);
-        secondAccount = accountRepository.save(secondAccount);
-
-        assertThat(firstAccount.getFriends()).contains(secondAccount);
-        assertThat(secondAccount.getFriends()).contains(firstAccount);
-        assertThat(firstAccount.getFriends()).doesNotContain(accountRepository.findByEmail(THIRD_EMAIL).orElseThrow(Exception::new));
-
-        firstAccount.addFriend(thirdAccount);
-        thirdAccount.addFriend(firstAccount);
-        firstAccount = accountRepository.save(firstAccount);
-        thirdAccount = accountRepository.save(thirdAccount);
-        assertThat(firstAccount.getFriends()).contains(thirdAccount, secondAccount);
-        assertThat(thirdAccount.getFriends()).contains(firstAccount);
-
-        System.out.println("Hello " + accountRepository.findFriendListByEmail(FIRST_EMAIL));
+        befriend(firstAccount, secondAccount);
 
+        assertThat(accountRepository.findFriendListByEmail(FIRST_EMAIL).orElseThrow(Exception::new))
+                .containsOnly(SECOND_EMAIL);
+        assertThat(accountRepository.findFriendListByEmail(SECOND_EMAIL).orElseThrow(Exception::new))
+                .containsOnly(FIRST_EMAIL);
 
+        befriend(firstAccount, thirdAccount);
+        assertThat(accountRepository.findFriendListByEmail(FIRST_EMAIL).orElseThrow(Exception::new))
+                .containsOnly(SECOND_EMAIL, THIRD_EMAIL);
+        assertThat(accountRepository.findFriendListByEmail(THIRD_EMAIL).orElseThrow(Exception::new))
+                .containsOnly(FIRST_EMAIL);
+        // the edges reference their Accounts once loaded
+        entityManager.clear();
+        Friendship friendship = entityManager.find(Friendship.class,
+                new Friendship.Key(firstAccount.getId(), thirdAccount.getId()));
+        assertThat(friendship.getFriend()).isEqualTo(thirdAccount);
     }
 
 
@@ -81,6 +86,21 @@ public class AccountTest {
 
     }
 
+    // USER STORY 2 paginated
+    @Test
+    public void friendEmailsShouldBePaginatedById() throws Exception {
+        establishFriends();
+
+        List<Object[]> firstPage = accountRepository.findFriendPageByEmail(FIRST_EMAIL, 0L, new PageRequest(0, 1));
+        assertThat(firstPage).hasSize(1);
+        assertThat(firstPage.get(0)[1]).isEqualTo(SECOND_EMAIL);
+
+        List<Object[]> secondPage = accountRepository.findFriendPageByEmail(FIRST_EMAIL, (Long) firstPage.get(0)[0],
+                new PageRequest(0, 1));
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0)[1]).isEqualTo(THIRD_EMAIL);
+    }
+
     // USER STORY 3
     @Test
     public void shouldBeAbleToFindCommonFriendEmailsByAccount() throws Exception {
@@ -92,6 +112,56 @@ public class AccountTest {
     }
 
 
+    // PEOPLE YOU MAY KNOW
+    @Test
+    public void friendsOfFriendsShouldBeSuggestedByMutualFriends() throws Exception {
+        Account first = accountRepository.findByEmail(FIRST_EMAIL).orElseThrow(Exception::new);
+        Account second = accountRepository.findByEmail(SECOND_EMAIL).orElseThrow(Exception::new);
+        Account third = accountRepository.findByEmail(THIRD_EMAIL).orElseThrow(Exception::new);
+        Account fourth = saveAccount("fourthEmail@facepalm.com");
+        Account fifth = saveAccount("fifthEmail@facepalm.com");
+        Account sixth = saveAccount("sixthEmail@facepalm.com");
+        befriend(first, second);
+        befriend(first, third);
+        befriend(second, third);
+        befriend(second, fourth);
+        befriend(third, fourth);
+        befriend(third, fifth);
+        befriend(second, sixth);
+        entityManager.persistAndFlush(new Block(sixth.getId(), first.getId()));
+
+        List<Object[]> suggestions = accountRepository.findFriendSuggestions(FIRST_EMAIL, new PageRequest(0, 10));
+
+        assertThat(suggestions).extracting(row -> row[0]).containsExactly(fourth.getEmail(), fifth.getEmail());
+        assertThat(suggestions).extracting(row -> ((Number) row[1]).intValue()).containsExactly(2, 1);
+        assertThat(accountRepository.findFriendSuggestions(FIRST_EMAIL, new PageRequest(0, 1))).hasSize(1);
+    }
+
+    @Test
+    public void mutualFriendsShouldBeCountedForManyCandidates() throws Exception {
+        Account first = accountRepository.findByEmail(FIRST_EMAIL).orElseThrow(Exception::new);
+        Account second = accountRepository.findByEmail(SECOND_EMAIL).orElseThrow(Exception::new);
+        Account third = accountRepository.findByEmail(THIRD_EMAIL).orElseThrow(Exception::new);
+        Account fourth = saveAccount("fourthEmail@facepalm.com");
+        Account fifth = saveAccount("fifthEmail@facepalm.com");
+        befriend(first, second);
+        befriend(first, third);
+        befriend(fourth, second);
+        befriend(fourth, third);
+        befriend(fifth, third);
+        List<String> candidates = Arrays.asList(fourth.getEmail(), fifth.getEmail(), SECOND_EMAIL);
+
+        List<Object[]> counts = accountRepository.countMutualFriendsAmong(FIRST_EMAIL, candidates);
+        List<Object[]> lists = accountRepository.findMutualFriendsAmong(FIRST_EMAIL, candidates);
+
+        // the second Account has no friend in common with the first one, so it has no row
+        assertThat(counts).extracting(row -> row[0] + "=" + ((Number) row[1]).intValue())
+                .containsOnly(fourth.getEmail() + "=2", fifth.getEmail() + "=1");
+        assertThat(lists).extracting(row -> row[0] + ">" + row[1]).containsOnly(
+                fourth.getEmail() + ">" + SECOND_EMAIL, fourth.getEmail() + ">" + THIRD_EMAIL,
+                fifth.getEmail() + ">" + THIRD_EMAIL);
+    }
+
     // USER STORY 4, and 5
     @Test
     public void accountsShouldHaveSubscriptionsAndBlockers() throws Exception {
@@ -114,17 +184,20 @@ public class AccountTest {
         sixthAccount.setEmail(SIXTH_EMAIL);
         accountRepository.save(sixthAccount);
 
-        firstAccount.addBlockedAccount(fifthAccount);
-        firstAccount.addBlockedAccount(sixthAccount);
-        firstAccount.addSubscriber(secondAccount);
-        firstAccount.addSubscriber(fourthAccount);
-        firstAccount = accountRepository.save(firstAccount);
-        fifthAccount.addBlockedAccount(firstAccount);
-        fifthAccount = accountRepository.save(fifthAccount);
+        entityManager.persist(new Block(firstAccount.getId(), fifthAccount.getId()));
+        entityManager.persist(new Block(firstAccount.getId(), sixthAccount.getId()));
+        entityManager.persist(new Subscription(firstAccount.getId(), secondAccount.getId()));
+        entityManager.persist(new Subscription(firstAccount.getId(), fourthAccount.getId()));
+        entityManager.persist(new Block(fifthAccount.getId(), firstAccount.getId()));
+        entityManager.flush();
 
-        assertThat(firstAccount.getBlockedAccounts()).contains(fifthAccount, sixthAccount);
-        assertThat(firstAccount.getSubscribers()).contains(fourthAccount);
-        assertThat(fifthAccount.getBlockedAccounts()).contains(firstAccount);
+        assertThat(accountRepository.findBlockersOf(FIFTH_EMAIL)).extracting("email").containsOnly(FIRST_EMAIL);
+        assertThat(accountRepository.findBlockersOf(SIXTH_EMAIL)).extracting("email").containsOnly(FIRST_EMAIL);
+        assertThat(accountRepository.findBlockersOf(FIRST_EMAIL)).extracting("email").containsOnly(FIFTH_EMAIL);
+        assertThat(accountRepository.findFriendsAndSubscribersOf(FIRST_EMAIL).orElseThrow(Exception::new))
+                .contains(SECOND_EMAIL, FOURTH_EMAIL);
+        assertThat(accountRepository.countBlocks()).isEqualTo(3);
+        assertThat(accountRepository.countSubscriptions()).isEqualTo(2);
 
 
     }
@@ -152,25 +225,26 @@ public class AccountTest {
         sixthAccount.setEmail(SIXTH_EMAIL);
         accountRepository.save(sixthAccount);
 
-        firstAccount.addBlockedAccount(fifthAccount);
-        firstAccount.addBlockedAccount(sixthAccount);
-        firstAccount.addSubscriber(secondAccount);
-        firstAccount.addSubscriber(fourthAccount);
-        firstAccount = accountRepository.save(firstAccount);
-        fifthAccount.addBlockedAccount(firstAccount);
-        fifthAccount = accountRepository.save(fifthAccount);
+        entityManager.persist(new Block(firstAccount.getId(), fifthAccount.getId()));
+        entityManager.persist(new Block(firstAccount.getId(), sixthAccount.getId()));
+        entityManager.persist(new Subscription(firstAccount.getId(), secondAccount.getId()));
+        entityManager.persist(new Subscription(firstAccount.getId(), fourthAccount.getId()));
+        entityManager.persist(new Block(fifthAccount.getId(), firstAccount.getId()));
+        entityManager.flush();
 
-        thirdAccount.addBlockedAccount(firstAccount);
-        thirdAccount = accountRepository.save(thirdAccount);
+        entityManager.persistAndFlush(new Block(thirdAccount.getId(), firstAccount.getId()));
 
         assertThat(accountRepository.findFriendsAndSubscribersOf(FIRST_EMAIL).orElseThrow(Exception::new))
                 .hasSize(2)
                 .contains(secondAccount.getEmail(), fourthAccount.getEmail());
 
-        assertThat(accountRepository.findByBlockedAccountsContaining(firstAccount).orElseThrow(Exception::new))
+        assertThat(accountRepository.findBlockersOf(FIRST_EMAIL))
                 .hasSize(2)
                 .contains(thirdAccount, fifthAccount);
 
+        assertThat(accountRepository.findBlockersAmong(FIRST_EMAIL, Arrays.asList(THIRD_EMAIL, FOURTH_EMAIL, FIFTH_EMAIL)))
+                .containsOnly(THIRD_EMAIL, FIFTH_EMAIL);
+
 
     }
 
@@ -179,14 +253,21 @@ public class AccountTest {
         Account firstAccount = accountRepository.findByEmail(FIRST_EMAIL).orElseThrow(Exception::new);
         Account secondAccount = accountRepository.findByEmail(SECOND_EMAIL).orElseThrow(Exception::new);
         Account thirdAccount = accountRepository.findByEmail(THIRD_EMAIL).orElseThrow(Exception::new);
-        firstAccount.addFriend(secondAccount);
-        firstAccount.addFriend(thirdAccount);
-        accountRepository.save(firstAccount);
+        befriend(firstAccount, secondAccount);
+        befriend(firstAccount, thirdAccount);
+        befriend(secondAccount, thirdAccount);
+    }
 
-        secondAccount = accountRepository.findByEmail(SECOND_EMAIL).orElseThrow(Exception::new);
-        secondAccount.addFriend(firstAccount);
-        secondAccount.addFriend(thirdAccount);
-        accountRepository.save(secondAccount);
+    private Account saveAccount(String email) {
+        Account account = new Account();
+        account.setEmail(email);
+        return accountRepository.save(account);
+    }
+
+    private void befriend(Account firstAccount, Account secondAccount) {
+        entityManager.persist(new Friendship(firstAccount.getId(), secondAccount.getId()));
+        entityManager.persist(new Friendship(secondAccount.getId(), firstAccount.getId()));
+        entityManager.flush();
     }
 
 }
@@ -5,19 +5,28 @@ import com.lemuelinchrist.exercise.facepalm.exception.AccountBlockedException;
 import com.lemuelinchrist.exercise.facepalm.exception.AlreadyBlockedException;
 import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
 import com.lemuelinchrist.exercise.facepalm.exception.ExistingEmailException;
+import com.lemuelinchrist.exercise.facepalm.index.EmailIndex;
+import com.lemuelinchrist.exercise.facepalm.metrics.QueryCounters;
 import com.lemuelinchrist.exercise.facepalm.model.Account;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
 import com.lemuelinchrist.exercise.facepalm.model.AccountRepository;
+import com.lemuelinchrist.exercise.facepalm.model.QueryCacheRegions;
+import com.lemuelinchrist.exercise.facepalm.model.RecipientQuery;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,7 +38,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
  * @since 29/7/2017
  */
 @RunWith(SpringRunner.class)
-@SpringBootTest(classes = FacepalmApplication.class)
+@SpringBootTest(classes = FacepalmApplication.class, properties = "facepalm.graph.engine=repository")
 public class AccountServiceTest {
     @MockBean
     AccountRepository accountRepository;
@@ -37,6 +46,18 @@ public class AccountServiceTest {
     @Autowired
     AccountService accountService;
 
+    @Autowired
+    EmailIndex emailIndex;
+
+    @Autowired
+    RelationshipRepository relationshipRepository;
+
+    @Autowired
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    QueryCacheRegions queryCacheRegions;
+
     @Test
     public void accountShouldBeCreated() throws Exception {
         Account newAccount = new Account();
@@ -44,7 +65,7 @@ public class AccountServiceTest {
         newAccount.setEmail(email);
         newAccount.setId(1L);
         Mockito.when(accountRepository.save(newAccount)).thenReturn(newAccount);
-        Mockito.when(accountRepository.findByEmail(email)).thenReturn(Optional.empty());
+        Mockito.when(accountRepository.findIdByEmail(email)).thenReturn(Optional.empty());
 
         Long id = accountService.save(newAccount);
         assert id == 1L;
@@ -57,7 +78,7 @@ public class AccountServiceTest {
         Account newAccount = new Account();
         newAccount.setEmail(email);
         newAccount.setId(1L);
-        Mockito.when(accountRepository.findByEmail(email)).thenReturn(Optional.of(newAccount));
+        Mockito.when(accountRepository.findIdByEmail(email)).thenReturn(Optional.of(1L));
 
         accountService.save(newAccount);
 
@@ -66,26 +87,71 @@ public class AccountServiceTest {
     // USER STORY 1
     @Test
     public void twoAccountsShouldBeAbleToBecomeFriends() throws Exception {
-        Account firstAccount = new Account();
-        String firstEmail = "firstEmail@gmail.com";
-        firstAccount.setEmail(firstEmail);
-        firstAccount.setId(1L);
-        Account secondAccount = new Account();
-        String secondEmail = "secondEmail@gmail.com";
-        secondAccount.setEmail(secondEmail);
-        secondAccount.setId(2L);
-
-        Mockito.when(accountRepository.findByEmail(firstEmail)).thenReturn(Optional.of(firstAccount));
-        Mockito.when(accountRepository.findByEmail(secondEmail)).thenReturn(Optional.of(secondAccount));
-        Mockito.when(accountRepository.save(firstAccount)).thenReturn(firstAccount);
-        Mockito.when(accountRepository.save(secondAccount)).thenReturn(secondAccount);
-
-
-        List<Account> list = accountService.befriendAccounts(firstEmail, secondEmail);
-        assertThat(list).isNotNull();
-        assertThat(list).extracting(Account::getEmail).contains(firstEmail, secondEmail);
-        assertThat(list.get(0).getFriends()).hasSize(1);
+        Map<String, Long> ids = storeAccounts("firstEmail@friends.com", "secondEmail@friends.com");
+        long firstId = ids.get("firstEmail@friends.com");
+        long secondId = ids.get("secondEmail@friends.com");
+
+        accountService.befriendAccounts("firstEmail@friends.com", "secondEmail@friends.com");
+        // befriending again succeeds without changes
+        accountService.befriendAccounts("secondEmail@friends.com", "firstEmail@friends.com");
+
+        assertThat(relationshipRepository.findFriendships(ids.values(), ids.values()))
+                .containsOnly(new AccountPair(firstId, secondId), new AccountPair(secondId, firstId));
+        // edges are inserted without loading or saving the Account entities
+        Mockito.verify(accountRepository, Mockito.never()).findByEmail(Mockito.anyString());
+        Mockito.verify(accountRepository, Mockito.never()).save(Mockito.any(Account.class));
+    }
 
+    // USER STORY 1
+    @Test
+    public void befriendingShouldCostTheSameWhateverTheNumberOfFriends() throws Exception {
+        String celebrity = "celebrity@keyed.com";
+        List<String> emails = new ArrayList<>();
+        List<EmailPair> fans = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            emails.add("fan" + i + "@keyed.com");
+            fans.add(new EmailPair(celebrity, "fan" + i + "@keyed.com"));
+        }
+        emails.add(celebrity);
+        emails.add("newFan@keyed.com");
+        Map<String, Long> ids = storeAccounts(emails.toArray(new String[0]));
+        accountService.befriendAccounts(fans);
+
+        QueryCounters counters = QueryCounters.current();
+        long statements = counters.getStatements();
+        long entityLoads = counters.getEntityLoads();
+        accountService.befriendAccounts("newFan@keyed.com", celebrity);
+
+        // blocks are checked in the edge index, then one keyed lookup for the friendship, the insert of both
+        // directions and their counters
+        assertThat(counters.getStatements() - statements).isEqualTo(3);
+        assertThat(counters.getEntityLoads() - entityLoads).isZero();
+        assertThat(relationshipRepository.hasFriendship(ids.get(celebrity), ids.get("newFan@keyed.com"))).isTrue();
+        assertThat(relationshipRepository.hasFriendship(ids.get("newFan@keyed.com"), ids.get(celebrity))).isTrue();
+    }
+
+    @Test
+    public void relationshipWritesShouldMaintainCounters() throws Exception {
+        String andy = "andy@counters.com";
+        String john = "john@counters.com";
+        String lisa = "lisa@counters.com";
+        String kate = "kate@counters.com";
+        Map<String, Long> ids = storeAccounts(andy, john, lisa, kate);
+
+        accountService.befriendAccounts(andy, john);
+        accountService.befriendAccounts(Arrays.asList(new EmailPair(andy, lisa), new EmailPair(john, andy)));
+        accountService.subscribeToUpdates(kate, andy);
+        accountService.subscribeToUpdates(Collections.singletonList(new EmailPair(lisa, andy)));
+        accountService.blockAccount(kate, john);
+        accountService.blockAccounts(Collections.singletonList(new EmailPair(lisa, john)));
+        assertThatThrownBy(() -> accountService.subscribeToUpdates(kate, andy))
+                .isInstanceOf(AlreadySubscribedException.class);
+
+        // friends, subscribers, subscriptions, blocked and blockers
+        assertThat(counters(ids.get(andy))).containsExactly(2, 2, 0, 0, 0);
+        assertThat(counters(ids.get(john))).containsExactly(1, 0, 0, 0, 2);
+        assertThat(counters(ids.get(lisa))).containsExactly(1, 0, 1, 1, 0);
+        assertThat(counters(ids.get(kate))).containsExactly(0, 0, 1, 1, 0);
     }
 
     // USER STORY 2
@@ -106,13 +172,13 @@ public class AccountServiceTest {
         account3.setEmail(email3);
         account3.setId(1L);
 
-        account.setFriends(new HashSet<>(Arrays.asList(account2, account3)));
-
         List<String> value = Arrays.asList(email2, email3);
         Mockito.when(accountRepository.findFriendListByEmail(email)).thenReturn(Optional.of(value));
-        Mockito.when(accountRepository.findByEmail(email)).thenReturn(Optional.of(account));
+        Mockito.when(accountRepository.findIdByEmail(email)).thenReturn(Optional.of(account.getId()));
 
         assertThat(accountService.getFriendListByEmail(email)).contains(email2, email3);
+        // existence is checked through the email index, without loading the Account
+        Mockito.verify(accountRepository, Mockito.never()).findByEmail(email);
 
     }
 
@@ -128,9 +194,8 @@ public class AccountServiceTest {
         String email2 = "secondEmail@gmail.com";
         account2.setEmail(email2);
         account2.setId(1L);
-        account.addFriend(account);
 
-        Mockito.when(accountRepository.findByEmail(email)).thenReturn(Optional.empty());
+        Mockito.when(accountRepository.findIdByEmail(email)).thenReturn(Optional.empty());
         Mockito.when(accountRepository.findFriendListByEmail(email)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> accountService.getFriendListByEmail(email));
@@ -150,8 +215,8 @@ public class AccountServiceTest {
         account2.setEmail(email2);
         account2.setId(1L);
 
-        Mockito.when(accountRepository.findByEmail(email)).thenReturn(Optional.empty());
-        Mockito.when(accountRepository.findByEmail(email2)).thenReturn(Optional.empty());
+        Mockito.when(accountRepository.findIdByEmail(email)).thenReturn(Optional.empty());
+        Mockito.when(accountRepository.findIdByEmail(email2)).thenReturn(Optional.empty());
         Mockito.when(accountRepository.findFriendListByEmail(email)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> accountService.getCommonFriendsBetweenAccounts(email, email2));
@@ -169,8 +234,8 @@ public class AccountServiceTest {
         String otherEmail2 = "another2@another.com";
         List<String> friendList = Arrays.asList(otherEmail1, otherEmail2);
 
-        Mockito.when(accountRepository.findByEmail(account1.getEmail())).thenReturn(Optional.of(account1));
-        Mockito.when(accountRepository.findByEmail(account2.getEmail())).thenReturn(Optional.of(account2));
+        Mockito.when(accountRepository.findIdByEmail(account1.getEmail())).thenReturn(Optional.of(account1.getId()));
+        Mockito.when(accountRepository.findIdByEmail(account2.getEmail())).thenReturn(Optional.of(account2.getId()));
         Mockito.when(accountRepository.findCommonFriendsBetweenAccounts(account1.getEmail(), account2.getEmail()))
                 .thenReturn(Optional.of(friendList));
 
@@ -182,109 +247,145 @@ public class AccountServiceTest {
     // USER STORY 4
     @Test
     public void targetShouldSubscribeToUpdateSuccesfully() throws Exception {
-        Account requestor = createNewAccount(1L, "somehtingNew@hotmail.com");
-        Account target = createNewAccount(2L, "somehtingNew2@hotmail.com");
+        Map<String, Long> ids = storeAccounts("requestor@subscribe.com", "target@subscribe.com");
 
-        Mockito.when(accountRepository.findByEmail(requestor.getEmail())).thenReturn(Optional.of(requestor));
-        Mockito.when(accountRepository.findByEmail(target.getEmail())).thenReturn(Optional.of(target));
+        accountService.subscribeToUpdates("requestor@subscribe.com", "target@subscribe.com");
 
-        target = accountService.subscribeToUpdates(requestor.getEmail(), target.getEmail());
-        assertThat(target.getSubscribers())
-                .hasSize(1)
-                .contains(requestor);
+        assertThat(relationshipRepository.findSubscriptions(ids.values(), ids.values()))
+                .containsOnly(new AccountPair(ids.get("target@subscribe.com"), ids.get("requestor@subscribe.com")));
     }
 
     // USER STORY 4
     @Test
     public void shouldThrowExceptionIfAlreadySubscribed() throws Exception {
-        Account requestor = createNewAccount(1L, "somehtngNew@hotmail.com");
-        Account target = createNewAccount(2L, "somehtingNew2@hotmail.com");
-        target.addSubscriber(requestor);
+        storeAccounts("requestor@subscribed.com", "target@subscribed.com");
+        accountService.subscribeToUpdates("requestor@subscribed.com", "target@subscribed.com");
 
-        Mockito.when(accountRepository.findByEmail(requestor.getEmail())).thenReturn(Optional.of(requestor));
-        Mockito.when(accountRepository.findByEmail(target.getEmail())).thenReturn(Optional.of(target));
-
-        assertThatThrownBy(() -> accountService.subscribeToUpdates(requestor.getEmail(), target.getEmail())).isInstanceOf(AlreadySubscribedException.class);
+        assertThatThrownBy(() -> accountService.subscribeToUpdates("requestor@subscribed.com", "target@subscribed.com"))
+                .isInstanceOf(AlreadySubscribedException.class);
 
     }
 
     // USER STORY 5
     @Test
     public void requestorShouldBlockSuccessfully() throws Exception {
-        Account requestor = createNewAccount(1L, "andSomehtingNew@hotmail.com");
-        Account target = createNewAccount(2L, "somehtingNew2@hotmail.com");
+        Map<String, Long> ids = storeAccounts("requestor@block.com", "target@block.com");
 
-        Mockito.when(accountRepository.findByEmail(requestor.getEmail())).thenReturn(Optional.of(requestor));
-        Mockito.when(accountRepository.findByEmail(target.getEmail())).thenReturn(Optional.of(target));
+        accountService.blockAccount("requestor@block.com", "target@block.com");
 
-        requestor = accountService.blockAccount(requestor.getEmail(), target.getEmail());
-        assertThat(requestor.getBlockedAccounts())
-                .hasSize(1)
-                .contains(target);
+        assertThat(relationshipRepository.findBlocks(ids.values(), ids.values()))
+                .containsOnly(new AccountPair(ids.get("requestor@block.com"), ids.get("target@block.com")));
     }
 
     // USER STORY 5
     @Test
     public void shouldThrowExceptionIfAlreadyBlocked() throws Exception {
-        Account requestor = createNewAccount(1L, "somehtngNew21@hotmail.com");
-        Account target = createNewAccount(2L, "somehtingNew2@hotmail.com");
-        requestor.addBlockedAccount(target);
-
-        Mockito.when(accountRepository.findByEmail(requestor.getEmail())).thenReturn(Optional.of(requestor));
-        Mockito.when(accountRepository.findByEmail(target.getEmail())).thenReturn(Optional.of(target));
+        storeAccounts("requestor@blocked.com", "target@blocked.com");
+        accountService.blockAccount("requestor@blocked.com", "target@blocked.com");
 
-        assertThatThrownBy(() -> accountService.blockAccount(requestor.getEmail(), target.getEmail())).isInstanceOf(AlreadyBlockedException.class);
+        assertThatThrownBy(() -> accountService.blockAccount("requestor@blocked.com", "target@blocked.com"))
+                .isInstanceOf(AlreadyBlockedException.class);
 
     }
 
     // USER STORY 5
-    // USER STORY 1
     @Test
     public void twoAccountsShouldNotBecomeFriendsIfAnAccountIsBlocked() throws Exception {
-        Account firstAccount = new Account();
-        String firstEmail = "firstEmail1@gmail.com";
-        firstAccount.setEmail(firstEmail);
-        firstAccount.setId(1L);
-        Account secondAccount = new Account();
-        String secondEmail = "secondEmail@gmail.com";
-        secondAccount.setEmail(secondEmail);
-        secondAccount.setId(2L);
-        secondAccount.addBlockedAccount(firstAccount);
-
-        Mockito.when(accountRepository.findByEmail(firstEmail)).thenReturn(Optional.of(firstAccount));
-        Mockito.when(accountRepository.findByEmail(secondEmail)).thenReturn(Optional.of(secondAccount));
+        Map<String, Long> ids = storeAccounts("firstEmail@blocking.com", "secondEmail@blocking.com");
+        accountService.blockAccount("secondEmail@blocking.com", "firstEmail@blocking.com");
 
-
-        assertThatThrownBy(() -> accountService.befriendAccounts(firstEmail, secondEmail)).isInstanceOf(AccountBlockedException.class);
+        assertThatThrownBy(() -> accountService.befriendAccounts("firstEmail@blocking.com", "secondEmail@blocking.com"))
+                .isInstanceOf(AccountBlockedException.class);
+        assertThat(relationshipRepository.findFriendships(ids.values(), ids.values())).isEmpty();
 
     }
 
     // USER STORY 6
     @Test
     public void allEmailsThatAreEligibleShouldBeListed() throws Exception {
-        Account account = new Account();
-        String email = "existent@gmail.com";
-        account.setEmail(email);
-        account.setId(123L);
-
-
-        String emailToBeBlocked = "tobeblocked@blocked.com";
-        Account accountToBeBlocked = new Account();
-        accountToBeBlocked.setEmail(emailToBeBlocked);
+        Map<String, Long> ids = storeAccounts("existent@eligible.com", "hello@eligible.com", "byeWorld@eligible.com",
+                "lastEmail@eligible.com", "tobeblocked@eligible.com", "someRandom@eligible.com");
+        long sender = ids.get("existent@eligible.com");
+        relationshipRepository.insertFriendships(Arrays.asList(
+                new AccountPair(sender, ids.get("hello@eligible.com")),
+                new AccountPair(sender, ids.get("byeWorld@eligible.com")),
+                new AccountPair(sender, ids.get("tobeblocked@eligible.com"))));
+        relationshipRepository.insertSubscriptions(Arrays.asList(
+                new AccountPair(sender, ids.get("byeWorld@eligible.com")),
+                new AccountPair(sender, ids.get("lastEmail@eligible.com"))));
+        relationshipRepository.insertBlocks(Arrays.asList(
+                new AccountPair(ids.get("tobeblocked@eligible.com"), sender),
+                new AccountPair(sender, ids.get("lastEmail@eligible.com"))));
+
+        // a friend that is also a subscriber is listed once, and blocking the blocker doesn't exclude it
+        assertThat(accountService.getBroadcastRecipientsOf("existent@eligible.com"))
+                .containsOnlyOnce("hello@eligible.com", "byeWorld@eligible.com", "lastEmail@eligible.com")
+                .hasSize(3);
+    }
 
-        String someRandomEmail = "someRandom@account.com";
-        Account someRandomAccount = new Account();
-        someRandomAccount.setEmail(someRandomEmail);
+    // USER STORY 6
+    @Test
+    public void everyRecipientQueryShouldFindTheSameRecipients() throws Exception {
+        Map<String, Long> ids = storeAccounts("sender@forms.com", "friend@forms.com", "subscriber@forms.com",
+                "blocker@forms.com");
+        long sender = ids.get("sender@forms.com");
+        relationshipRepository.insertFriendships(Arrays.asList(new AccountPair(sender, ids.get("friend@forms.com")),
+                new AccountPair(sender, ids.get("blocker@forms.com"))));
+        relationshipRepository.insertSubscriptions(Collections.singletonList(
+                new AccountPair(sender, ids.get("subscriber@forms.com"))));
+        relationshipRepository.insertBlocks(Collections.singletonList(
+                new AccountPair(ids.get("blocker@forms.com"), sender)));
+
+        // H2 understands all the forms
+        assertThat(relationshipRepository.getRecipientQuery()).isEqualTo(RecipientQuery.EXCEPT);
+        for (RecipientQuery recipientQuery : RecipientQuery.values()) {
+            assertThat(new RelationshipRepository(jdbcTemplate, queryCacheRegions, recipientQuery.name())
+                    .findBroadcastRecipients("sender@forms.com"))
+                    .as(recipientQuery.name())
+                    .containsOnly("friend@forms.com", "subscriber@forms.com");
+        }
+        assertThat(relationshipRepository.findBroadcastRecipients("nobody@forms.com")).isEmpty();
+    }
 
-        List<String> friendsAndSubscribersList = Arrays.asList("hello@world.com", "byeWorld@wonderful.com", "lastEmail@gmamil.com");
+    // USER STORY 6
+    @Test
+    public void mentionedEmailsShouldBeResolvedFilteredAndDeduplicated() throws Exception {
+        String sender = "sender@mentions.com";
+        String friend = "friend@mentions.com";
+        String mentioned = "mentioned@mentions.com";
+        String blocker = "blocker@mentions.com";
+        String text = "Hi " + mentioned + ", " + friend + ", " + blocker + ", unknown@mentions.com, " + sender
+                + " and " + mentioned + " again";
+        emailIndex.put(mentioned, 11L);
+        emailIndex.put(blocker, 13L);
+
+        Map<String, Long> ids = storeAccounts(sender, friend);
+        relationshipRepository.insertFriendships(Collections.singletonList(
+                new AccountPair(ids.get(sender), ids.get(friend))));
+        Mockito.when(accountRepository.findBlockersAmong(Mockito.eq(sender), Mockito.anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList(blocker));
+
+        assertThat(accountService.getUpdateRecipientsOf(sender, text)).containsExactly(friend, mentioned);
+    }
 
-        Mockito.when(accountRepository.findByEmail(email)).thenReturn(Optional.of(account));
-        Mockito.when(accountRepository.findFriendsAndSubscribersOf(email)).thenReturn(Optional.of(friendsAndSubscribersList));
 
-        assertThat(accountService.getBroadcastRecipientsOf(email)).contains("hello@world.com", "byeWorld@wonderful.com", "lastEmail@gmamil.com")
-                .doesNotContain(emailToBeBlocked);
+    /**
+     * Inserts real Account rows, as the edge tables reference them, and indexes their emails so that the mocked
+     * AccountRepository is never asked for their ids.
+     */
+    private Map<String, Long> storeAccounts(String... emails) {
+        relationshipRepository.insertAccounts(Arrays.asList(emails));
+        Map<String, Long> ids = relationshipRepository.findIdsByEmail(Arrays.asList(emails));
+        ids.forEach(emailIndex::put);
+        return ids;
     }
 
+    private List<Integer> counters(long id) {
+        return jdbcTemplate.queryForObject("select friend_count, subscriber_count, subscription_count, blocked_count, "
+                        + "blocker_count from account where id = :id", Collections.singletonMap("id", id),
+                (resultSet, row) -> Arrays.asList(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3),
+                        resultSet.getInt(4), resultSet.getInt(5)));
+    }
 
     private Account createNewAccount(long id, String email) {
         Account account = new Account();
@@ -0,0 +1,109 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class RelationshipListCacheTest {
+    private static final String ANDY = "andy@example.com";
+    private static final String JOHN = "john@example.com";
+    private static final String LISA = "lisa@example.com";
+
+    @Test
+    public void concurrentMissesShouldComputeOnce() throws Exception {
+        RelationshipListCache cache = new RelationshipListCache(1000, 1000, "repository");
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> readers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                readers.add(executor.submit(() -> cache.getFriendsOf(ANDY, email -> {
+                    computations.incrementAndGet();
+                    computing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new ArrayList<>(Arrays.asList(JOHN, LISA));
+                })));
+            }
+            computing.await(5, TimeUnit.SECONDS);
+            // give the other readers time to miss as well
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<List<String>> reader : readers) {
+                assertThat(reader.get(5, TimeUnit.SECONDS)).containsExactly(JOHN, LISA);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(computations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void writesShouldInvalidateTheListsTheyChange() throws Exception {
+        RelationshipListCache cache = new RelationshipListCache(1000, 1000, "repository");
+        AtomicInteger computations = new AtomicInteger();
+        cache.getFriendsOf(ANDY, email -> list(computations));
+        cache.getFriendsOf(JOHN, email -> list(computations));
+        cache.getBroadcastRecipientsOf(ANDY, email -> list(computations));
+        cache.getBroadcastRecipientsOf(LISA, email -> list(computations));
+        assertThat(computations.get()).isEqualTo(4);
+
+        // a subscription to Lisa or a block of Lisa only changes her recipients
+        cache.subscriptionAdded(ANDY, LISA);
+        cache.blockAdded(JOHN, LISA);
+        cache.getFriendsOf(ANDY, email -> list(computations));
+        cache.getBroadcastRecipientsOf(ANDY, email -> list(computations));
+        assertThat(computations.get()).isEqualTo(4);
+        cache.getBroadcastRecipientsOf(LISA, email -> list(computations));
+        assertThat(computations.get()).isEqualTo(5);
+
+        cache.friendshipAdded(ANDY, JOHN);
+        cache.getFriendsOf(ANDY, email -> list(computations));
+        cache.getFriendsOf(JOHN, email -> list(computations));
+        cache.getBroadcastRecipientsOf(ANDY, email -> list(computations));
+        cache.getBroadcastRecipientsOf(LISA, email -> list(computations));
+        assertThat(computations.get()).isEqualTo(8);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cachedListsShouldBeUnmodifiable() throws Exception {
+        RelationshipListCache cache = new RelationshipListCache(1000, 1000, "repository");
+        cache.getBroadcastRecipientsOf(ANDY, email -> new ArrayList<>(Arrays.asList(JOHN))).add(LISA);
+    }
+
+    @Test
+    public void listsShouldNotBeCachedInFrontOfTheMemoryEngine() throws Exception {
+        RelationshipListCache cache = new RelationshipListCache(1000, 1000, "memory");
+        AtomicInteger computations = new AtomicInteger();
+        cache.getFriendsOf(ANDY, email -> list(computations));
+        cache.getFriendsOf(ANDY, email -> list(computations));
+        cache.getBroadcastRecipientsOf(ANDY, email -> list(computations));
+        cache.friendshipAdded(ANDY, JOHN);
+        cache.getBroadcastRecipientsOf(ANDY, email -> list(computations));
+        assertThat(computations.get()).isEqualTo(4);
+    }
+
+    private static List<String> list(AtomicInteger computations) {
+        computations.incrementAndGet();
+        return new ArrayList<>(Arrays.asList(JOHN));
+    }
+}
@@ -0,0 +1,82 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import com.lemuelinchrist.exercise.facepalm.FacepalmApplication;
+import com.lemuelinchrist.exercise.facepalm.exception.AccountBlockedException;
+import com.lemuelinchrist.exercise.facepalm.exception.AlreadySubscribedException;
+import com.lemuelinchrist.exercise.facepalm.model.Account;
+import com.lemuelinchrist.exercise.facepalm.model.AccountPair;
+import com.lemuelinchrist.exercise.facepalm.model.RelationshipRepository;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = FacepalmApplication.class, properties = {"facepalm.write.durability=wal",
+        "facepalm.graph.snapshot.path=${java.io.tmpdir}/facepalm-write-behind-test.snapshot"})
+public class RelationshipWriteBehindTest {
+    private static final File SNAPSHOT = new File(System.getProperty("java.io.tmpdir"),
+            "facepalm-write-behind-test.snapshot");
+
+    @Autowired
+    AccountService accountService;
+
+    @Autowired
+    RelationshipWriteBehind relationshipWriteBehind;
+
+    @Autowired
+    RelationshipRepository relationshipRepository;
+
+    @BeforeClass
+    public static void deleteSnapshot() {
+        // the database is created empty for every run, and so must be the graph
+        SNAPSHOT.delete();
+        new File(SNAPSHOT.getPath() + ".journal").delete();
+    }
+
+    @Test
+    public void loggedRelationshipsShouldBeWrittenToDatabase() throws Exception {
+        long andy = save("andy@writebehind.com");
+        long john = save("john@writebehind.com");
+        long lisa = save("lisa@writebehind.com");
+
+        accountService.befriendAccounts("andy@writebehind.com", "john@writebehind.com");
+        accountService.subscribeToUpdates("lisa@writebehind.com", "andy@writebehind.com");
+        accountService.blockAccounts(Collections.singletonList(
+                new EmailPair("lisa@writebehind.com", "john@writebehind.com")));
+
+        // answered by the graph before the database has the relationships
+        assertThat(accountService.getFriendListByEmail("andy@writebehind.com")).containsExactly("john@writebehind.com");
+        assertThatThrownBy(() -> accountService.subscribeToUpdates("lisa@writebehind.com", "andy@writebehind.com"))
+                .isInstanceOf(AlreadySubscribedException.class);
+        assertThatThrownBy(() -> accountService.befriendAccounts("john@writebehind.com", "lisa@writebehind.com"))
+                .isInstanceOf(AccountBlockedException.class);
+
+        assertThat(relationshipWriteBehind.flush(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(relationshipRepository.hasFriendship(andy, john)).isTrue();
+        assertThat(relationshipRepository.hasFriendship(john, andy)).isTrue();
+        assertThat(relationshipRepository.hasSubscription(andy, lisa)).isTrue();
+        assertThat(relationshipRepository.findBlocks(Arrays.asList(andy, john, lisa), Arrays.asList(andy, john, lisa)))
+                .containsExactly(new AccountPair(lisa, john));
+    }
+
+    private long save(String email) throws Exception {
+        Account account = new Account();
+        account.setEmail(email);
+        return accountService.save(account);
+    }
+}
@@ -0,0 +1,76 @@
+package com.lemuelinchrist.exercise.facepalm.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Lemuel Cantos
+ * @since 18/10/2026
+ */
+public class WriteCoordinatorTest {
+
+    @Test
+    public void writesOnTheSameAccountsShouldBeSerializedWithoutDeadlocks() throws Exception {
+        // few stripes and few accounts, so nearly every pair of writes contends
+        WriteCoordinator writeCoordinator = new WriteCoordinator(8);
+        long[] balances = new long[16];
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                writers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        int from = random.nextInt(balances.length);
+                        int to = random.nextInt(balances.length);
+                        if (i % 100 == 0) {
+                            writeCoordinator.write(Arrays.asList((long) from, (long) to, (long) (from + 1) % 16),
+                                    () -> balances[from]++);
+                        } else {
+                            // both accounts are updated with plain read-modify-writes under the locks
+                            writeCoordinator.write(from, to, () -> {
+                                balances[from]--;
+                                balances[to]++;
+                            });
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(Arrays.stream(balances).sum()).isEqualTo(8 * 200);
+    }
+
+    @Test
+    public void locksShouldBeReleasedWhenTheWriteFails() throws Exception {
+        WriteCoordinator writeCoordinator = new WriteCoordinator(1024);
+        assertThatThrownBy(() -> writeCoordinator.write(1, 2, () -> {
+            throw new IllegalStateException("write failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // the stripes are free for another thread
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> writeCoordinator.write(2, 1, () -> {
+            })).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}